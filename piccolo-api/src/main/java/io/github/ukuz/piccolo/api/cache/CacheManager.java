@@ -18,10 +18,17 @@ package io.github.ukuz.piccolo.api.cache;
 import io.github.ukuz.piccolo.api.PiccoloContext;
 import io.github.ukuz.piccolo.api.spi.Spi;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
+ * The *Bytes methods read and write the values as they are, for the binary encoded ones.
+ * The *Async methods never block the calling thread, their futures complete on the threads of the
+ * redis client, so continuations touching a connection should hop back to its event loop.
+ *
  * @author ukuz90
  */
 @Spi(primary = "redis")
@@ -33,6 +40,15 @@ public interface CacheManager {
 
     void del(String key);
 
+    CompletableFuture<Void> delAsync(String key);
+
+    /**
+     * remove the keys without blocking the server on their size, pipelined
+     *
+     * @param keys
+     */
+    void unlink(Collection<String> keys);
+
     long hincrBy(String key, String field, long value);
 
     void set(String key, String value);
@@ -45,24 +61,131 @@ public interface CacheManager {
 
     <T> T get(String key, Class<T> tClass);
 
+    CompletableFuture<Void> setAsync(String key, String value, int expireTime);
+
+    CompletableFuture<Void> setAsync(String key, Object value, int expireTime);
+
+    CompletableFuture<String> getAsync(String key);
+
+    <T> CompletableFuture<T> getAsync(String key, Class<T> tClass);
+
+    void setBytes(String key, byte[] value, int expireTime);
+
+    byte[] getBytes(String key);
+
+    CompletableFuture<Void> setBytesAsync(String key, byte[] value, int expireTime);
+
+    CompletableFuture<byte[]> getBytesAsync(String key);
+
     void hset(String key, String field, String value);
 
     void hset(String key, String field, Object value);
 
     <T> T hget(String key, String field, Class<T> tClass);
 
+    CompletableFuture<Void> hsetAsync(String key, String field, String value);
+
+    <T> CompletableFuture<T> hgetAsync(String key, String field, Class<T> tClass);
+
+    byte[] hgetBytes(String key, String field);
+
+    CompletableFuture<byte[]> hgetBytesAsync(String key, String field);
+
+    /**
+     * set the hash field and get its previous value atomically, in one round trip
+     *
+     * @param key
+     * @param field
+     * @param value
+     * @return the previous value
+     */
+    byte[] hgetAndSet(String key, String field, byte[] value);
+
+    /**
+     * clear the connId of the client locator stored in the hash field atomically, in one round trip
+     *
+     * @param key
+     * @param field
+     * @param connId only if the locator still belongs to this connection, null for any connection
+     * @return the previous value, null if nothing was changed
+     */
+    byte[] hofflineLocator(String key, String field, String connId);
+
+    /**
+     * same as {@link #hgetAndSet(String, String, byte[])}, but batched with other writes into one pipeline
+     *
+     * @param key
+     * @param field
+     * @param value
+     * @return the previous value
+     */
+    CompletableFuture<byte[]> hgetAndSetAsync(String key, String field, byte[] value);
+
+    /**
+     * same as {@link #hofflineLocator(String, String, String)}, but batched with other writes into one pipeline
+     *
+     * @param key
+     * @param field
+     * @param connId
+     * @return the previous value, null if nothing was changed
+     */
+    CompletableFuture<byte[]> hofflineLocatorAsync(String key, String field, String connId);
+
     void hdel(String key, String field);
 
     Map<String, String> hgetAll(String key);
 
     <T> Map<String, T> hgetAll(String key, Class<T> clazz);
 
+    Map<String, byte[]> hgetAllBytes(String key);
+
+    /**
+     * read the hashes with pipelines grouped by cluster node, the nodes are read side by side
+     *
+     * @param keys
+     * @return the fields and raw values of each key, empty if the key is absent
+     */
+    Map<String, Map<String, byte[]>> hgetAllBytes(Collection<String> keys);
+
+    CompletableFuture<Void> hdelAsync(String key, String field);
+
+    CompletableFuture<Map<String, String>> hgetAllAsync(String key);
+
+    <T> CompletableFuture<Map<String, T>> hgetAllAsync(String key, Class<T> clazz);
+
+    CompletableFuture<Map<String, byte[]>> hgetAllBytesAsync(String key);
+
+    CompletableFuture<Long> publishAsync(String channel, String message);
+
+    /**
+     * subscribe the pub/sub channel, messages published while not subscribed are lost
+     *
+     * @param channel
+     * @param onMessage
+     * @param onSubscribe called each time the subscription is (re)established
+     */
+    void subscribe(String channel, Consumer<String> onMessage, Runnable onSubscribe);
+
+    void unsubscribe(String channel);
+
     void zAdd(String key, String field, double score);
 
+    CompletableFuture<Void> zAddAsync(String key, String field, double score);
+
     Long zCard(String key);
 
+    /**
+     * the cardinalities of the sorted sets in the order of the keys, pipelined
+     *
+     * @param keys
+     * @return
+     */
+    List<Long> zCard(List<String> keys);
+
     void zRem(String key, String field);
 
+    CompletableFuture<Void> zRemAsync(String key, String field);
+
     <T> List<T> zrange(String key, int start, int end, Class<T> clazz);
 
     void lpush(String key, String... value);
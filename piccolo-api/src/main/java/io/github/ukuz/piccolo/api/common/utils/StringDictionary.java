@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.api.common.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A bounded dictionary for the low cardinality strings kept per session, e.g. os name or client version,
+ * so a million sessions share a handful of instances instead of holding a copy each.
+ *
+ * once full, unknown strings are returned as they are, a client can not grow it without bound.
+ *
+ * @author ukuz90
+ */
+public final class StringDictionary {
+
+    private final ConcurrentMap<String, String> dictionary = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    public StringDictionary(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String interned = dictionary.get(value);
+        if (interned != null) {
+            return interned;
+        }
+        if (dictionary.size() >= capacity) {
+            return value;
+        }
+        interned = dictionary.putIfAbsent(value, value);
+        return interned == null ? value : interned;
+    }
+
+    public int size() {
+        return dictionary.size();
+    }
+}
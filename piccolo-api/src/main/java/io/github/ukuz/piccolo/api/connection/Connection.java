@@ -16,6 +16,7 @@
 package io.github.ukuz.piccolo.api.connection;
 
 import io.github.ukuz.piccolo.api.exchange.support.BaseMessage;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
@@ -54,6 +55,15 @@ public interface Connection {
 
     ChannelFuture sendAsync(BaseMessage message, ChannelFutureListener listener);
 
+    /**
+     * send a packet which was already encoded, e.g. a duplicate of a frame shared by many connections.
+     * the connection takes over the frame and releases it once written.
+     *
+     * @param frame encoded packet
+     * @return
+     */
+    ChannelFuture sendEncodedAsync(ByteBuf frame);
+
     /**
      * send async without encrypt, compress and so on...
      *
@@ -78,6 +88,8 @@ public interface Connection {
 
     void updateLastReadTime();
 
+    long getLastReadTime();
+
     void updateLastWriteTime();
 
     String getId();
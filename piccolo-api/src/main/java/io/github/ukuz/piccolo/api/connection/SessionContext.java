@@ -15,6 +15,7 @@
  */
 package io.github.ukuz.piccolo.api.connection;
 
+import io.github.ukuz.piccolo.api.common.utils.StringDictionary;
 import io.github.ukuz.piccolo.api.router.ClientClassifier;
 import io.github.ukuz.piccolo.api.spi.SpiLoader;
 import io.netty.util.internal.StringUtil;
@@ -24,6 +25,11 @@ import io.netty.util.internal.StringUtil;
  */
 public class SessionContext {
 
+    /**
+     * os name, os version, client version and tags repeat across sessions
+     */
+    private static final StringDictionary DICTIONARY = new StringDictionary(4096);
+
     private String osName;
     private String osVersion;
     private String clientVersion;
@@ -43,7 +49,7 @@ public class SessionContext {
     }
 
     public SessionContext setOsName(String osName) {
-        this.osName = osName;
+        this.osName = DICTIONARY.intern(osName);
         return this;
     }
 
@@ -52,7 +58,7 @@ public class SessionContext {
     }
 
     public SessionContext setOsVersion(String osVersion) {
-        this.osVersion = osVersion;
+        this.osVersion = DICTIONARY.intern(osVersion);
         return this;
     }
 
@@ -61,7 +67,7 @@ public class SessionContext {
     }
 
     public SessionContext setClientVersion(String clientVersion) {
-        this.clientVersion = clientVersion;
+        this.clientVersion = DICTIONARY.intern(clientVersion);
         return this;
     }
 
@@ -88,7 +94,7 @@ public class SessionContext {
     }
 
     public SessionContext setTags(String tags) {
-        this.tags = tags;
+        this.tags = DICTIONARY.intern(tags);
         return this;
     }
 
@@ -15,7 +15,9 @@
  */
 package io.github.ukuz.piccolo.api.exchange.protocol;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCounted;
 import lombok.Data;
 
 /**
@@ -24,10 +26,13 @@ import lombok.Data;
  * | magic(2B) | cmd(1B)  | flag(1B) | sessionId(4B) | lrc(1B) | length(4B) | payload |
  * | 0xBCC0    |          | 0x80     |               |         | 0x00000005 | "HELLO" |
  * +-----------+----------+----------+---------------+---------+------------+---------+
+ * the payload is either held as {@link #payload} or, in zero-copy decode mode, as a retained
+ * slice of the inbound buffer in {@link #content}, which must be released once consumed.
+ *
  * @author ukuz90
  */
 @Data
-public class Packet {
+public class Packet implements ReferenceCounted {
 
     public transient static final int HEADER_LENGTH = 13;
 
@@ -61,6 +66,10 @@ public class Packet {
      * payload's body
      */
     private byte[] payload;
+    /**
+     * payload's body as a retained slice, only set by zero-copy decode
+     */
+    transient private ByteBuf content;
 
     public byte calcLrc() {
         byte lrc = 0;
@@ -85,4 +94,55 @@ public class Packet {
         return (byte) (flag & 0x07);
     }
 
+    public boolean hasContent() {
+        return content != null;
+    }
+
+    @Override
+    public int refCnt() {
+        return content == null ? 1 : content.refCnt();
+    }
+
+    @Override
+    public Packet retain() {
+        if (content != null) {
+            content.retain();
+        }
+        return this;
+    }
+
+    @Override
+    public Packet retain(int increment) {
+        if (content != null) {
+            content.retain(increment);
+        }
+        return this;
+    }
+
+    @Override
+    public Packet touch() {
+        if (content != null) {
+            content.touch();
+        }
+        return this;
+    }
+
+    @Override
+    public Packet touch(Object hint) {
+        if (content != null) {
+            content.touch(hint);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return content != null && content.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return content != null && content.release(decrement);
+    }
+
 }
@@ -19,6 +19,7 @@ import io.github.ukuz.piccolo.api.connection.Cipher;
 import io.github.ukuz.piccolo.api.connection.Connection;
 import io.github.ukuz.piccolo.api.exchange.protocol.Packet;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,10 +47,16 @@ public abstract class ByteBufMessage implements BaseMessage {
 
     @Override
     public void decodeBody(Packet packet) {
-        byte[] payload = packet.getPayload();
         commandType = packet.getCommandType();
         decomposeFlag(packet.getFlag());
         sessionId = packet.getSessionId();
+        if (packet.hasContent() && !(encrypt && getCipher() != null)) {
+            // zero-copy, decode straight from the retained slice
+            encrypt = false;
+            decodeBody0(packet.getContent());
+            return;
+        }
+        byte[] payload = packet.hasContent() ? ByteBufUtil.getBytes(packet.getContent()) : packet.getPayload();
         if (encrypt) {
             // 解密
             byte[] tmp = null;
@@ -111,6 +118,28 @@ public abstract class ByteBufMessage implements BaseMessage {
 
     }
 
+    /**
+     * whether the body can be written straight into the outbound buffer, that is it would not be encrypted
+     *
+     * @return true if no cipher applies to this message
+     */
+    public boolean isDirectEncodable() {
+        return !encrypt || getCipher() == null;
+    }
+
+    /**
+     * write the body straight into the outbound buffer, without the intermediate packet
+     *
+     * @param out the outbound buffer
+     * @return the packet's flag
+     * @see #isDirectEncodable()
+     */
+    public byte encodeBody(ByteBuf out) {
+        encrypt = false;
+        encodeBody0(out);
+        return assemblyFlag();
+    }
+
     public void writeByte(ByteBuf buf, byte b) {
         buf.writeByte(b);
     }
@@ -38,18 +38,22 @@ public abstract class GenericMqMessage implements MQMessage {
     @Override
     public byte[] encode() {
         ByteBuf output = PooledByteBufAllocator.DEFAULT.buffer();
-        this.outputStream = CodedOutputStream.newInstance(new ByteBufOutputStream(output));
-        doEncode();
         try {
-            //when byte size >= 4KB would auto flush
-            this.outputStream.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        byte[] bytes = new byte[this.outputStream.getTotalBytesWritten()];
+            this.outputStream = CodedOutputStream.newInstance(new ByteBufOutputStream(output));
+            doEncode();
+            try {
+                //when byte size >= 4KB would auto flush
+                this.outputStream.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            byte[] bytes = new byte[this.outputStream.getTotalBytesWritten()];
 
-        output.readBytes(bytes);
-        return bytes;
+            output.readBytes(bytes);
+            return bytes;
+        } finally {
+            output.release();
+        }
     }
 
     @Override
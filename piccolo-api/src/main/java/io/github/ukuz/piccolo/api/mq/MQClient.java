@@ -18,12 +18,16 @@ package io.github.ukuz.piccolo.api.mq;
 import io.github.ukuz.piccolo.api.service.Service;
 import io.github.ukuz.piccolo.api.spi.Spi;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author ukuz90
  */
 @Spi(primary = "kafka")
 public interface MQClient extends Service {
 
+    String DEFAULT = "kafka";
+
     void addTopicIfNeeded(MQTopic topic);
 
     void subscribe(String topic, MQMessageReceiver receiver);
@@ -32,6 +36,17 @@ public interface MQClient extends Service {
 
     void publish(String topic, String key, Object message);
 
+    /**
+     * publish without waiting for the broker, the future completes once the message was acknowledged.
+     * the caller still blocks while the client has no room for the message, at most the max-block-ms of the client
+     *
+     * @param topic
+     * @param key
+     * @param message
+     * @return a future failed when the message could not be sent
+     */
+    CompletableFuture<Void> publishAsync(String topic, String key, Object message);
+
     void commitMessage(MQMessage message);
 
 }
@@ -28,4 +28,13 @@ public interface MQMessageReceiver<T> {
      */
     void receive(String topic, T message, Object... attachment);
 
+    /**
+     * whether the received message is acknowledged by {@link MQMessage#completeConsume()},
+     * otherwise it is acknowledged once {@link #receive(String, Object, Object...)} returned
+     * @return
+     */
+    default boolean isManualAck() {
+        return false;
+    }
+
 }
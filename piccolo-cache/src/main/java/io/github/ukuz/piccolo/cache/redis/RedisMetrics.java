@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * latency of the redis commands, one timer per command
+ *
+ * @author ukuz90
+ */
+public final class RedisMetrics {
+
+    private static final String COMMAND_TIMER = "piccolo_redis_command";
+    private static final String COMMAND_TAG = "command";
+    private static final ConcurrentMap<String, Timer> TIMERS = new ConcurrentHashMap<>();
+
+    private RedisMetrics() {
+    }
+
+    public static Timer timer(String command) {
+        Timer timer = TIMERS.get(command);
+        if (timer == null) {
+            timer = TIMERS.computeIfAbsent(command, k -> Timer.builder(COMMAND_TIMER)
+                    .tag(COMMAND_TAG, k)
+                    .publishPercentiles(0.5, 0.9, 0.99)
+                    .register(Metrics.globalRegistry));
+        }
+        return timer;
+    }
+
+}
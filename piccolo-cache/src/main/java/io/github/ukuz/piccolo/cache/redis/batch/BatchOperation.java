@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.batch;
+
+import io.github.ukuz.piccolo.cache.redis.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A write queued in the {@link RedisBatchWriter}, completed once the pipeline it was flushed with is synced.
+ *
+ * @author ukuz90
+ */
+public final class BatchOperation {
+
+    public enum Type {
+        SCRIPT, ZADD, ZREM, ZCARD, HGETALL
+    }
+
+    private final Type type;
+    private final String key;
+    private final RedisScript script;
+    private final byte[][] args;
+    private final String member;
+    private final double score;
+    private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+    private BatchOperation(Type type, String key, RedisScript script, byte[][] args, String member, double score) {
+        this.type = type;
+        this.key = key;
+        this.script = script;
+        this.args = args;
+        this.member = member;
+        this.score = score;
+    }
+
+    public static BatchOperation script(String key, RedisScript script, byte[]... args) {
+        return new BatchOperation(Type.SCRIPT, key, script, args, null, 0);
+    }
+
+    public static BatchOperation zAdd(String key, String member, double score) {
+        return new BatchOperation(Type.ZADD, key, null, null, member, score);
+    }
+
+    public static BatchOperation zRem(String key, String member) {
+        return new BatchOperation(Type.ZREM, key, null, null, member, 0);
+    }
+
+    public static BatchOperation zCard(String key) {
+        return new BatchOperation(Type.ZCARD, key, null, null, null, 0);
+    }
+
+    /**
+     * completes with the fields and their raw values
+     *
+     * @param key
+     * @return
+     */
+    public static BatchOperation hgetAll(String key) {
+        return new BatchOperation(Type.HGETALL, key, null, null, null, 0);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public RedisScript getScript() {
+        return script;
+    }
+
+    public byte[][] getArgs() {
+        return args;
+    }
+
+    /**
+     * the key followed by the args, as EVAL / EVALSHA expect them
+     *
+     * @return
+     */
+    public byte[][] getScriptParams() {
+        byte[][] params = new byte[args.length + 1][];
+        params[0] = key.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(args, 0, params, 1, args.length);
+        return params;
+    }
+
+    public String getMember() {
+        return member;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public CompletableFuture<Object> future() {
+        return future;
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    public void complete(Object reply) {
+        future.complete(reply);
+    }
+
+    public void fail(Throwable cause) {
+        future.completeExceptionally(cause);
+    }
+
+}
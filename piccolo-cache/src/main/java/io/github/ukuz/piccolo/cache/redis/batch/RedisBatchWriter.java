@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.batch;
+
+import io.github.ukuz.piccolo.cache.CacheException;
+import io.github.ukuz.piccolo.cache.redis.connection.RedisConnectionFactory;
+import io.github.ukuz.piccolo.common.thread.NamedThreadFactory;
+import io.github.ukuz.piccolo.common.thread.ThreadNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects writes for up to {@code lingerMs} or {@code batchSize} operations and hands them to the
+ * {@link RedisConnectionFactory} to be flushed with one pipeline, so that a reconnect storm costs a few
+ * round trips instead of one per user and the callers never wait on Redis.
+ *
+ * @author ukuz90
+ */
+public class RedisBatchWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisBatchWriter.class);
+    private static final long IDLE_POLL_MS = 100;
+
+    private final RedisConnectionFactory factory;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<BatchOperation> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public RedisBatchWriter(RedisConnectionFactory factory, int batchSize, long lingerMs) {
+        this.factory = factory;
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMs));
+        this.thread = new NamedThreadFactory(ThreadNames.T_REDIS_BATCH).newThread(this::run);
+        this.thread.start();
+    }
+
+    public CompletableFuture<Object> submit(BatchOperation operation) {
+        if (!running) {
+            operation.fail(new CacheException("redis batch writer closed"));
+            return operation.future();
+        }
+        queue.offer(operation);
+        return operation.future();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<BatchOperation> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                BatchOperation first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    BatchOperation next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                flush(batch);
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<BatchOperation> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            factory.executeBatch(batch);
+        } catch (Exception e) {
+            LOGGER.warn("redis batch flush failure, size: {} cause: {}", batch.size(), e);
+            batch.forEach(operation -> operation.fail(e));
+        }
+        // an operation left behind by the factory must not hang its caller
+        for (BatchOperation operation : batch) {
+            if (!operation.isDone()) {
+                operation.fail(new CacheException("redis batch operation not executed"));
+            }
+        }
+    }
+
+    public void close() {
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        BatchOperation operation;
+        while ((operation = queue.poll()) != null) {
+            operation.fail(new CacheException("redis batch writer closed"));
+        }
+    }
+
+}
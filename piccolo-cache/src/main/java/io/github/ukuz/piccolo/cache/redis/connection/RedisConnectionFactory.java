@@ -17,24 +17,46 @@
 package io.github.ukuz.piccolo.cache.redis.connection;
 
 import io.github.ukuz.piccolo.api.spi.Spi;
+import io.github.ukuz.piccolo.cache.redis.batch.BatchOperation;
+import io.github.ukuz.piccolo.cache.redis.operator.AsyncOperator;
+import io.github.ukuz.piccolo.cache.redis.operator.BytesOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.HashOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.ListOperator;
+import io.github.ukuz.piccolo.cache.redis.operator.ScriptOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.ValueOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.ZSetOperator;
 import io.github.ukuz.piccolo.cache.redis.properties.RedisProperties;
 
+import java.util.List;
+
 @Spi
 public interface RedisConnectionFactory {
 
     void init(RedisProperties redisProperties);
 
-    ValueOperator getValueOperator(String key);
+    ValueOperator getValueOperator();
+
+    HashOperator getHashOperator();
+
+    ListOperator getListOperator();
+
+    ZSetOperator getZSetOperator();
+
+    ScriptOperator getScriptOperator();
 
-    HashOperator getHashOperator(String key);
+    BytesOperator getBytesOperator();
 
-    ListOperator getListOperator(String key);
+    /**
+     * @return null if the client has no non-blocking api
+     */
+    AsyncOperator getAsyncOperator();
 
-    ZSetOperator getZSetOperator(String key);
+    /**
+     * execute the operations with as few round trips as possible and complete each of them
+     *
+     * @param operations
+     */
+    void executeBatch(List<BatchOperation> operations);
 
     void destroy();
 
@@ -15,27 +15,47 @@
  */
 package io.github.ukuz.piccolo.cache.redis.connection.jedis;
 
+import io.github.ukuz.piccolo.cache.redis.RedisMetrics;
 import io.github.ukuz.piccolo.cache.redis.RedisNode;
+import io.github.ukuz.piccolo.cache.redis.batch.BatchOperation;
 import io.github.ukuz.piccolo.cache.redis.connection.RedisConnectionFactory;
+import io.github.ukuz.piccolo.cache.redis.operator.AsyncOperator;
+import io.github.ukuz.piccolo.cache.redis.operator.BytesOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.HashOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.ListOperator;
+import io.github.ukuz.piccolo.cache.redis.operator.ScriptOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.ValueOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.ZSetOperator;
+import io.github.ukuz.piccolo.cache.redis.operator.jedis.JedisBytesOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.jedis.JedisHashOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.jedis.JedisListOperator;
+import io.github.ukuz.piccolo.cache.redis.operator.jedis.JedisScriptOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.jedis.JedisValueOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.jedis.JedisZSetOperator;
 import io.github.ukuz.piccolo.cache.redis.properties.RedisProperties;
+import io.github.ukuz.piccolo.cache.redis.script.RedisScript;
+import io.github.ukuz.piccolo.common.thread.NamedThreadFactory;
+import io.github.ukuz.piccolo.common.thread.ThreadNames;
 import io.netty.util.internal.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.*;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
 import redis.clients.util.Pool;
+import redis.clients.util.SafeEncoder;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -51,11 +71,22 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
     private int timeout = Protocol.DEFAULT_TIMEOUT;
 
     private JedisShardInfo shardInfo;
-    private JedisCluster cluster;
+    private PipelinedJedisCluster cluster;
     private Pool<Jedis> pool;
 
     private int database = Protocol.DEFAULT_DATABASE;
 
+    private ValueOperator valueOperator;
+    private HashOperator hashOperator;
+    private ListOperator listOperator;
+    private ZSetOperator zSetOperator;
+    private ScriptOperator scriptOperator;
+    private BytesOperator bytesOperator;
+    /**
+     * runs the pipelines of the cluster nodes side by side
+     */
+    private ExecutorService pipelineExecutor;
+
     @Override
     public void init(RedisProperties redisProperties) {
         this.properties = redisProperties;
@@ -66,29 +97,215 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
 
         if (properties.isCluster()) {
             cluster = createCluster();
+            pipelineExecutor = Executors.newCachedThreadPool(new NamedThreadFactory(ThreadNames.T_REDIS_PIPELINE, true));
         } else {
             pool = createPool();
         }
+
+        valueOperator = new JedisValueOperator(this::getCommands);
+        hashOperator = new JedisHashOperator<String>(this::getCommands);
+        listOperator = new JedisListOperator(this::getCommands);
+        zSetOperator = new JedisZSetOperator(this::getCommands);
+        scriptOperator = new JedisScriptOperator(this::getCommands);
+        bytesOperator = new JedisBytesOperator(this::getCommands);
+    }
+
+    @Override
+    public ValueOperator getValueOperator() {
+        return valueOperator;
+    }
+
+    @Override
+    public HashOperator getHashOperator() {
+        return hashOperator;
+    }
+
+    @Override
+    public ListOperator getListOperator() {
+        return listOperator;
+    }
+
+    @Override
+    public ZSetOperator getZSetOperator() {
+        return zSetOperator;
     }
 
     @Override
-    public ValueOperator getValueOperator(String key) {
-        return new JedisValueOperator(key, getCommands());
+    public ScriptOperator getScriptOperator() {
+        return scriptOperator;
     }
 
     @Override
-    public HashOperator getHashOperator(String key) {
-        return new JedisHashOperator(key, getCommands());
+    public BytesOperator getBytesOperator() {
+        return bytesOperator;
     }
 
     @Override
-    public ListOperator getListOperator(String key) {
-        return new JedisListOperator(key, getCommands());
+    public AsyncOperator getAsyncOperator() {
+        return null;
     }
 
     @Override
-    public ZSetOperator getZSetOperator(String key) {
-        return new JedisZSetOperator(key, getCommands());
+    public void executeBatch(List<BatchOperation> operations) {
+        if (!properties.isCluster()) {
+            Jedis jedis = getJedisConnection();
+            try {
+                pipelined(jedis, operations);
+            } finally {
+                jedis.close();
+            }
+            return;
+        }
+        // group by the node owning the slot, one pipeline per node
+        Map<String, Jedis> connections = new HashMap<>();
+        Map<String, List<BatchOperation>> nodeOperations = new HashMap<>();
+        try {
+            for (BatchOperation operation : operations) {
+                String node = cluster.getNode(operation.getKey());
+                if (!connections.containsKey(node)) {
+                    connections.put(node, cluster.getConnectionFromNode(node));
+                }
+                nodeOperations.computeIfAbsent(node, k -> new ArrayList<>()).add(operation);
+            }
+            List<CompletableFuture<Void>> futures = new ArrayList<>(nodeOperations.size());
+            nodeOperations.forEach((node, nodeOps) -> {
+                Runnable task = () -> {
+                    try {
+                        pipelined(connections.get(node), nodeOps);
+                    } catch (Exception e) {
+                        LOGGER.warn("redis pipeline failure, node: {} size: {} cause: {}", node, nodeOps.size(), e);
+                        nodeOps.forEach(operation -> operation.fail(e));
+                    }
+                };
+                if (nodeOperations.size() == 1) {
+                    task.run();
+                } else {
+                    futures.add(CompletableFuture.runAsync(task, pipelineExecutor));
+                }
+            });
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            connections.values().forEach(Jedis::close);
+        }
+    }
+
+    private void pipelined(Jedis jedis, List<BatchOperation> operations) {
+        long start = System.nanoTime();
+        try {
+            pipelined0(jedis, operations);
+        } finally {
+            RedisMetrics.timer("pipeline").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void pipelined0(Jedis jedis, List<BatchOperation> operations) {
+        List<Response<?>> responses = sync(jedis, operations, false);
+        List<BatchOperation> noScripts = null;
+        List<BatchOperation> redirected = null;
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            try {
+                operation.complete(toReply(operation, responses.get(i).get()));
+            } catch (JedisRedirectionException e) {
+                redirected = redirected == null ? new ArrayList<>() : redirected;
+                redirected.add(operation);
+            } catch (JedisDataException e) {
+                if (e.getMessage() != null && e.getMessage().startsWith("NOSCRIPT")) {
+                    noScripts = noScripts == null ? new ArrayList<>() : noScripts;
+                    noScripts.add(operation);
+                } else {
+                    operation.fail(e);
+                }
+            }
+        }
+        if (noScripts != null) {
+            // EVAL caches the scripts on the server, the next EVALSHA hits
+            responses = sync(jedis, noScripts, true);
+            for (int i = 0; i < noScripts.size(); i++) {
+                try {
+                    noScripts.get(i).complete(responses.get(i).get());
+                } catch (JedisDataException e) {
+                    noScripts.get(i).fail(e);
+                }
+            }
+        }
+        if (redirected != null) {
+            // the slots moved, let the cluster client follow the redirections one by one
+            if (cluster != null) {
+                cluster.renewSlotCache();
+            }
+            redirected.forEach(this::execute);
+        }
+    }
+
+    private List<Response<?>> sync(Jedis jedis, List<BatchOperation> operations, boolean loadScript) {
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<?>> responses = new ArrayList<>(operations.size());
+        for (BatchOperation operation : operations) {
+            switch (operation.getType()) {
+                case SCRIPT:
+                    RedisScript script = operation.getScript();
+                    responses.add(loadScript
+                            ? pipeline.eval(script.getRawScript(), script.getKeyCount(), operation.getScriptParams())
+                            : pipeline.evalsha(script.getRawSha1(), script.getKeyCount(), operation.getScriptParams()));
+                    break;
+                case ZADD:
+                    responses.add(pipeline.zadd(operation.getKey(), operation.getScore(), operation.getMember()));
+                    break;
+                case ZREM:
+                    responses.add(pipeline.zrem(operation.getKey(), operation.getMember()));
+                    break;
+                case ZCARD:
+                    responses.add(pipeline.zcard(operation.getKey()));
+                    break;
+                case HGETALL:
+                    responses.add(pipeline.hgetAll(SafeEncoder.encode(operation.getKey())));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown batch operation: " + operation.getType());
+            }
+        }
+        pipeline.sync();
+        return responses;
+    }
+
+    private void execute(BatchOperation operation) {
+        try {
+            switch (operation.getType()) {
+                case SCRIPT:
+                    operation.complete(scriptOperator.eval(operation.getKey(), operation.getScript(), operation.getArgs()));
+                    break;
+                case ZADD:
+                    zSetOperator.zAdd(operation.getKey(), operation.getMember(), operation.getScore());
+                    operation.complete(null);
+                    break;
+                case ZREM:
+                    zSetOperator.zRem(operation.getKey(), operation.getMember());
+                    operation.complete(null);
+                    break;
+                case ZCARD:
+                    operation.complete(zSetOperator.zCard(operation.getKey()));
+                    break;
+                case HGETALL:
+                    operation.complete(bytesOperator.hgetAll(operation.getKey()));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown batch operation: " + operation.getType());
+            }
+        } catch (Exception e) {
+            operation.fail(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object toReply(BatchOperation operation, Object reply) {
+        if (operation.getType() != BatchOperation.Type.HGETALL || reply == null) {
+            return reply;
+        }
+        Map<byte[], byte[]> raw = (Map<byte[], byte[]>) reply;
+        Map<String, byte[]> fields = new HashMap<>(raw.size());
+        raw.forEach((field, value) -> fields.put(SafeEncoder.encode(field), value));
+        return fields;
     }
 
     private JedisCommands getCommands() {
@@ -110,13 +327,13 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
         return shardInfo;
     }
 
-    private JedisCluster createCluster() {
+    private PipelinedJedisCluster createCluster() {
         Set<HostAndPort> hostAndPorts = redisServers
                 .stream()
                 .map(node -> new HostAndPort(node.getHost(), node.getPort()))
                 .collect(Collectors.toSet());
         int maxAttempts = 5;
-        return new JedisCluster(hostAndPorts, timeout, maxAttempts, properties.getPoolConfig().apply());
+        return new PipelinedJedisCluster(hostAndPorts, timeout, maxAttempts, properties.getPoolConfig().apply());
     }
 
     private Pool<Jedis> createPool() {
@@ -133,7 +350,7 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
                 shardInfo.getPort(),
                 shardInfo.getSoTimeout(),
                 shardInfo.getPassword(),
-                properties.getDatabase() >= 0 ? properties.getDatabase() : Protocol.DEFAULT_DATABASE);
+                database);
     }
 
     private Pool<Jedis> createRedisSentinelPool() {
@@ -142,28 +359,27 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
                 .map(RedisNode::getHostAndPort)
                 .collect(Collectors.toSet());
 
-        return new JedisSentinelPool(properties.getSentinelMaster(), sentinels, properties.getPoolConfig().apply());
+        return new JedisSentinelPool(properties.getSentinelMaster(), sentinels, properties.getPoolConfig().apply(),
+                timeout, shardInfo.getPassword(), database);
     }
 
     public JedisCluster getJedisClusterConnection() {
         return cluster;
     }
 
+    /**
+     * the pooled connections are created on the configured database, no SELECT per call
+     *
+     * @return
+     */
     public Jedis getJedisConnection() {
-        Jedis jedis = fetchJedisConnector();
-        if (jedis != null) {
-            jedis.select(database);
-        }
-        return jedis;
-    }
-
-    private Jedis fetchJedisConnector() {
         try {
             if (pool != null) {
                 return pool.getResource();
             }
             Jedis jedis = new Jedis(shardInfo);
             jedis.connect();
+            jedis.select(database);
             return jedis;
         } catch (Exception e) {
             LOGGER.warn("Can not get redis connection, cause: {}", e);
@@ -182,6 +398,10 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
             }
             this.pool = null;
         }
+        if (this.pipelineExecutor != null) {
+            this.pipelineExecutor.shutdown();
+            this.pipelineExecutor = null;
+        }
         if (this.cluster != null) {
             try {
                 this.cluster.close();
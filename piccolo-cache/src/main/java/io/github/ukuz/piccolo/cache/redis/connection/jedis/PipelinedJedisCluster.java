@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.connection.jedis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisClusterInfoCache;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisClusterException;
+import redis.clients.util.JedisClusterCRC16;
+import redis.clients.util.SafeEncoder;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * resolves the node owning a slot so that batches can be pipelined per node, the slot map is read with
+ * <code>CLUSTER SLOTS</code> and renewed when a reply is redirected
+ *
+ * @author ukuz90
+ */
+class PipelinedJedisCluster extends JedisCluster {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedJedisCluster.class);
+    private static final int SLOT_COUNT = 16384;
+
+    /**
+     * node key of every slot, replaced as a whole on renewal
+     */
+    private volatile String[] slotNodes = new String[SLOT_COUNT];
+
+    PipelinedJedisCluster(Set<HostAndPort> nodes, int timeout, int maxAttempts, JedisPoolConfig poolConfig) {
+        super(nodes, timeout, maxAttempts, poolConfig);
+    }
+
+    /**
+     * @param key
+     * @return the node key, host:port, of the master owning the slot of the key
+     */
+    String getNode(String key) {
+        int slot = JedisClusterCRC16.getSlot(key);
+        String node = slotNodes[slot];
+        if (node == null) {
+            renewSlotCache();
+            node = slotNodes[slot];
+        }
+        if (node == null) {
+            throw new JedisClusterException("no node serves slot: " + slot);
+        }
+        return node;
+    }
+
+    /**
+     * @param node the node key returned by {@link #getNode(String)}
+     * @return a pooled connection to the node, closing it returns it to the pool
+     */
+    Jedis getConnectionFromNode(String node) {
+        JedisPool pool = getClusterNodes().get(node);
+        if (pool == null) {
+            // a node discovered by CLUSTER SLOTS but not yet by the cluster client
+            renewSlotCache();
+            pool = getClusterNodes().get(node);
+        }
+        if (pool == null) {
+            throw new JedisClusterException("unknown cluster node: " + node);
+        }
+        return pool.getResource();
+    }
+
+    void renewSlotCache() {
+        connectionHandler.renewSlotCache();
+        for (JedisPool pool : getClusterNodes().values()) {
+            try (Jedis jedis = pool.getResource()) {
+                slotNodes = readSlots(jedis.clusterSlots());
+                return;
+            } catch (Exception e) {
+                LOGGER.warn("read cluster slots failure, cause: {}", e.getMessage());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static String[] readSlots(List<Object> slots) {
+        String[] nodes = new String[SLOT_COUNT];
+        for (Object slot : slots) {
+            // start, end, master [host, port, id], replicas...
+            List<Object> info = (List<Object>) slot;
+            int start = ((Long) info.get(0)).intValue();
+            int end = ((Long) info.get(1)).intValue();
+            List<Object> master = (List<Object>) info.get(2);
+            HostAndPort hostAndPort = new HostAndPort(SafeEncoder.encode((byte[]) master.get(0)),
+                    ((Long) master.get(1)).intValue());
+            String node = JedisClusterInfoCache.getNodeKey(hostAndPort);
+            for (int i = start; i <= end; i++) {
+                nodes[i] = node;
+            }
+        }
+        return nodes;
+    }
+
+}
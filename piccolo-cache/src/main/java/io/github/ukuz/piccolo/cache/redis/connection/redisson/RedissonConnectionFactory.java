@@ -15,59 +15,173 @@
  */
 package io.github.ukuz.piccolo.cache.redis.connection.redisson;
 
+import io.github.ukuz.piccolo.cache.CacheException;
+import io.github.ukuz.piccolo.cache.redis.RedisMetrics;
+import io.github.ukuz.piccolo.cache.redis.RedisNode;
+import io.github.ukuz.piccolo.cache.redis.batch.BatchOperation;
 import io.github.ukuz.piccolo.cache.redis.connection.RedisConnectionFactory;
+import io.github.ukuz.piccolo.cache.redis.operator.AsyncOperator;
+import io.github.ukuz.piccolo.cache.redis.operator.BytesOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.HashOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.ListOperator;
+import io.github.ukuz.piccolo.cache.redis.operator.ScriptOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.ValueOperator;
 import io.github.ukuz.piccolo.cache.redis.operator.ZSetOperator;
+import io.github.ukuz.piccolo.cache.redis.operator.redisson.RedissonAsyncOperator;
 import io.github.ukuz.piccolo.cache.redis.properties.RedisProperties;
+import io.netty.util.internal.StringUtil;
 import org.redisson.Redisson;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.codec.CompositeCodec;
 import org.redisson.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author ukuz90
  */
 public class RedissonConnectionFactory implements RedisConnectionFactory {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedissonConnectionFactory.class);
+    private static final String REDIS_PROTOCOL = "redis://";
+    /**
+     * string fields, raw values, the same as the jedis pipeline reads them
+     */
+    private static final Codec BYTES_MAP_CODEC = new CompositeCodec(StringCodec.INSTANCE, ByteArrayCodec.INSTANCE);
+
     private RedissonClient redissonClient;
+    private AsyncOperator asyncOperator;
+
+    public RedissonConnectionFactory() {
+    }
+
+    RedissonConnectionFactory(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+        this.asyncOperator = new RedissonAsyncOperator(redissonClient);
+    }
 
     @Override
     public void init(RedisProperties redisProperties) {
         Config config = initConfig(redisProperties);
 
         redissonClient = Redisson.create(config);
+        asyncOperator = new RedissonAsyncOperator(redissonClient);
 
     }
 
     @Override
-    public ValueOperator getValueOperator(String key) {
+    public ValueOperator getValueOperator() {
         return null;
     }
 
     @Override
-    public HashOperator getHashOperator(String key) {
+    public HashOperator getHashOperator() {
         return null;
     }
 
     @Override
-    public ListOperator getListOperator(String key) {
+    public ListOperator getListOperator() {
         return null;
     }
 
     @Override
-    public ZSetOperator getZSetOperator(String key) {
+    public ZSetOperator getZSetOperator() {
         return null;
     }
 
-    private Config initConfig(RedisProperties redisProperties) {
-        Config config = new Config();
+    @Override
+    public ScriptOperator getScriptOperator() {
+        return null;
+    }
 
-        if (redisProperties.isStandalone()) {
+    @Override
+    public BytesOperator getBytesOperator() {
+        return null;
+    }
 
-            initStandaloneConfig(config, redisProperties);
+    @Override
+    public AsyncOperator getAsyncOperator() {
+        return asyncOperator;
+    }
 
-        } else if (redisProperties.isSentinel()) {
+    /**
+     * the operations are queued in one {@link RBatch}, redisson groups them by node and sends a pipeline to each.
+     * the replies are the same as the jedis pipeline ones: raw script replies, a long zcard and string fields
+     * with raw values for hgetall.
+     */
+    @Override
+    public void executeBatch(List<BatchOperation> operations) {
+        long start = System.nanoTime();
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        List<RFuture<?>> futures = new ArrayList<>(operations.size());
+        for (BatchOperation operation : operations) {
+            futures.add(queue(batch, operation));
+        }
+        try {
+            batch.execute();
+        } catch (Exception e) {
+            // the operations which got a reply are still completed with it
+            LOGGER.warn("redisson batch failure, size: {} cause: {}", operations.size(), e);
+        } finally {
+            RedisMetrics.timer("pipeline").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            RFuture<?> future = futures.get(i);
+            if (future.isSuccess()) {
+                operation.complete(toReply(operation, future.getNow()));
+            } else if (future.isDone()) {
+                operation.fail(future.cause());
+            } else {
+                operation.fail(new CacheException("redisson batch operation not executed, key: " + operation.getKey()));
+            }
+        }
+    }
+
+    private RFuture<?> queue(RBatch batch, BatchOperation operation) {
+        switch (operation.getType()) {
+            case SCRIPT:
+                RScript script = batch.getScript(ByteArrayCodec.INSTANCE);
+                return script.evalAsync(operation.getKey(), RScript.Mode.READ_WRITE, operation.getScript().getScript(),
+                        RScript.ReturnType.VALUE, Collections.singletonList(operation.getKey()), (Object[]) operation.getArgs());
+            case ZADD:
+                return batch.<String>getScoredSortedSet(operation.getKey(), StringCodec.INSTANCE)
+                        .addAsync(operation.getScore(), operation.getMember());
+            case ZREM:
+                return batch.<String>getScoredSortedSet(operation.getKey(), StringCodec.INSTANCE)
+                        .removeAsync(operation.getMember());
+            case ZCARD:
+                return batch.getScoredSortedSet(operation.getKey(), StringCodec.INSTANCE).sizeAsync();
+            case HGETALL:
+                return batch.getMap(operation.getKey(), BYTES_MAP_CODEC).readAllMapAsync();
+            default:
+                throw new IllegalArgumentException("unknown batch operation: " + operation.getType());
+        }
+    }
+
+    private Object toReply(BatchOperation operation, Object reply) {
+        if (operation.getType() == BatchOperation.Type.ZCARD && reply != null) {
+            return ((Integer) reply).longValue();
+        }
+        return reply;
+    }
+
+    private Config initConfig(RedisProperties redisProperties) {
+        Config config = new Config();
+
+        if (redisProperties.isSentinel()) {
 
             initSentinelConfig(config, redisProperties);
 
@@ -75,29 +189,57 @@ public class RedissonConnectionFactory implements RedisConnectionFactory {
 
             initClusterConfig(config, redisProperties);
 
+        } else {
+
+            initStandaloneConfig(config, redisProperties);
+
         }
 
         return config;
     }
 
     private void initStandaloneConfig(Config config, RedisProperties redisProperties) {
-        config.useSingleServer().setAddress(redisProperties.getHost());
-        config.useSingleServer().setPassword(redisProperties.getPassword());
+        config.useSingleServer()
+                .setAddress(getAddresses(redisProperties)[0])
+                .setPassword(getPassword(redisProperties))
+                .setDatabase(getDatabase(redisProperties));
     }
 
     private void initSentinelConfig(Config config, RedisProperties redisProperties) {
-        config.useSentinelServers().addSentinelAddress(redisProperties.getSentinelMaster());
-        config.useSentinelServers().setPassword(redisProperties.getPassword());
+        config.useSentinelServers()
+                .setMasterName(redisProperties.getSentinelMaster())
+                .addSentinelAddress(getAddresses(redisProperties))
+                .setPassword(getPassword(redisProperties))
+                .setDatabase(getDatabase(redisProperties));
     }
 
     private void initClusterConfig(Config config, RedisProperties redisProperties) {
-        config.useClusterServers().addNodeAddress(redisProperties.getHost());
-        config.useClusterServers().setPassword(redisProperties.getPassword());
+        config.useClusterServers()
+                .addNodeAddress(getAddresses(redisProperties))
+                .setPassword(getPassword(redisProperties));
+    }
+
+    private String[] getAddresses(RedisProperties redisProperties) {
+        return RedisNode.from(redisProperties.getHost())
+                .stream()
+                .map(node -> REDIS_PROTOCOL + node.getHostAndPort())
+                .toArray(String[]::new);
+    }
+
+    private String getPassword(RedisProperties redisProperties) {
+        return StringUtil.isNullOrEmpty(redisProperties.getPassword()) ? null : redisProperties.getPassword();
+    }
+
+    private int getDatabase(RedisProperties redisProperties) {
+        return redisProperties.getDatabase() == null ? 0 : redisProperties.getDatabase();
     }
 
     @Override
     public void destroy() {
-
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+            redissonClient = null;
+        }
     }
 
 }
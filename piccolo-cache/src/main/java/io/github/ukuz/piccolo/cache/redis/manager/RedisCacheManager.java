@@ -18,14 +18,23 @@ package io.github.ukuz.piccolo.cache.redis.manager;
 import io.github.ukuz.piccolo.api.PiccoloContext;
 import io.github.ukuz.piccolo.api.cache.CacheManager;
 import io.github.ukuz.piccolo.api.spi.SpiLoader;
+import io.github.ukuz.piccolo.cache.CacheException;
+import io.github.ukuz.piccolo.cache.redis.batch.BatchOperation;
+import io.github.ukuz.piccolo.cache.redis.batch.RedisBatchWriter;
 import io.github.ukuz.piccolo.cache.redis.connection.RedisConnectionFactory;
 import io.github.ukuz.piccolo.cache.redis.properties.RedisProperties;
+import io.github.ukuz.piccolo.cache.redis.script.KeyScripts;
+import io.github.ukuz.piccolo.cache.redis.script.RouterScripts;
 import io.github.ukuz.piccolo.common.json.Jsons;
 import io.github.ukuz.piccolo.common.properties.CoreProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
@@ -36,77 +45,234 @@ public class RedisCacheManager implements CacheManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RedisCacheManager.class);
     private RedisConnectionFactory factory;
+    private RedisConnectionFactory asyncFactory;
+    private RedisBatchWriter batchWriter;
+    private int pipelineSize;
 
     @Override
     public void init(PiccoloContext piccoloContext) {
         CoreProperties properties = piccoloContext.getProperties(CoreProperties.class);
         factory = SpiLoader.getLoader(RedisConnectionFactory.class).getExtension(properties.getCache());
-        factory.init(piccoloContext.getProperties(RedisProperties.class));
+        RedisProperties redisProperties = piccoloContext.getProperties(RedisProperties.class);
+        factory.init(redisProperties);
+        if (factory.getValueOperator() == null) {
+            throw new CacheException("redis client has no blocking api, cache: " + properties.getCache());
+        }
+        asyncFactory = SpiLoader.getLoader(RedisConnectionFactory.class).getExtension(redisProperties.getAsyncCli());
+        if (asyncFactory != factory) {
+            asyncFactory.init(redisProperties);
+        }
+        if (asyncFactory.getAsyncOperator() == null) {
+            throw new CacheException("redis client has no async api, asyncCli: " + redisProperties.getAsyncCli());
+        }
+        batchWriter = new RedisBatchWriter(factory, redisProperties.getBatchSize(), redisProperties.getBatchLingerMs());
+        pipelineSize = Math.max(1, redisProperties.getPipelineSize());
     }
 
     @Override
     public void destroy() {
+        if (batchWriter != null) {
+            batchWriter.close();
+        }
+        if (asyncFactory != factory) {
+            asyncFactory.destroy();
+        }
         factory.destroy();
     }
 
     @Override
     public void del(String key) {
-        factory.getValueOperator(key).del();
+        factory.getValueOperator().del(key);
+    }
+
+    @Override
+    public void unlink(Collection<String> keys) {
+        List<BatchOperation> operations = keys.stream()
+                .map(key -> BatchOperation.script(key, KeyScripts.UNLINK))
+                .collect(Collectors.toList());
+        executeBatch(operations);
+    }
+
+    @Override
+    public CompletableFuture<Void> delAsync(String key) {
+        return asyncFactory.getAsyncOperator().del(key);
     }
 
     @Override
     public long hincrBy(String key, String field, long value) {
-        return factory.getHashOperator(key).incr(field, value);
+        return factory.getHashOperator().incr(key, field, value);
     }
 
     @Override
     public void set(String key, String value) {
-        factory.getValueOperator(key).set(value);
+        factory.getValueOperator().set(key, value);
     }
 
     @Override
     public void set(String key, String value, int expireTime) {
-        factory.getValueOperator(key).setEx(value, expireTime);
+        factory.getValueOperator().setEx(key, value, expireTime);
     }
 
     @Override
     public void set(String key, Object value, int expireTime) {
-        factory.getValueOperator(key).setEx(Jsons.toJson(value), expireTime);
+        factory.getValueOperator().setEx(key, Jsons.toJson(value), expireTime);
     }
 
     @Override
     public String get(String key) {
-        return (String) factory.getValueOperator(key).get();
+        return (String) factory.getValueOperator().get(key);
     }
 
     @Override
     public <T> T get(String key, Class<T> tClass) {
-        return Jsons.fromJson((String) factory.getValueOperator(key).get(), tClass);
+        return Jsons.fromJson((String) factory.getValueOperator().get(key), tClass);
+    }
+
+    @Override
+    public CompletableFuture<Void> setAsync(String key, String value, int expireTime) {
+        return asyncFactory.getAsyncOperator().setEx(key, value, expireTime);
+    }
+
+    @Override
+    public CompletableFuture<Void> setAsync(String key, Object value, int expireTime) {
+        return setAsync(key, Jsons.toJson(value), expireTime);
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync(String key) {
+        return asyncFactory.getAsyncOperator().get(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(String key, Class<T> tClass) {
+        return getAsync(key).thenApply(value -> Jsons.fromJson(value, tClass));
+    }
+
+    @Override
+    public void setBytes(String key, byte[] value, int expireTime) {
+        factory.getBytesOperator().setEx(key, value, expireTime);
+    }
+
+    @Override
+    public byte[] getBytes(String key) {
+        return factory.getBytesOperator().get(key);
+    }
+
+    @Override
+    public CompletableFuture<Void> setBytesAsync(String key, byte[] value, int expireTime) {
+        return asyncFactory.getAsyncOperator().setExBytes(key, value, expireTime);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> getBytesAsync(String key) {
+        return asyncFactory.getAsyncOperator().getBytes(key);
     }
 
     @Override
     public void hset(String key, String field, String value) {
-        factory.getHashOperator(key).set(field, value);
+        factory.getHashOperator().set(key, field, value);
     }
 
     @Override
     public void hset(String key, String field, Object value) {
-        factory.getHashOperator(key).set(field, Jsons.toJson(value));
+        factory.getHashOperator().set(key, field, Jsons.toJson(value));
     }
 
     @Override
     public <T> T hget(String key, String field, Class<T> tClass) {
-        return Jsons.fromJson((String) factory.getHashOperator(key).get(field), tClass);
+        return Jsons.fromJson((String) factory.getHashOperator().get(key, field), tClass);
+    }
+
+    @Override
+    public CompletableFuture<Void> hsetAsync(String key, String field, String value) {
+        return asyncFactory.getAsyncOperator().hset(key, field, value);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> hgetAsync(String key, String field, Class<T> tClass) {
+        return asyncFactory.getAsyncOperator().hget(key, field).thenApply(value -> Jsons.fromJson(value, tClass));
+    }
+
+    @Override
+    public byte[] hgetBytes(String key, String field) {
+        return factory.getBytesOperator().hget(key, field);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> hgetBytesAsync(String key, String field) {
+        return asyncFactory.getAsyncOperator().hgetBytes(key, field);
+    }
+
+    @Override
+    public byte[] hgetAndSet(String key, String field, byte[] value) {
+        return (byte[]) factory.getScriptOperator().eval(key, RouterScripts.GET_AND_SET, raw(field), value);
+    }
+
+    @Override
+    public byte[] hofflineLocator(String key, String field, String connId) {
+        return (byte[]) factory.getScriptOperator().eval(key, RouterScripts.OFFLINE, raw(field), raw(connId));
+    }
+
+    @Override
+    public CompletableFuture<byte[]> hgetAndSetAsync(String key, String field, byte[] value) {
+        return batchWriter.submit(BatchOperation.script(key, RouterScripts.GET_AND_SET, raw(field), value))
+                .thenApply(reply -> (byte[]) reply);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> hofflineLocatorAsync(String key, String field, String connId) {
+        return batchWriter.submit(BatchOperation.script(key, RouterScripts.OFFLINE, raw(field), raw(connId)))
+                .thenApply(reply -> (byte[]) reply);
+    }
+
+    /**
+     * execute the operations with one pipeline per node on the calling thread
+     *
+     * @param operations
+     * @return the replies in order
+     */
+    private List<Object> executeBatch(List<BatchOperation> operations) {
+        if (operations.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            factory.executeBatch(operations);
+        } catch (CacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CacheException("redis batch failure, size: " + operations.size(), e);
+        }
+        List<Object> replies = new ArrayList<>(operations.size());
+        for (BatchOperation operation : operations) {
+            if (!operation.isDone()) {
+                throw new CacheException("redis batch operation not executed, key: " + operation.getKey());
+            }
+            try {
+                replies.add(operation.future().join());
+            } catch (CompletionException e) {
+                throw new CacheException("redis batch operation failure, key: " + operation.getKey(), e.getCause());
+            }
+        }
+        return replies;
+    }
+
+    private static byte[] raw(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
     }
 
     @Override
     public void hdel(String key, String field) {
-        factory.getHashOperator(key).del(field);
+        factory.getHashOperator().del(key, field);
+    }
+
+    @Override
+    public CompletableFuture<Void> hdelAsync(String key, String field) {
+        return asyncFactory.getAsyncOperator().hdel(key, field);
     }
 
     @Override
     public Map<String, String> hgetAll(String key) {
-        return factory.getHashOperator(key).getAll();
+        return factory.getHashOperator().getAll(key);
     }
 
     @Override
@@ -120,24 +286,105 @@ public class RedisCacheManager implements CacheManager {
         return result;
     }
 
+    @Override
+    public Map<String, byte[]> hgetAllBytes(String key) {
+        return factory.getBytesOperator().hgetAll(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, byte[]>> hgetAllBytes(Collection<String> keys) {
+        List<String> keyList = new ArrayList<>(keys);
+        Map<String, Map<String, byte[]>> result = new HashMap<>(keyList.size());
+        for (int from = 0; from < keyList.size(); from += pipelineSize) {
+            List<BatchOperation> operations = keyList.subList(from, Math.min(from + pipelineSize, keyList.size()))
+                    .stream()
+                    .map(BatchOperation::hgetAll)
+                    .collect(Collectors.toList());
+            List<Object> replies = executeBatch(operations);
+            for (int i = 0; i < operations.size(); i++) {
+                Map<String, byte[]> fields = (Map<String, byte[]>) replies.get(i);
+                result.put(operations.get(i).getKey(), fields == null ? Collections.emptyMap() : fields);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> hgetAllAsync(String key) {
+        return asyncFactory.getAsyncOperator().hgetAll(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<Map<String, T>> hgetAllAsync(String key, Class<T> clazz) {
+        return hgetAllAsync(key).thenApply(map -> {
+            if (map == null || map.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            Map<String, T> result = new HashMap<>(map.size());
+            map.forEach((k, v) -> result.put(k, Jsons.fromJson(v, clazz)));
+            return result;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, byte[]>> hgetAllBytesAsync(String key) {
+        return asyncFactory.getAsyncOperator().hgetAllBytes(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> publishAsync(String channel, String message) {
+        return asyncFactory.getAsyncOperator().publish(channel, message);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> onMessage, Runnable onSubscribe) {
+        asyncFactory.getAsyncOperator().subscribe(channel, onMessage, onSubscribe);
+    }
+
+    @Override
+    public void unsubscribe(String channel) {
+        asyncFactory.getAsyncOperator().unsubscribe(channel);
+    }
+
     @Override
     public void zAdd(String key, String field, double score) {
-        factory.getZSetOperator(key).zAdd(field, score);
+        factory.getZSetOperator().zAdd(key, field, score);
+    }
+
+    @Override
+    public CompletableFuture<Void> zAddAsync(String key, String field, double score) {
+        return batchWriter.submit(BatchOperation.zAdd(key, field, score)).thenApply(reply -> null);
     }
 
     @Override
     public Long zCard(String key) {
-        return factory.getZSetOperator(key).zCard();
+        return factory.getZSetOperator().zCard(key);
+    }
+
+    @Override
+    public List<Long> zCard(List<String> keys) {
+        List<BatchOperation> operations = keys.stream()
+                .map(BatchOperation::zCard)
+                .collect(Collectors.toList());
+        return executeBatch(operations).stream()
+                .map(reply -> reply == null ? 0L : (Long) reply)
+                .collect(Collectors.toList());
     }
 
     @Override
     public void zRem(String key, String field) {
-        factory.getZSetOperator(key).zRem(field);
+        factory.getZSetOperator().zRem(key, field);
+    }
+
+    @Override
+    public CompletableFuture<Void> zRemAsync(String key, String field) {
+        return batchWriter.submit(BatchOperation.zRem(key, field)).thenApply(reply -> null);
     }
 
     @Override
     public <T> List<T> zrange(String key, int start, int end, Class<T> clazz) {
-        Set<String> tmpResult = factory.getZSetOperator(key).zRange(start, end);
+        Set<String> tmpResult = factory.getZSetOperator().zRange(key, start, end);
         return tmpResult.stream()
                 .map(v -> Jsons.fromJson(v, clazz))
                 .collect(Collectors.toList());
@@ -145,12 +392,12 @@ public class RedisCacheManager implements CacheManager {
 
     @Override
     public void lpush(String key, String... value) {
-        factory.getListOperator(key).lPush(value);
+        factory.getListOperator().lPush(key, value);
     }
 
     @Override
     public <T> List<T> lrange(String key, int start, int end, Class<T> clazz) {
-        List<String> tmpResult = factory.getListOperator(key).lRange(start, end);
+        List<String> tmpResult = factory.getListOperator().lRange(key, start, end);
         return tmpResult.stream()
                 .map(v -> Jsons.fromJson(v, clazz))
                 .collect(Collectors.toList());
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.operator;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * non-blocking operations, the futures complete on the threads of the redis client
+ *
+ * @author ukuz90
+ */
+public interface AsyncOperator {
+
+    CompletableFuture<String> get(String key);
+
+    CompletableFuture<Void> setEx(String key, String value, int expireTime);
+
+    CompletableFuture<Void> del(String key);
+
+    CompletableFuture<String> hget(String key, String field);
+
+    CompletableFuture<Void> hset(String key, String field, String value);
+
+    CompletableFuture<Void> hdel(String key, String field);
+
+    CompletableFuture<Map<String, String>> hgetAll(String key);
+
+    CompletableFuture<byte[]> getBytes(String key);
+
+    CompletableFuture<Void> setExBytes(String key, byte[] value, int expireTime);
+
+    CompletableFuture<byte[]> hgetBytes(String key, String field);
+
+    CompletableFuture<Map<String, byte[]>> hgetAllBytes(String key);
+
+    CompletableFuture<Long> publish(String channel, String message);
+
+    void subscribe(String channel, Consumer<String> onMessage, Runnable onSubscribe);
+
+    void unsubscribe(String channel);
+
+}
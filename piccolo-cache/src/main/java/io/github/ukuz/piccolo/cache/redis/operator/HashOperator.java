@@ -22,14 +22,14 @@ import java.util.Map;
  */
 public interface HashOperator<V> {
 
-    long incr(String field, long incr);
+    long incr(String key, String field, long incr);
 
-    void set(String field, V value);
+    void set(String key, String field, V value);
 
-    V get(String field);
+    V get(String key, String field);
 
-    void del(String field);
+    void del(String key, String field);
 
-    Map<String, V> getAll();
+    Map<String, V> getAll(String key);
 
 }
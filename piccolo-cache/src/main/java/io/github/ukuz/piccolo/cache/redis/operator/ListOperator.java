@@ -22,8 +22,8 @@ import java.util.List;
  */
 public interface ListOperator<T> {
 
-    void lPush(T...value);
+    void lPush(String key, T...value);
 
-    List<T> lRange(long start, long end);
+    List<T> lRange(String key, long start, long end);
 
 }
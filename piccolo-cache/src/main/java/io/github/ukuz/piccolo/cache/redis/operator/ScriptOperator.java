@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.operator;
+
+import io.github.ukuz.piccolo.cache.redis.script.RedisScript;
+
+/**
+ * @author ukuz90
+ */
+public interface ScriptOperator {
+
+    /**
+     * evaluate the script by its SHA1, load it if the server does not know it
+     *
+     * @param key
+     * @param script
+     * @param args
+     * @return the raw reply, a bulk reply is returned as bytes
+     */
+    Object eval(String key, RedisScript script, byte[]... args);
+
+}
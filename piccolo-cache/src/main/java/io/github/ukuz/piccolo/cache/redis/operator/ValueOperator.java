@@ -22,31 +22,31 @@ import java.util.concurrent.TimeUnit;
  */
 public interface ValueOperator<V> {
 
-    String set(V val);
+    String set(String key, V val);
 
-    long setNx(V val);
+    long setNx(String key, V val);
 
-    String setEx(V val, int seconds);
+    String setEx(String key, V val, int seconds);
 
-    String psetEx(V val, long millis);
+    String psetEx(String key, V val, long millis);
 
-    V get();
+    V get(String key);
 
-    long incr();
+    long incr(String key);
 
-    long incrBy(long increment);
+    long incrBy(String key, long increment);
 
-    long decr();
+    long decr(String key);
 
-    long decrBy(long decrement);
+    long decrBy(String key, long decrement);
 
-    long del();
+    long del(String key);
 
-    default String ttl(V val, long time, TimeUnit unit) {
+    default String ttl(String key, V val, long time, TimeUnit unit) {
         if (unit == TimeUnit.MILLISECONDS) {
-            return psetEx(val, unit.toMillis(time));
+            return psetEx(key, val, unit.toMillis(time));
         } else {
-            return setEx(val, (int) unit.toSeconds(time));
+            return setEx(key, val, (int) unit.toSeconds(time));
         }
     }
 
@@ -22,11 +22,11 @@ import java.util.Set;
  */
 public interface ZSetOperator {
 
-    void zAdd(String field, double score);
+    void zAdd(String key, String field, double score);
 
-    long zCard();
+    long zCard(String key);
 
-    void zRem(String field);
+    void zRem(String key, String field);
 
-    Set<String> zRange(long start, long end);
+    Set<String> zRange(String key, long start, long end);
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.operator.jedis;
+
+import io.github.ukuz.piccolo.cache.redis.operator.BytesOperator;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisCommands;
+import redis.clients.util.SafeEncoder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * the binary commands are not part of {@link JedisCommands}, they are called on the {@link Jedis} or
+ * {@link JedisCluster} behind it
+ *
+ * @author ukuz90
+ */
+public class JedisBytesOperator extends JedisOperator implements BytesOperator {
+
+    public JedisBytesOperator(Supplier<JedisCommands> connections) {
+        super(connections);
+    }
+
+    @Override
+    public void setEx(String key, byte[] value, int seconds) {
+        byte[] rawKey = SafeEncoder.encode(key);
+        run("setex", commands -> {
+            if (commands instanceof JedisCluster) {
+                ((JedisCluster) commands).setex(rawKey, seconds, value);
+            } else {
+                ((Jedis) commands).setex(rawKey, seconds, value);
+            }
+        });
+    }
+
+    @Override
+    public byte[] get(String key) {
+        byte[] rawKey = SafeEncoder.encode(key);
+        return call("get", commands -> commands instanceof JedisCluster
+                ? ((JedisCluster) commands).get(rawKey)
+                : ((Jedis) commands).get(rawKey));
+    }
+
+    @Override
+    public byte[] hget(String key, String field) {
+        byte[] rawKey = SafeEncoder.encode(key);
+        byte[] rawField = SafeEncoder.encode(field);
+        return call("hget", commands -> commands instanceof JedisCluster
+                ? ((JedisCluster) commands).hget(rawKey, rawField)
+                : ((Jedis) commands).hget(rawKey, rawField));
+    }
+
+    @Override
+    public Map<String, byte[]> hgetAll(String key) {
+        byte[] rawKey = SafeEncoder.encode(key);
+        Map<byte[], byte[]> raw = call("hgetall", commands -> commands instanceof JedisCluster
+                ? ((JedisCluster) commands).hgetAll(rawKey)
+                : ((Jedis) commands).hgetAll(rawKey));
+        if (raw == null || raw.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, byte[]> result = new HashMap<>(raw.size());
+        raw.forEach((field, value) -> result.put(SafeEncoder.encode(field), value));
+        return result;
+    }
+}
@@ -19,41 +19,39 @@ import io.github.ukuz.piccolo.cache.redis.operator.HashOperator;
 import redis.clients.jedis.JedisCommands;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * @author ukuz90
  */
 public class JedisHashOperator<T> extends JedisOperator implements HashOperator<T> {
 
-    private final String key;
-
-    public JedisHashOperator(String key, JedisCommands jedisCommands) {
-        super(jedisCommands);
-        this.key = key;
+    public JedisHashOperator(Supplier<JedisCommands> connections) {
+        super(connections);
     }
 
     @Override
-    public long incr(String field, long value) {
-        return call(commands -> commands.hincrBy(key, field, value));
+    public long incr(String key, String field, long value) {
+        return call("hincrby", commands -> commands.hincrBy(key, field, value));
     }
 
     @Override
-    public void set(String field, T value) {
-        run(commands -> commands.hset(key, field, value.toString()));
+    public void set(String key, String field, T value) {
+        run("hset", commands -> commands.hset(key, field, value.toString()));
     }
 
     @Override
-    public T get(String field) {
-        return (T) call(commands -> commands.hget(key, field));
+    public T get(String key, String field) {
+        return (T) call("hget", commands -> commands.hget(key, field));
     }
 
     @Override
-    public void del(String field) {
-        run(commands -> commands.hdel(key, field));
+    public void del(String key, String field) {
+        run("hdel", commands -> commands.hdel(key, field));
     }
 
     @Override
-    public Map getAll() {
-        return call(commands -> commands.hgetAll(key));
+    public Map getAll(String key) {
+        return call("hgetall", commands -> commands.hgetAll(key));
     }
 }
@@ -19,26 +19,24 @@ import io.github.ukuz.piccolo.cache.redis.operator.ListOperator;
 import redis.clients.jedis.JedisCommands;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * @author ukuz90
  */
 public class JedisListOperator extends JedisOperator implements ListOperator<String> {
 
-    private final String key;
-
-    public JedisListOperator(String key, JedisCommands jedisCommands) {
-        super(jedisCommands);
-        this.key = key;
+    public JedisListOperator(Supplier<JedisCommands> connections) {
+        super(connections);
     }
 
     @Override
-    public void lPush(String... value) {
-        run(commands -> commands.lpush(key, value));
+    public void lPush(String key, String... value) {
+        run("lpush", commands -> commands.lpush(key, value));
     }
 
     @Override
-    public List<String> lRange(long start, long end) {
-        return call(commands -> commands.lrange(key, start, end));
+    public List<String> lRange(String key, long start, long end) {
+        return call("lrange", commands -> commands.lrange(key, start, end));
     }
 }
@@ -16,51 +16,53 @@
 package io.github.ukuz.piccolo.cache.redis.operator.jedis;
 
 import io.github.ukuz.piccolo.cache.CacheException;
+import io.github.ukuz.piccolo.cache.redis.RedisMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCommands;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
+ * Stateless, shared by all the calls. Each call borrows a connection which is already on the configured
+ * database and gives it back afterwards.
+ *
  * @author ukuz90
  */
 public abstract class JedisOperator {
 
-    private final JedisCommands commands;
+    private final Supplier<JedisCommands> connections;
     private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
 
-    public JedisOperator(JedisCommands commands) {
-        this.commands = commands;
+    public JedisOperator(Supplier<JedisCommands> connections) {
+        this.connections = connections;
     }
 
-    public void run(Consumer<JedisCommands> consumer) {
-        LOGGER.info("redis run");
-        try {
+    public void run(String command, Consumer<JedisCommands> consumer) {
+        call(command, commands -> {
             consumer.accept(commands);
-        } catch (Exception e) {
-            LOGGER.warn("call failure, cause: {}", e);
-            throw new CacheException("redis call failure", e);
-        } finally {
-            if (commands instanceof Jedis) {
-                ((Jedis) commands).close();
-            }
-        }
+            return null;
+        });
     }
 
-    public <T> T call(Function<JedisCommands, T> function) {
-        LOGGER.info("redis call");
+    public <T> T call(String command, Function<JedisCommands, T> function) {
+        long start = System.nanoTime();
+        JedisCommands commands = null;
         try {
+            commands = connections.get();
             return function.apply(commands);
         } catch (Exception e) {
-            LOGGER.warn("call failure, cause: {}", e);
+            LOGGER.warn("call failure, command: {} cause: {}", command, e);
             throw new CacheException("redis call failure", e);
         } finally {
             if (commands instanceof Jedis) {
                 ((Jedis) commands).close();
             }
+            RedisMetrics.timer(command).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.operator.jedis;
+
+import io.github.ukuz.piccolo.cache.redis.operator.ScriptOperator;
+import io.github.ukuz.piccolo.cache.redis.script.RedisScript;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisCommands;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.function.Supplier;
+
+/**
+ * @author ukuz90
+ */
+public class JedisScriptOperator extends JedisOperator implements ScriptOperator {
+
+    public JedisScriptOperator(Supplier<JedisCommands> connections) {
+        super(connections);
+    }
+
+    @Override
+    public Object eval(String key, RedisScript script, byte[]... args) {
+        byte[][] params = new byte[args.length + 1][];
+        params[0] = SafeEncoder.encode(key);
+        System.arraycopy(args, 0, params, 1, args.length);
+        return call("evalsha", commands -> {
+            try {
+                return evalSha(commands, script, params);
+            } catch (JedisDataException e) {
+                if (e.getMessage() == null || !e.getMessage().startsWith("NOSCRIPT")) {
+                    throw e;
+                }
+                // EVAL caches the script on the server, the next EVALSHA hits
+                return evalScript(commands, script, params);
+            }
+        });
+    }
+
+    private Object evalSha(JedisCommands commands, RedisScript script, byte[][] params) {
+        if (commands instanceof JedisCluster) {
+            return ((JedisCluster) commands).evalsha(script.getRawSha1(), script.getKeyCount(), params);
+        }
+        return ((Jedis) commands).evalsha(script.getRawSha1(), script.getKeyCount(), params);
+    }
+
+    private Object evalScript(JedisCommands commands, RedisScript script, byte[][] params) {
+        if (commands instanceof JedisCluster) {
+            return ((JedisCluster) commands).eval(script.getRawScript(), script.getKeyCount(), params);
+        }
+        return ((Jedis) commands).eval(script.getRawScript(), script.getKeyCount(), params);
+    }
+}
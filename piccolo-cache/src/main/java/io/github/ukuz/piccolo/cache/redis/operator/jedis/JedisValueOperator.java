@@ -18,67 +18,64 @@ package io.github.ukuz.piccolo.cache.redis.operator.jedis;
 import io.github.ukuz.piccolo.cache.redis.operator.ValueOperator;
 import redis.clients.jedis.JedisCommands;
 
-import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * @author ukuz90
  */
 public class JedisValueOperator extends JedisOperator implements ValueOperator<String> {
 
-    private final String key;
-
-    public JedisValueOperator(String key, JedisCommands jedisCommands) {
-        super(jedisCommands);
-        this.key = key;
+    public JedisValueOperator(Supplier<JedisCommands> connections) {
+        super(connections);
     }
 
     @Override
-    public String set(String val) {
-        return call(commands -> commands.set(key, val));
+    public String set(String key, String val) {
+        return call("set", commands -> commands.set(key, val));
     }
 
     @Override
-    public long setNx(String val) {
-        return call(commands -> commands.setnx(key, val));
+    public long setNx(String key, String val) {
+        return call("setnx", commands -> commands.setnx(key, val));
     }
 
     @Override
-    public String setEx(String val, int seconds) {
-        return call(commands -> commands.setex(key, seconds, val));
+    public String setEx(String key, String val, int seconds) {
+        return call("setex", commands -> commands.setex(key, seconds, val));
     }
 
     @Override
-    public String psetEx(String val, long millis) {
-        return call(commands -> commands.psetex(key, millis, val));
+    public String psetEx(String key, String val, long millis) {
+        return call("psetex", commands -> commands.psetex(key, millis, val));
     }
 
     @Override
-    public String get() {
-        return call(commands -> commands.get(key));
+    public String get(String key) {
+        return call("get", commands -> commands.get(key));
     }
 
     @Override
-    public long incr() {
-        return call(commands -> commands.incr(key));
+    public long incr(String key) {
+        return call("incr", commands -> commands.incr(key));
     }
 
     @Override
-    public long incrBy(long increment) {
-        return call(commands -> commands.incrBy(key, increment));
+    public long incrBy(String key, long increment) {
+        return call("incrby", commands -> commands.incrBy(key, increment));
     }
 
     @Override
-    public long decr() {
-        return call(commands -> commands.decr(key));
+    public long decr(String key) {
+        return call("decr", commands -> commands.decr(key));
     }
 
     @Override
-    public long decrBy(long decrement) {
-        return call(commands -> commands.decrBy(key, decrement));
+    public long decrBy(String key, long decrement) {
+        return call("decrby", commands -> commands.decrBy(key, decrement));
     }
 
     @Override
-    public long del() {
-        return call(commands -> commands.del(key));
+    public long del(String key) {
+        return call("del", commands -> commands.del(key));
     }
 }
@@ -19,36 +19,34 @@ import io.github.ukuz.piccolo.cache.redis.operator.ZSetOperator;
 import redis.clients.jedis.JedisCommands;
 
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * @author ukuz90
  */
 public class JedisZSetOperator extends JedisOperator implements ZSetOperator {
 
-    private final String key;
-
-    public JedisZSetOperator(String key, JedisCommands jedisCommands) {
-        super(jedisCommands);
-        this.key = key;
+    public JedisZSetOperator(Supplier<JedisCommands> connections) {
+        super(connections);
     }
 
     @Override
-    public void zAdd(String field, double score) {
-        run(commands -> commands.zadd(key, score, field));
+    public void zAdd(String key, String field, double score) {
+        run("zadd", commands -> commands.zadd(key, score, field));
     }
 
     @Override
-    public long zCard() {
-        return call(commands -> commands.zcard(key));
+    public long zCard(String key) {
+        return call("zcard", commands -> commands.zcard(key));
     }
 
     @Override
-    public void zRem(String field) {
-        run(commands -> commands.zrem(key, field));
+    public void zRem(String key, String field) {
+        run("zrem", commands -> commands.zrem(key, field));
     }
 
     @Override
-    public Set<String> zRange(long start, long end) {
-        return call(commands -> commands.zrange(key, start, end));
+    public Set<String> zRange(String key, long start, long end) {
+        return call("zrange", commands -> commands.zrange(key, start, end));
     }
 }
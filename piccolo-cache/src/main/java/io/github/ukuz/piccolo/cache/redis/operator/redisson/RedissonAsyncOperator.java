@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.operator.redisson;
+
+import io.github.ukuz.piccolo.cache.redis.operator.AsyncOperator;
+import org.redisson.api.RMap;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.BaseStatusListener;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.codec.CompositeCodec;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * values are read and written as plain strings or raw bytes, the same as the jedis operators do
+ *
+ * @author ukuz90
+ */
+public class RedissonAsyncOperator implements AsyncOperator {
+
+    /**
+     * string fields, raw values
+     */
+    private static final Codec BYTES_MAP_CODEC = new CompositeCodec(StringCodec.INSTANCE, ByteArrayCodec.INSTANCE);
+
+    private final RedissonClient redissonClient;
+
+    public RedissonAsyncOperator(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    @Override
+    public CompletableFuture<String> get(String key) {
+        return redissonClient.<String>getBucket(key, StringCodec.INSTANCE).getAsync().toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> setEx(String key, String value, int expireTime) {
+        return redissonClient.<String>getBucket(key, StringCodec.INSTANCE)
+                .setAsync(value, expireTime, TimeUnit.SECONDS)
+                .toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> del(String key) {
+        return redissonClient.getKeys().deleteAsync(key).toCompletableFuture().thenApply(count -> null);
+    }
+
+    @Override
+    public CompletableFuture<String> hget(String key, String field) {
+        return getMap(key).getAsync(field).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> hset(String key, String field, String value) {
+        return getMap(key).fastPutAsync(field, value).toCompletableFuture().thenApply(created -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> hdel(String key, String field) {
+        return getMap(key).fastRemoveAsync(field).toCompletableFuture().thenApply(count -> null);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> hgetAll(String key) {
+        return getMap(key).readAllMapAsync().toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> getBytes(String key) {
+        return redissonClient.<byte[]>getBucket(key, ByteArrayCodec.INSTANCE).getAsync().toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> setExBytes(String key, byte[] value, int expireTime) {
+        return redissonClient.<byte[]>getBucket(key, ByteArrayCodec.INSTANCE)
+                .setAsync(value, expireTime, TimeUnit.SECONDS)
+                .toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> hgetBytes(String key, String field) {
+        return getBytesMap(key).getAsync(field).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Map<String, byte[]>> hgetAllBytes(String key) {
+        return getBytesMap(key).readAllMapAsync().toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> publish(String channel, String message) {
+        return getTopic(channel).publishAsync(message).toCompletableFuture();
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> onMessage, Runnable onSubscribe) {
+        RTopic topic = getTopic(channel);
+        topic.addListener(new BaseStatusListener() {
+            @Override
+            public void onSubscribe(String ch) {
+                onSubscribe.run();
+            }
+        });
+        topic.addListener(String.class, (ch, message) -> onMessage.accept(message));
+    }
+
+    @Override
+    public void unsubscribe(String channel) {
+        getTopic(channel).removeAllListeners();
+    }
+
+    private RTopic getTopic(String channel) {
+        return redissonClient.getTopic(channel, StringCodec.INSTANCE);
+    }
+
+    private RMap<String, String> getMap(String key) {
+        return redissonClient.getMap(key, StringCodec.INSTANCE);
+    }
+
+    private RMap<String, byte[]> getBytesMap(String key) {
+        return redissonClient.getMap(key, BYTES_MAP_CODEC);
+    }
+}
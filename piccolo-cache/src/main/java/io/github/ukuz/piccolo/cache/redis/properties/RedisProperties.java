@@ -41,6 +41,10 @@ public class RedisProperties implements Properties {
      * client (eg: jedis / redisson)
      */
     private String cli = CLI_JEDIS;
+    /**
+     * client of the async api, must have a non-blocking api (eg: redisson)
+     */
+    private String asyncCli = CLI_REDISSON;
     /**
      * host (eg: ip1:port1,ip2:port2,...)
      */
@@ -56,6 +60,19 @@ public class RedisProperties implements Properties {
     private String sentinelMaster;
     private String password;
 
+    /**
+     * max operations flushed with one pipeline by the batch writer
+     */
+    private int batchSize = 256;
+    /**
+     * max time in ms an operation waits in the batch writer for others to share its pipeline
+     */
+    private long batchLingerMs = 2;
+    /**
+     * max commands sent with one pipeline by a bulk read
+     */
+    private int pipelineSize = 1000;
+
     private RedisPoolNestedConfig poolConfig;
 
     public boolean isSentinel() {
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.script;
+
+/**
+ * the scripts which work on whole keys
+ *
+ * @author ukuz90
+ */
+public final class KeyScripts {
+
+    private KeyScripts() {
+    }
+
+    /**
+     * KEYS[1] key, reclaims the memory of a large key in the background instead of blocking the server,
+     * falls back to DEL on the servers before 4.0
+     */
+    public static final RedisScript UNLINK = new RedisScript(
+            "local n = redis.pcall('UNLINK', KEYS[1])\n"
+            + "if type(n) == 'table' and n.err then return redis.call('DEL', KEYS[1]) end\n"
+            + "return n", 1);
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.script;
+
+import io.github.ukuz.piccolo.cache.CacheException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A lua script and its SHA1 digest, the digest is computed once so the script is invoked with EVALSHA
+ * and only sent in full when the server does not know it yet.
+ *
+ * @author ukuz90
+ */
+public final class RedisScript {
+
+    private final String script;
+    private final String sha1;
+    private final int keyCount;
+    private final byte[] rawScript;
+    private final byte[] rawSha1;
+
+    public RedisScript(String script, int keyCount) {
+        this.script = script;
+        this.sha1 = sha1(script);
+        this.keyCount = keyCount;
+        this.rawScript = script.getBytes(StandardCharsets.UTF_8);
+        this.rawSha1 = sha1.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * the script encoded once for the binary EVAL, must not be modified
+     *
+     * @return
+     */
+    public byte[] getRawScript() {
+        return rawScript;
+    }
+
+    public byte[] getRawSha1() {
+        return rawSha1;
+    }
+
+    private static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new CacheException("sha1 not supported", e);
+        }
+    }
+}
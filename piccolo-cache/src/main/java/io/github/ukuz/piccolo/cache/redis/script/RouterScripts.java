@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.script;
+
+/**
+ * the scripts which read and write a router hash field in one round trip
+ *
+ * @author ukuz90
+ */
+public final class RouterScripts {
+
+    private RouterScripts() {
+    }
+
+    /**
+     * KEYS[1] hash, ARGV[1] field, ARGV[2] value, returns the previous value
+     */
+    public static final RedisScript GET_AND_SET = new RedisScript(
+            "local old = redis.call('HGET', KEYS[1], ARGV[1])\n"
+            + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])\n"
+            + "return old", 1);
+
+    /**
+     * KEYS[1] hash, ARGV[1] field, ARGV[2] connId or empty for any connection.
+     * removes the connId from the client locator if it is online and belongs to the connection,
+     * returns the previous value if it was changed.
+     * the binary locator keeps the connId right after the version byte, prefixed with its length + 1,
+     * the json one is written by the former versions.
+     */
+    public static final RedisScript OFFLINE = new RedisScript(
+            "local old = redis.call('HGET', KEYS[1], ARGV[1])\n"
+            + "if not old then return false end\n"
+            + "if string.byte(old, 1) == 123 then\n"
+            + "  local locator = cjson.decode(old)\n"
+            + "  if type(locator.connId) ~= 'string' then return false end\n"
+            + "  if ARGV[2] ~= '' and locator.connId ~= ARGV[2] then return false end\n"
+            + "  locator.connId = nil\n"
+            + "  redis.call('HSET', KEYS[1], ARGV[1], cjson.encode(locator))\n"
+            + "  return old\n"
+            + "end\n"
+            + "local n = string.byte(old, 2)\n"
+            + "if not n or n == 0 then return false end\n"
+            + "if ARGV[2] ~= '' and string.sub(old, 3, n + 1) ~= ARGV[2] then return false end\n"
+            + "redis.call('HSET', KEYS[1], ARGV[1], string.sub(old, 1, 1) .. string.char(0) .. string.sub(old, n + 2))\n"
+            + "return old", 1);
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.batch;
+
+import io.github.ukuz.piccolo.cache.redis.connection.RedisConnectionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+class RedisBatchWriterTest {
+
+    @Mock
+    private RedisConnectionFactory factory;
+
+    @DisplayName("test_submit_WithBatchSize")
+    @Test
+    void testSubmitWithBatchSize() throws Exception {
+        List<Integer> sizes = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<BatchOperation> operations = invocation.getArgument(0);
+            sizes.add(operations.size());
+            operations.forEach(operation -> operation.complete(operation.getMember()));
+            return null;
+        }).when(factory).executeBatch(anyList());
+        RedisBatchWriter writer = new RedisBatchWriter(factory, 4, 1000);
+        try {
+            List<CompletableFuture<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(writer.submit(BatchOperation.zAdd("online", "user" + i, 0)));
+            }
+            for (int i = 0; i < 8; i++) {
+                assertEquals("user" + i, futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(2, sizes.size());
+            assertEquals(4, (int) sizes.get(0));
+            assertEquals(4, (int) sizes.get(1));
+        } finally {
+            writer.close();
+        }
+    }
+
+    @DisplayName("test_submit_WithFlushFailure")
+    @Test
+    void testSubmitWithFlushFailure() throws Exception {
+        doThrow(new IllegalStateException("broken pipe")).when(factory).executeBatch(anyList());
+        RedisBatchWriter writer = new RedisBatchWriter(factory, 16, 0);
+        try {
+            CompletableFuture<Object> future = writer.submit(BatchOperation.zRem("online", "user"));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertEquals(IllegalStateException.class, e.getCause().getClass());
+        } finally {
+            writer.close();
+        }
+    }
+
+    @DisplayName("test_submit_WithClosed")
+    @Test
+    void testSubmitWithClosed() {
+        RedisBatchWriter writer = new RedisBatchWriter(factory, 16, 0);
+        writer.close();
+        assertTrue(writer.submit(BatchOperation.zRem("online", "user")).isCompletedExceptionally());
+    }
+
+}
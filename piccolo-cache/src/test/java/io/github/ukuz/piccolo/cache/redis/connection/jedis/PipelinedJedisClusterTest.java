@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.connection.jedis;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import redis.clients.util.SafeEncoder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelinedJedisClusterTest {
+
+    @DisplayName("test_readSlots_WithReplicas")
+    @Test
+    void testReadSlotsWithReplicas() {
+        List<Object> slots = Arrays.asList(
+                slot(0, 8191, "10.0.0.1", 7000, "10.0.0.3", 7002),
+                slot(8192, 16383, "10.0.0.2", 7001, "10.0.0.4", 7003));
+
+        String[] nodes = PipelinedJedisCluster.readSlots(slots);
+
+        assertEquals(16384, nodes.length);
+        assertEquals("10.0.0.1:7000", nodes[0]);
+        assertEquals("10.0.0.1:7000", nodes[8191]);
+        // replicas never own a slot
+        assertEquals("10.0.0.2:7001", nodes[8192]);
+        assertEquals("10.0.0.2:7001", nodes[16383]);
+    }
+
+    @DisplayName("test_readSlots_WithUncoveredSlots")
+    @Test
+    void testReadSlotsWithUncoveredSlots() {
+        String[] nodes = PipelinedJedisCluster.readSlots(Arrays.asList(slot(0, 99, "10.0.0.1", 7000, "10.0.0.3", 7002)));
+
+        assertEquals("10.0.0.1:7000", nodes[99]);
+        assertNull(nodes[100]);
+    }
+
+    private static List<Object> slot(long start, long end, String master, long masterPort, String replica, long replicaPort) {
+        return Arrays.asList(start, end,
+                Arrays.asList(SafeEncoder.encode(master), masterPort, SafeEncoder.encode("id-" + master)),
+                Arrays.asList(SafeEncoder.encode(replica), replicaPort, SafeEncoder.encode("id-" + replica)));
+    }
+
+}
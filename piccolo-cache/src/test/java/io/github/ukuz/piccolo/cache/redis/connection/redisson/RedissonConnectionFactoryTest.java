@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.connection.redisson;
+
+import io.github.ukuz.piccolo.cache.redis.batch.BatchOperation;
+import io.github.ukuz.piccolo.cache.redis.script.RouterScripts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RScoredSortedSetAsync;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.misc.RedissonPromise;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RedissonConnectionFactoryTest {
+
+    private static final byte[] LOCATOR = {1, 2, 3};
+
+    @Mock
+    private RedissonClient redissonClient;
+    @Mock
+    private RBatch batch;
+    @Mock
+    private RScript script;
+    @Mock
+    private RScoredSortedSetAsync<Object> zset;
+    @Mock
+    private RMapAsync<Object, Object> map;
+
+    private RedissonConnectionFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        when(redissonClient.createBatch(any())).thenReturn(batch);
+        factory = new RedissonConnectionFactory(redissonClient);
+    }
+
+    @DisplayName("test_executeBatch")
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExecuteBatch() {
+        when(batch.getScript(ByteArrayCodec.INSTANCE)).thenReturn(script);
+        when(script.evalAsync(eq("router"), eq(RScript.Mode.READ_WRITE), eq(RouterScripts.GET_AND_SET.getScript()),
+                eq(RScript.ReturnType.VALUE), eq(Collections.singletonList("router")), any(), any()))
+                .thenReturn(succeeded(LOCATOR));
+        when(batch.getScoredSortedSet("online", StringCodec.INSTANCE)).thenReturn(zset);
+        when(zset.addAsync(0, "user")).thenReturn(succeeded(true));
+        when(zset.sizeAsync()).thenReturn(succeeded(3));
+        when(batch.getMap(eq("router"), any(Codec.class))).thenReturn(map);
+        when(map.readAllMapAsync()).thenReturn(succeeded(Collections.singletonMap("1", LOCATOR)));
+
+        BatchOperation getAndSet = BatchOperation.script("router", RouterScripts.GET_AND_SET, new byte[]{'1'}, LOCATOR);
+        BatchOperation zAdd = BatchOperation.zAdd("online", "user", 0);
+        BatchOperation zCard = BatchOperation.zCard("online");
+        BatchOperation hgetAll = BatchOperation.hgetAll("router");
+        factory.executeBatch(Arrays.asList(getAndSet, zAdd, zCard, hgetAll));
+
+        // the same replies as the jedis pipeline
+        assertArrayEquals(LOCATOR, (byte[]) getAndSet.future().join());
+        assertTrue(zAdd.isDone());
+        assertEquals(3L, zCard.future().join());
+        assertArrayEquals(LOCATOR, ((Map<String, byte[]>) hgetAll.future().join()).get("1"));
+    }
+
+    @DisplayName("test_executeBatch_WithFailure")
+    @Test
+    void testExecuteBatchWithFailure() {
+        when(batch.getScoredSortedSet("online", StringCodec.INSTANCE)).thenReturn(zset);
+        RedisException cause = new RedisException("WRONGTYPE");
+        when(zset.addAsync(0, "user")).thenReturn(succeeded(true));
+        when(zset.removeAsync("user")).thenReturn(failed(cause));
+        when(zset.sizeAsync()).thenReturn(new RedissonPromise<>());
+        when(batch.execute()).thenThrow(cause);
+
+        BatchOperation zAdd = BatchOperation.zAdd("online", "user", 0);
+        BatchOperation zRem = BatchOperation.zRem("online", "user");
+        BatchOperation zCard = BatchOperation.zCard("online");
+        factory.executeBatch(Arrays.asList(zAdd, zRem, zCard));
+
+        // every operation is completed, with its own reply if it got one
+        assertEquals(true, zAdd.future().join());
+        assertTrue(zRem.future().isCompletedExceptionally());
+        assertTrue(zCard.future().isCompletedExceptionally());
+    }
+
+    private static <T> RFuture<T> succeeded(T value) {
+        RedissonPromise<T> promise = new RedissonPromise<>();
+        promise.trySuccess(value);
+        return promise;
+    }
+
+    private static <T> RFuture<T> failed(Throwable cause) {
+        RedissonPromise<T> promise = new RedissonPromise<>();
+        promise.tryFailure(cause);
+        return promise;
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.cache.redis.operator.redisson;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RFuture;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.misc.RedissonPromise;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RedissonAsyncOperatorTest {
+
+    private static final byte[] VALUE = {0, 1, 2, (byte) 0xff};
+
+    @Mock
+    private RedissonClient redissonClient;
+    @Mock
+    private RBucket<String> bucket;
+    @Mock
+    private RBucket<byte[]> bytesBucket;
+    @Mock
+    private RMap<String, String> map;
+    @Mock
+    private RMap<String, byte[]> bytesMap;
+
+    private RedissonAsyncOperator operator;
+
+    @BeforeEach
+    void setUp() {
+        operator = new RedissonAsyncOperator(redissonClient);
+    }
+
+    @DisplayName("test_get_WithStringCodec")
+    @Test
+    void testGetWithStringCodec() {
+        when(redissonClient.<String>getBucket("key", StringCodec.INSTANCE)).thenReturn(bucket);
+        when(bucket.getAsync()).thenReturn(succeeded("value"));
+
+        assertEquals("value", operator.get("key").join());
+    }
+
+    @DisplayName("test_setEx_WithStringCodec")
+    @Test
+    void testSetExWithStringCodec() {
+        when(redissonClient.<String>getBucket("key", StringCodec.INSTANCE)).thenReturn(bucket);
+        when(bucket.setAsync("value", 60, TimeUnit.SECONDS)).thenReturn(succeeded(null));
+
+        operator.setEx("key", "value", 60).join();
+
+        verify(bucket).setAsync("value", 60, TimeUnit.SECONDS);
+    }
+
+    @DisplayName("test_hset_WithStringCodec")
+    @Test
+    void testHsetWithStringCodec() {
+        when(redissonClient.<String, String>getMap("key", StringCodec.INSTANCE)).thenReturn(map);
+        when(map.fastPutAsync("field", "value")).thenReturn(succeeded(true));
+        when(map.getAsync("field")).thenReturn(succeeded("value"));
+
+        operator.hset("key", "field", "value").join();
+
+        assertEquals("value", operator.hget("key", "field").join());
+    }
+
+    @DisplayName("test_setExBytes_WithByteArrayCodec")
+    @Test
+    void testSetExBytesWithByteArrayCodec() {
+        when(redissonClient.<byte[]>getBucket("key", ByteArrayCodec.INSTANCE)).thenReturn(bytesBucket);
+        when(bytesBucket.setAsync(VALUE, 60, TimeUnit.SECONDS)).thenReturn(succeeded(null));
+        when(bytesBucket.getAsync()).thenReturn(succeeded(VALUE));
+
+        operator.setExBytes("key", VALUE, 60).join();
+
+        assertArrayEquals(VALUE, operator.getBytes("key").join());
+    }
+
+    @DisplayName("test_hgetAllBytes_WithStringFieldsAndRawValues")
+    @Test
+    void testHgetAllBytesWithStringFieldsAndRawValues() {
+        when(redissonClient.<String, byte[]>getMap(eq("key"), any(Codec.class))).thenReturn(bytesMap);
+        when(bytesMap.readAllMapAsync()).thenReturn(succeeded(Collections.singletonMap("field", VALUE)));
+
+        Map<String, byte[]> values = operator.hgetAllBytes("key").join();
+
+        assertArrayEquals(VALUE, values.get("field"));
+        ArgumentCaptor<Codec> codec = ArgumentCaptor.forClass(Codec.class);
+        verify(redissonClient).getMap(eq("key"), codec.capture());
+        // the fields are read as strings, the values are left as the bytes that were written
+        assertSame(StringCodec.INSTANCE.getMapKeyDecoder(), codec.getValue().getMapKeyDecoder());
+        assertSame(StringCodec.INSTANCE.getMapKeyEncoder(), codec.getValue().getMapKeyEncoder());
+        assertSame(ByteArrayCodec.INSTANCE.getMapValueDecoder(), codec.getValue().getMapValueDecoder());
+        assertSame(ByteArrayCodec.INSTANCE.getMapValueEncoder(), codec.getValue().getMapValueEncoder());
+    }
+
+    private static <T> RFuture<T> succeeded(T value) {
+        RedissonPromise<T> promise = new RedissonPromise<>();
+        promise.trySuccess(value);
+        return promise;
+    }
+
+}
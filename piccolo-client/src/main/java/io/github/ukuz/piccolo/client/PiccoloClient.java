@@ -33,6 +33,7 @@ import io.github.ukuz.piccolo.api.spi.SpiLoader;
 import io.github.ukuz.piccolo.client.gateway.connection.GatewayConnectionFactory;
 import io.github.ukuz.piccolo.client.gateway.connection.GatewayTcpConnectionFactory;
 import io.github.ukuz.piccolo.client.id.snowflake.SnowflakeIdGenDelegate;
+import io.github.ukuz.piccolo.client.properties.ClientProperties;
 import io.github.ukuz.piccolo.client.router.CachedRemoteRouterManager;
 import io.github.ukuz.piccolo.client.threadpool.ClientExecutorFactory;
 import io.github.ukuz.piccolo.common.event.EventBus;
@@ -81,12 +82,16 @@ public class PiccoloClient implements PiccoloContext {
         //initialize eventBus
         EventBus.create(executorFactory.create(ExecutorFactory.EVENT_BUS, environment));
 
-        mqClient = SpiLoader.getLoader(MQClient.class).getExtension();
+        String mqChooser = StringUtils.hasText(core.getMq()) ? core.getMq() : MQClient.DEFAULT;
+        mqClient = SpiLoader.getLoader(MQClient.class).getExtension(mqChooser);
         mqClient.startAsync(this).join();
 
         cacheManager = SpiLoader.getLoader(CacheManager.class).getExtension();
         cacheManager.init(this);
-        remoteRouterManager = new CachedRemoteRouterManager(cacheManager);
+        ClientProperties client = environment.getProperties(ClientProperties.class);
+        remoteRouterManager = new CachedRemoteRouterManager(cacheManager,
+                client.getRouterCacheMaxSize(), client.getRouterCacheExpireSeconds());
+        remoteRouterManager.init();
 
         String srdChooser = StringUtils.hasText(core.getSrd()) ? core.getSrd() : ServiceRegistryAndDiscovery.DEFAULT;
         srd = SpiLoader.getLoader(ServiceRegistryAndDiscovery.class).getExtension(srdChooser);
@@ -170,6 +175,7 @@ public class PiccoloClient implements PiccoloContext {
 
     public void destroy() {
         mqClient.destroy();
+        remoteRouterManager.destroy();
         cacheManager.destroy();
         srd.destroy();
         idGen.destroy();
@@ -17,6 +17,7 @@ package io.github.ukuz.piccolo.client.properties;
 
 import io.github.ukuz.piccolo.api.config.ConfigurationProperties;
 import io.github.ukuz.piccolo.api.config.Properties;
+import io.github.ukuz.piccolo.client.router.CachedRemoteRouterManager;
 import lombok.Data;
 
 /**
@@ -37,4 +38,17 @@ public class ClientProperties implements Properties {
 
      private Integer aesKeyLength;
 
+     /**
+      * max users kept in the near cache of the remote routers
+      */
+     private int routerCacheMaxSize = CachedRemoteRouterManager.DEFAULT_MAX_SIZE;
+     /**
+      * expiration of a cached user, only matters when a router change message was lost
+      */
+     private int routerCacheExpireSeconds = CachedRemoteRouterManager.DEFAULT_EXPIRE_SECONDS;
+     /**
+      * max user ids packed into one multicast push frame
+      */
+     private int multicastBatchSize = 1000;
+
 }
@@ -23,6 +23,10 @@ import io.github.ukuz.piccolo.common.message.push.DispatcherMqMessage;
 @FunctionalInterface
 public interface BaseDispatcherHandler {
 
+    /**
+     * the message is redelivered after a rebalance or a restart until {@link DispatcherMqMessage#completeConsume()} is called
+     * @param message
+     */
     void onDispatch(DispatcherMqMessage message);
 
 }
@@ -25,7 +25,9 @@ import io.github.ukuz.piccolo.api.push.PushContext;
 import io.github.ukuz.piccolo.api.service.discovery.ServiceInstance;
 import io.github.ukuz.piccolo.client.PiccoloClient;
 import io.github.ukuz.piccolo.client.id.IdGenBuilder;
+import io.github.ukuz.piccolo.client.properties.ClientProperties;
 import io.github.ukuz.piccolo.common.ServiceNames;
+import io.github.ukuz.piccolo.common.message.MulticastPushMessage;
 import io.github.ukuz.piccolo.common.message.PushMessage;
 import io.github.ukuz.piccolo.common.message.push.KafkaDispatcherMqMessage;
 import io.github.ukuz.piccolo.common.router.RemoteRouter;
@@ -35,7 +37,11 @@ import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -52,10 +58,12 @@ public class PushClient implements AutoCloseable {
     private PiccoloClient piccoloClient;
     private static final Logger LOGGER = LoggerFactory.getLogger(PushClient.class);
     private ExecutorService dispatchHandlerExecutor;
+    private final int multicastBatchSize;
 
     public PushClient() {
         piccoloClient = PiccoloClient.getInstance();
         dispatchHandlerExecutor = (ExecutorService) piccoloClient.getExecutorFactory().create(PUSH_CLIENT, piccoloClient.getEnvironment());
+        multicastBatchSize = Math.max(piccoloClient.getProperties(ClientProperties.class).getMulticastBatchSize(), 1);
     }
 
     /**
@@ -77,7 +85,7 @@ public class PushClient implements AutoCloseable {
         if (context.getUserId() != null) {
             pushSingleUser(context.getUserId(), context.getContext());
         } else if (context.getUserIds() != null && !CollectionUtils.isEmpty(context.getUserIds())) {
-            context.getUserIds().forEach(userId -> pushSingleUser(userId, context.getContext()));
+            pushMultiUsers(context.getUserIds(), context.getContext());
         } else if (context.isBroadcast()) {
             broadcast(context.getContext());
         }
@@ -113,6 +121,39 @@ public class PushClient implements AutoCloseable {
         });
     }
 
+    /**
+     * look up the routers of all the users at once, then send the content once per gateway
+     * with the users packed into multicast frames
+     *
+     * @param userIds
+     * @param context
+     */
+    private void pushMultiUsers(Collection<String> userIds, byte[] context) {
+        Map<String, List<String>> gatewayUsers = new HashMap<>();
+        piccoloClient.getRemoteRouterManager().lookupAll(userIds).forEach((userId, remoteRouters) ->
+                remoteRouters.stream()
+                        .filter(RemoteRouter::isOnline)
+                        .forEach(remoteRouter -> gatewayUsers
+                                .computeIfAbsent(remoteRouter.getRouterValue().getHostAndPort(), k -> new ArrayList<>())
+                                .add(userId)));
+        gatewayUsers.forEach((hostAndPort, users) -> {
+            Connection connection = piccoloClient.getGatewayConnectionFactory().getConnection(hostAndPort);
+            if (connection == null) {
+                LOGGER.error("can not push message to gateway server, is it work, users: {} server: {}",
+                        users.size(), hostAndPort);
+                return;
+            }
+            if (users.size() == 1) {
+                connection.sendAsync(PushMessage.build(connection).content(context).userId(users.get(0)));
+                return;
+            }
+            for (int from = 0; from < users.size(); from += multicastBatchSize) {
+                List<String> batch = users.subList(from, Math.min(from + multicastBatchSize, users.size()));
+                connection.sendAsync(MulticastPushMessage.build(connection).content(context).userIds(batch));
+            }
+        });
+    }
+
     private void broadcast(byte[] context) {
         List<ServiceInstance> serviceInstances = piccoloClient.getServiceDiscovery().lookup(ServiceNames.S_GATEWAY);
         serviceInstances.forEach(serviceInstance -> {
@@ -166,6 +207,11 @@ public class PushClient implements AutoCloseable {
             msg.decode(message);
             dispatchHandlerExecutor.execute(() -> handler.onDispatch(msg));
         }
+
+        @Override
+        public boolean isManualAck() {
+            return true;
+        }
     }
 
 }
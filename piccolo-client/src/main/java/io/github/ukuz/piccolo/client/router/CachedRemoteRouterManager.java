@@ -17,25 +17,70 @@ package io.github.ukuz.piccolo.client.router;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import io.github.ukuz.piccolo.api.cache.CacheManager;
+import io.github.ukuz.piccolo.common.cache.CacheKeys;
 import io.github.ukuz.piccolo.common.router.RemoteRouter;
 import io.github.ukuz.piccolo.common.router.RemoteRouterManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
+ * A bounded near cache of the remote routers, a user is dropped as soon as the gateways publish a change
+ * of its routers on {@link CacheKeys#ROUTER_CHANGE_CHANNEL}, the expiration only bounds how long a lost
+ * message can leave a stale entry.
+ *
  * @author ukuz90
  */
 public class CachedRemoteRouterManager extends RemoteRouterManager {
 
-    private Cache<String, Set<RemoteRouter>> cache = CacheBuilder.newBuilder()
-            .expireAfterAccess(Duration.ofMinutes(5))
-            .expireAfterWrite(Duration.ofMinutes(5))
-            .build();
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachedRemoteRouterManager.class);
+
+    public static final int DEFAULT_MAX_SIZE = 100000;
+    public static final int DEFAULT_EXPIRE_SECONDS = 300;
+
+    private final CacheManager cacheManager;
+    private final Cache<String, Set<RemoteRouter>> cache;
+    /**
+     * the loads in flight, an invalidation removes the token so that a load racing with it is not cached
+     */
+    private final ConcurrentMap<String, Object> loading = new ConcurrentHashMap<>();
 
     public CachedRemoteRouterManager(CacheManager cacheManager) {
+        this(cacheManager, DEFAULT_MAX_SIZE, DEFAULT_EXPIRE_SECONDS);
+    }
+
+    public CachedRemoteRouterManager(CacheManager cacheManager, int maxSize, int expireSeconds) {
         super(cacheManager);
+        this.cacheManager = cacheManager;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public void init() {
+        cacheManager.subscribe(CacheKeys.ROUTER_CHANGE_CHANNEL, this::invalidate, () -> {
+            // changes published while not subscribed are lost
+            invalidateAll();
+            LOGGER.info("subscribe router change channel: {}", CacheKeys.ROUTER_CHANGE_CHANNEL);
+        });
+    }
+
+    public void destroy() {
+        cacheManager.unsubscribe(CacheKeys.ROUTER_CHANGE_CHANNEL);
+        invalidateAll();
     }
 
     @Override
@@ -55,10 +100,83 @@ public class CachedRemoteRouterManager extends RemoteRouterManager {
         if (cached != null) {
             return cached;
         }
-        cached = super.lookupAll(userId);
-        if (cached != null) {
-            cache.put(userId, cached);
+        Object token = new Object();
+        loading.put(userId, token);
+        try {
+            cached = super.lookupAll(userId);
+            putIfNotInvalidated(userId, token, cached);
+        } finally {
+            loading.remove(userId, token);
         }
         return cached;
     }
+
+    @Override
+    public Map<String, Set<RemoteRouter>> lookupAll(Collection<String> userIds) {
+        Map<String, Set<RemoteRouter>> result = new HashMap<>(userIds.size());
+        Map<String, Object> tokens = new HashMap<>();
+        for (String userId : userIds) {
+            Set<RemoteRouter> cached = cache.getIfPresent(userId);
+            if (cached != null) {
+                result.put(userId, cached);
+            } else {
+                Object token = new Object();
+                loading.put(userId, token);
+                tokens.put(userId, token);
+            }
+        }
+        if (tokens.isEmpty()) {
+            return result;
+        }
+        try {
+            super.lookupAll(new ArrayList<>(tokens.keySet())).forEach((userId, routers) -> {
+                putIfNotInvalidated(userId, tokens.remove(userId), routers);
+                result.put(userId, routers);
+            });
+        } finally {
+            tokens.forEach(loading::remove);
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Set<RemoteRouter>> lookupAllAsync(String userId) {
+        Set<RemoteRouter> cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        Object token = new Object();
+        loading.put(userId, token);
+        return super.lookupAllAsync(userId).whenComplete((routers, e) -> {
+            if (e == null) {
+                putIfNotInvalidated(userId, token, routers);
+            } else {
+                loading.remove(userId, token);
+            }
+        });
+    }
+
+    private void putIfNotInvalidated(String userId, Object token, Set<RemoteRouter> routers) {
+        if (loading.remove(userId, token) && routers != null) {
+            cache.put(userId, routers);
+        }
+    }
+
+    public void invalidate(String userId) {
+        loading.remove(userId);
+        cache.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        loading.clear();
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
 }
@@ -22,9 +22,10 @@ import io.github.ukuz.piccolo.api.mq.MQMessageReceiver;
 import io.github.ukuz.piccolo.api.service.discovery.DefaultServiceInstance;
 import io.github.ukuz.piccolo.client.PiccoloClient;
 import io.github.ukuz.piccolo.common.ServiceNames;
-import io.github.ukuz.piccolo.common.cache.CacheKeys;
+import io.github.ukuz.piccolo.common.cache.OnlineUserList;
 import io.github.ukuz.piccolo.common.message.push.KafkaOfflineMqMessage;
 import io.github.ukuz.piccolo.common.message.push.OfflineMqMessage;
+import io.github.ukuz.piccolo.common.properties.CoreProperties;
 import io.github.ukuz.piccolo.mq.kafka.Topics;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
@@ -41,6 +42,7 @@ public class UserManager {
 
     private PiccoloContext piccoloContext;
     private Holder<Consumer<OfflineMqMessage>> offlineEventHandler = new Holder<>();
+    private volatile OnlineUserList onlineUserList;
 
     public UserManager() {
         this.piccoloContext = PiccoloClient.getInstance();
@@ -51,12 +53,7 @@ public class UserManager {
      * @return
      */
     public long getAllOnlineUserNum() {
-        List<String> serverIps = getAllServerIp();
-        long onlineUserNum = 0;
-        for (String serverIp : serverIps) {
-            onlineUserNum += getOnlineUserNum(serverIp);
-        }
-        return onlineUserNum;
+        return getOnlineUserList().count(getAllServerIp());
     }
 
     /**
@@ -64,40 +61,24 @@ public class UserManager {
      * @return
      */
     public List<String> getAllOnlineUserList() {
-        List<String> serverIps = getAllServerIp();
         List<String> allOnlineUserList = new ArrayList<>();
-        for (String serverIp : serverIps) {
-            String onlineUserListKey = CacheKeys.getOnlineUserListKey(serverIp);
-            allOnlineUserList.addAll(piccoloContext.getCacheManager().zrange(onlineUserListKey, 0, -1, String.class));
+        for (String serverIp : getAllServerIp()) {
+            allOnlineUserList.addAll(getOnlineUserList().list(serverIp));
         }
         return allOnlineUserList;
     }
 
     public List<String> getOnlineUserList(long start, long end) {
         Assert.isTrue(end >= start, "end must great than start, start: " + start + ", end: " + end);
-        List<String> serverIps = getAllServerIp();
-        List<String> onlineUserList = new ArrayList<>();
-        long offset = 0;
-        for (int i = 0; i < serverIps.size(); i++) {
-            String ip = serverIps.get(i);
-            String onlineUserListKey = CacheKeys.getOnlineUserListKey(ip);
-            long num = getOnlineUserNum(ip);
-            if (end > offset && start <= offset
-                    || end > offset + num && start <= offset + num) {
-                onlineUserList.addAll(piccoloContext.getCacheManager().zrange(onlineUserListKey, (int)(start - offset), (int)(end - offset), String.class));
-            }
-            if (end <= offset+num) {
-                break;
-            }
-            offset += num;
-        }
-        return onlineUserList;
+        return getOnlineUserList().range(getAllServerIp(), start, end);
     }
 
-    private long getOnlineUserNum(String ip) {
-        String onlineUserListKey = CacheKeys.getOnlineUserListKey(ip);
-        Long val = piccoloContext.getCacheManager().zCard(onlineUserListKey);
-        return val == null ? 0 : val.longValue();
+    private OnlineUserList getOnlineUserList() {
+        if (onlineUserList == null) {
+            CoreProperties core = piccoloContext.getProperties(CoreProperties.class);
+            onlineUserList = new OnlineUserList(piccoloContext.getCacheManager(), core.getOnlineUserShards());
+        }
+        return onlineUserList;
     }
 
     private List<String> getAllServerIp() {
@@ -107,6 +88,10 @@ public class UserManager {
         return serverIps;
     }
 
+    /**
+     * the handler calls {@link OfflineMqMessage#completeConsume()} once it handled the message
+     * @param offlineHandler
+     */
     public void registerOfflineHandler(Consumer<OfflineMqMessage> offlineHandler) {
         Assert.notNull(offlineHandler, "offlineHandler must not be null");
         this.piccoloContext.getMQClient().subscribe(Topics.OFFLINE_MESSAGE.getTopic(), new OfflineMessageReceiver(offlineHandler));
@@ -137,6 +122,11 @@ public class UserManager {
             msg.setOffset(offsetAndMetadata.offset());
             this.consumer.accept(msg);
         }
+
+        @Override
+        public boolean isManualAck() {
+            return true;
+        }
     }
 
 }
@@ -15,9 +15,7 @@
  */
 package io.github.ukuz.piccolo.client.websocket;
 
-import io.github.ukuz.piccolo.api.config.Environment;
 import io.github.ukuz.piccolo.api.exchange.support.MultiMessage;
-import io.github.ukuz.piccolo.api.spi.SpiLoader;
 import io.github.ukuz.piccolo.common.message.HandshakeOkMessage;
 import io.github.ukuz.piccolo.transport.connection.NettyConnection;
 import io.github.ukuz.piccolo.transport.connection.NettyConnectionManager;
@@ -55,7 +53,7 @@ public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object>
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         handshaker.handshake(ctx.channel());
-        NettyConnection connection = new NettyConnection(SpiLoader.getLoader(Environment.class).getExtension());
+        NettyConnection connection = new NettyConnection();
         connection.init(ctx.channel(), false);
         cxnxManager.add(connection);
     }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.client.router;
+
+import io.github.ukuz.piccolo.api.cache.CacheManager;
+import io.github.ukuz.piccolo.api.router.ClientLocator;
+import io.github.ukuz.piccolo.common.cache.CacheKeys;
+import io.github.ukuz.piccolo.common.event.EventBus;
+import io.github.ukuz.piccolo.common.router.ClientLocatorCodec;
+import io.github.ukuz.piccolo.common.router.RemoteRouter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachedRemoteRouterManagerTest {
+
+    private static final String USER_ID = "user";
+    private static final String KEY = CacheKeys.getUserRouteKey(USER_ID);
+
+    @Mock
+    private CacheManager cacheManager;
+    @Captor
+    private ArgumentCaptor<Consumer<String>> onMessageCaptor;
+
+    private CachedRemoteRouterManager manager;
+    private Consumer<String> onMessage;
+
+    @BeforeAll
+    static void setUpAll() {
+        EventBus.create(Runnable::run);
+    }
+
+    @BeforeEach
+    void setUp() {
+        manager = new CachedRemoteRouterManager(cacheManager, 16, 60);
+        manager.init();
+        verify(cacheManager).subscribe(eq(CacheKeys.ROUTER_CHANGE_CHANNEL), onMessageCaptor.capture(), any(Runnable.class));
+        onMessage = onMessageCaptor.getValue();
+    }
+
+    @DisplayName("test_lookupAll_WithCacheHit")
+    @Test
+    void testLookupAllWithCacheHit() {
+        when(cacheManager.hgetAllBytes(KEY)).thenReturn(locators());
+
+        assertEquals(1, manager.lookupAll(USER_ID).size());
+        assertEquals(1, manager.lookupAll(USER_ID).size());
+
+        verify(cacheManager, times(1)).hgetAllBytes(KEY);
+        assertEquals(1, manager.getStats().hitCount());
+    }
+
+    @DisplayName("test_lookupAll_WithRouterChange")
+    @Test
+    void testLookupAllWithRouterChange() {
+        when(cacheManager.hgetAllBytes(KEY)).thenReturn(locators());
+
+        manager.lookupAll(USER_ID);
+        onMessage.accept(USER_ID);
+        manager.lookupAll(USER_ID);
+
+        verify(cacheManager, times(2)).hgetAllBytes(KEY);
+    }
+
+    @DisplayName("test_lookupAll_WithChangeDuringLoad")
+    @Test
+    void testLookupAllWithChangeDuringLoad() {
+        when(cacheManager.hgetAllBytes(KEY)).thenAnswer(invocation -> {
+            // the user relocated while its stale routers were being read
+            onMessage.accept(USER_ID);
+            return locators();
+        });
+
+        manager.lookupAll(USER_ID);
+
+        assertEquals(0, manager.size());
+    }
+
+    @DisplayName("test_lookupAllUsers_WithPartialCacheHit")
+    @Test
+    void testLookupAllUsersWithPartialCacheHit() {
+        String otherKey = CacheKeys.getUserRouteKey("other");
+        when(cacheManager.hgetAllBytes(KEY)).thenReturn(locators());
+        when(cacheManager.hgetAllBytes(argThat((Collection<String> keys) -> keys.size() == 1 && keys.contains(otherKey))))
+                .thenReturn(Collections.singletonMap(otherKey, locators()));
+        manager.lookupAll(USER_ID);
+
+        Map<String, Set<RemoteRouter>> routers = manager.lookupAll(Arrays.asList(USER_ID, "other"));
+
+        assertEquals(2, routers.size());
+        assertEquals(1, routers.get("other").size());
+        assertEquals(2, manager.size());
+        verify(cacheManager, times(1)).hgetAllBytes(argThat((Collection<String> keys) -> keys.size() == 1 && keys.contains(otherKey)));
+    }
+
+    private static Map<String, byte[]> locators() {
+        return Collections.singletonMap("1", ClientLocatorCodec.encode(new ClientLocator().setHost("127.0.0.1").setPort(8087)));
+    }
+
+}
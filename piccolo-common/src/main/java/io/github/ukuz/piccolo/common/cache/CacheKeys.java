@@ -28,6 +28,11 @@ public final class CacheKeys {
 
     private static final String ONLINE_USER_LIST_KEY_PREFIX = "piccolo:oul:";
 
+    /**
+     * pub/sub channel carrying the userId whose remote routers changed
+     */
+    public static final String ROUTER_CHANGE_CHANNEL = "piccolo:urc";
+
     public static String getSessionKey(String sessionId) {
         return SESSION_PREFIX + sessionId;
     }
@@ -40,7 +45,17 @@ public final class CacheKeys {
         return USER_PREFIX + userId;
     }
 
+    /**
+     * the former single online user list of a gateway, only cleared now
+     *
+     * @param publicIP
+     * @return
+     */
     public static String getOnlineUserListKey(String publicIP) {
         return ONLINE_USER_LIST_KEY_PREFIX + publicIP;
     }
+
+    public static String getOnlineUserListKey(String publicIP, int shard) {
+        return ONLINE_USER_LIST_KEY_PREFIX + publicIP + ':' + shard;
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.common.cache;
+
+import io.github.ukuz.piccolo.api.cache.CacheManager;
+import io.github.ukuz.piccolo.api.external.common.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The online users of each gateway, spread over {@code shards} sorted sets by the hash of the userId, so that
+ * no single key grows with the connections of a gateway and the sub keys land on different cluster nodes.
+ * Counting and clearing touch every sub key with one pipeline.
+ *
+ * @author ukuz90
+ */
+public final class OnlineUserList {
+
+    private final CacheManager cacheManager;
+    private final int shards;
+
+    public OnlineUserList(CacheManager cacheManager, int shards) {
+        Assert.isTrue(shards > 0, "shards must be positive, shards: " + shards);
+        this.cacheManager = cacheManager;
+        this.shards = shards;
+    }
+
+    public CompletableFuture<Void> addAsync(String publicIp, String userId) {
+        return cacheManager.zAddAsync(getKey(publicIp, userId), toMember(userId), 0);
+    }
+
+    public CompletableFuture<Void> removeAsync(String publicIp, String userId) {
+        return cacheManager.zRemAsync(getKey(publicIp, userId), toMember(userId));
+    }
+
+    /**
+     * clear the list of the gateway, the former unsharded one included
+     *
+     * @param publicIp
+     */
+    public void clear(String publicIp) {
+        List<String> keys = getKeys(publicIp);
+        keys.add(CacheKeys.getOnlineUserListKey(publicIp));
+        cacheManager.unlink(keys);
+    }
+
+    public long count(String publicIp) {
+        return count(getKeys(publicIp));
+    }
+
+    public long count(Collection<String> publicIps) {
+        return count(getKeys(publicIps));
+    }
+
+    public List<String> list(String publicIp) {
+        List<String> users = new ArrayList<>();
+        for (String key : getKeys(publicIp)) {
+            users.addAll(cacheManager.zrange(key, 0, -1, String.class));
+        }
+        return users;
+    }
+
+    /**
+     * the users from {@code start} to {@code end} inclusive, counted across the gateways in order.
+     * a negative index counts from the last user as in {@code ZRANGE}, -1 being the last one
+     *
+     * @param publicIps
+     * @param start
+     * @param end
+     * @return
+     */
+    public List<String> range(Collection<String> publicIps, long start, long end) {
+        List<String> keys = getKeys(publicIps);
+        List<Long> counts = cacheManager.zCard(keys);
+        if (start < 0 || end < 0) {
+            long total = 0;
+            for (Long num : counts) {
+                total += num;
+            }
+            start = start < 0 ? Math.max(total + start, 0) : start;
+            end = end < 0 ? total + end : end;
+        }
+        List<String> users = new ArrayList<>();
+        long offset = 0;
+        for (int i = 0; i < keys.size() && offset <= end; i++) {
+            long num = counts.get(i);
+            long from = Math.max(start, offset);
+            long to = Math.min(end, offset + num - 1);
+            if (from <= to) {
+                users.addAll(cacheManager.zrange(keys.get(i), (int) (from - offset), (int) (to - offset), String.class));
+            }
+            offset += num;
+        }
+        return users;
+    }
+
+    private long count(List<String> keys) {
+        long total = 0;
+        for (Long num : cacheManager.zCard(keys)) {
+            total += num;
+        }
+        return total;
+    }
+
+    private String getKey(String publicIp, String userId) {
+        return CacheKeys.getOnlineUserListKey(publicIp, (userId.hashCode() & Integer.MAX_VALUE) % shards);
+    }
+
+    private List<String> getKeys(String publicIp) {
+        List<String> keys = new ArrayList<>(shards + 1);
+        for (int i = 0; i < shards; i++) {
+            keys.add(CacheKeys.getOnlineUserListKey(publicIp, i));
+        }
+        return keys;
+    }
+
+    private List<String> getKeys(Collection<String> publicIps) {
+        List<String> keys = new ArrayList<>(shards * publicIps.size());
+        publicIps.forEach(publicIp -> keys.addAll(getKeys(publicIp)));
+        return keys;
+    }
+
+    /**
+     * the members are json strings, as the lists are read back with {@link CacheManager#zrange}
+     */
+    private static String toMember(String userId) {
+        return "\"" + userId + "\"";
+    }
+}
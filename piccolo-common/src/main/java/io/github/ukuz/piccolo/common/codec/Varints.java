@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.common.codec;
+
+import io.github.ukuz.piccolo.common.external.io.UnsafeByteArrayInputStream;
+import io.github.ukuz.piccolo.common.external.io.UnsafeByteArrayOutputStream;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * unsigned LEB128 varints and the length prefixed fields built on them, used by the values stored in redis.
+ * a nullable string is prefixed with its length + 1, 0 stands for null.
+ *
+ * @author ukuz90
+ */
+public final class Varints {
+
+    private Varints() {
+    }
+
+    public static void writeVarInt(UnsafeByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    public static int readVarInt(UnsafeByteArrayInputStream in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte(in);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    public static void writeString(UnsafeByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    public static String readString(UnsafeByteArrayInputStream in) {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        return new String(read(in, length), StandardCharsets.UTF_8);
+    }
+
+    public static void writeBytes(UnsafeByteArrayOutputStream out, byte[] value) {
+        writeVarInt(out, value.length);
+        out.write(value, 0, value.length);
+    }
+
+    public static byte[] readBytes(UnsafeByteArrayInputStream in) {
+        return read(in, readVarInt(in));
+    }
+
+    public static int readByte(UnsafeByteArrayInputStream in) {
+        int b = in.read();
+        if (b < 0) {
+            throw new IllegalArgumentException("truncated value");
+        }
+        return b;
+    }
+
+    private static byte[] read(UnsafeByteArrayInputStream in, int length) {
+        if (in.available() < length) {
+            throw new IllegalArgumentException("truncated value, expect " + length + " bytes but " + in.available());
+        }
+        byte[] value = new byte[length];
+        if (length > 0) {
+            in.read(value, 0, length);
+        }
+        return value;
+    }
+}
@@ -31,6 +31,7 @@ public enum CommandType {
     KICK(9),
     UNBIND_USER(10),
     ID_GEN(11),
+    MULTICAST_PUSH(12),
 
     UNKNOWN(-1);
 
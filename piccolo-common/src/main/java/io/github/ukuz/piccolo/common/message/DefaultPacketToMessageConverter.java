@@ -54,6 +54,8 @@ public class DefaultPacketToMessageConverter implements PacketToMessageConverter
                 return new IdGenMessage(connection);
             case GATEWAY_PUSH:
                 return new PushMessage(connection);
+            case MULTICAST_PUSH:
+                return new MulticastPushMessage(connection);
             default:
                 LOGGER.error("packet covert failure, not found mapping cmd: {} packet: {} conn: {}", cmd, packet, connection);
                 throw new IllegalArgumentException("unknown command, cmd:" + cmd);
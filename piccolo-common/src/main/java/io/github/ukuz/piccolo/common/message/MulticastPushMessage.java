@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.common.message;
+
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.api.exchange.support.ByteBufMessage;
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static io.github.ukuz.piccolo.common.constants.CommandType.MULTICAST_PUSH;
+
+/**
+ * push one content to many users of the same gateway, the content is carried once followed by the packed user ids
+ *
+ * @author ukuz90
+ */
+public class MulticastPushMessage extends ByteBufMessage {
+
+    public List<String> userIds = Collections.emptyList();
+    public byte[] content;
+
+    public MulticastPushMessage(Connection connection) {
+        super(connection, MULTICAST_PUSH.getCmd());
+    }
+
+    @Override
+    protected void decodeBody0(ByteBuf buf) {
+        content = readBytes(buf);
+        int size = readInt(buf);
+        userIds = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            userIds.add(readString(buf));
+        }
+    }
+
+    @Override
+    protected void encodeBody0(ByteBuf buf) {
+        writeBytes(buf, content);
+        writeInt(buf, userIds.size());
+        for (String userId : userIds) {
+            writeString(buf, userId);
+        }
+    }
+
+    public static MulticastPushMessage build(Connection connection) {
+        return new MulticastPushMessage(connection);
+    }
+
+    public MulticastPushMessage content(byte[] content) {
+        this.content = content;
+        return this;
+    }
+
+    public MulticastPushMessage userIds(Collection<String> userIds) {
+        this.userIds = new ArrayList<>(userIds);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "MulticastPushMessage{" +
+                "userIds=" + userIds.size() +
+                ", content=" + (content == null ? 0 : content.length) +
+                '}';
+    }
+}
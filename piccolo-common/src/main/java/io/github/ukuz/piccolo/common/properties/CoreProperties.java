@@ -34,7 +34,20 @@ public class CoreProperties implements Properties {
     private Integer minHeartbeatTime;
     private Integer maxPacketSize;
     private Integer maxHbTimeoutMs;
+    /**
+     * tick duration of the heartbeat timing wheel
+     */
+    private Integer hbCheckTickMs;
+    private Integer hbCheckTicksPerWheel;
     private Integer sessionExpireTime;
+    /**
+     * max sessions kept in the local tier in front of redis, 0 disables it
+     */
+    private int sessionLocalCacheSize = 100000;
+    /**
+     * sub keys of the online user list of a gateway, the gateways and the clients must agree on it
+     */
+    private int onlineUserShards = 16;
     /**
      * nacos,
      */
@@ -43,9 +56,13 @@ public class CoreProperties implements Properties {
      * nacos, zk
      */
     private String srd;
+    /**
+     * kafka, memory
+     */
+    private String mq;
 
     /**
-     * jedis, redisson
+     * jedis, the blocking client, redisson only serves the non-blocking api, see piccolo.redis.async-cli
      */
     private String cache = "jedis";
 
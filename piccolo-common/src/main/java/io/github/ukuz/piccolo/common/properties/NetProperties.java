@@ -48,6 +48,30 @@ public class NetProperties implements Properties {
         private int rcvBuf;
         private int writeWaterMarkLow;
         private int writeWaterMarkHigh;
+        /**
+         * decode packets as retained slices of the inbound buffer instead of copying the payload
+         */
+        private boolean zeroCopyDecode;
+        /**
+         * encode unencrypted messages straight into the outbound buffer without the intermediate packet
+         */
+        private boolean directEncode;
+        /**
+         * immediate, connection, event-loop
+         */
+        private String flushMode;
+        /**
+         * flush anyway once so many writes are pending, for connection and event-loop flush mode
+         */
+        private int flushAfterWrites;
+        /**
+         * max messages held back per connection while the channel is not writable
+         */
+        private int pendingLimit;
+        /**
+         * drop-oldest, drop-newest, close
+         */
+        private String overflowStrategy;
     }
 
     @Data
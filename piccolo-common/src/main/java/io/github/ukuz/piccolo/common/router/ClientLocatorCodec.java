@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.common.router;
+
+import io.github.ukuz.piccolo.api.router.ClientLocator;
+import io.github.ukuz.piccolo.common.codec.Varints;
+import io.github.ukuz.piccolo.common.external.io.UnsafeByteArrayInputStream;
+import io.github.ukuz.piccolo.common.external.io.UnsafeByteArrayOutputStream;
+import io.github.ukuz.piccolo.common.json.Jsons;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary form of a {@link ClientLocator} stored in the router hash.
+ * <pre>
+ * version 1:
+ * | version (1) | connId length + 1, 0 when offline (1) | connId | port (varint) |
+ * | host | deviceId | osName | osVersion | clientVersion |  nullable strings, see {@link Varints}
+ * </pre>
+ * the connId is kept right after the version with a single byte length, so that the offline script can
+ * clear it without decoding the rest. Values written as json by the former versions are still read.
+ *
+ * @author ukuz90
+ */
+public final class ClientLocatorCodec {
+
+    public static final byte VERSION_1 = 1;
+    private static final byte LEGACY_JSON = '{';
+    private static final int MAX_CONN_ID_LENGTH = 254;
+
+    private ClientLocatorCodec() {
+    }
+
+    public static byte[] encode(ClientLocator locator) {
+        UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream(64);
+        out.write(VERSION_1);
+        if (locator.getConnId() == null) {
+            out.write(0);
+        } else {
+            byte[] connId = locator.getConnId().getBytes(StandardCharsets.UTF_8);
+            if (connId.length > MAX_CONN_ID_LENGTH) {
+                throw new IllegalArgumentException("connId too long: " + locator.getConnId());
+            }
+            out.write(connId.length + 1);
+            out.write(connId, 0, connId.length);
+        }
+        Varints.writeVarInt(out, locator.getPort());
+        Varints.writeString(out, locator.getHost());
+        Varints.writeString(out, locator.getDeviceId());
+        Varints.writeString(out, locator.getOsName());
+        Varints.writeString(out, locator.getOsVersion());
+        Varints.writeString(out, locator.getClientVersion());
+        return out.toByteArray();
+    }
+
+    /**
+     * @param bytes
+     * @return null if the value is absent
+     */
+    public static ClientLocator decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == LEGACY_JSON) {
+            return Jsons.fromJson(bytes, ClientLocator.class);
+        }
+        if (bytes[0] != VERSION_1) {
+            throw new IllegalArgumentException("unknown client locator version: " + bytes[0]);
+        }
+        UnsafeByteArrayInputStream in = new UnsafeByteArrayInputStream(bytes, 1);
+        ClientLocator locator = new ClientLocator();
+        int connIdLength = Varints.readByte(in) - 1;
+        if (connIdLength >= 0) {
+            if (in.available() < connIdLength) {
+                throw new IllegalArgumentException("truncated client locator");
+            }
+            locator.setConnId(new String(bytes, in.position(), connIdLength, StandardCharsets.UTF_8));
+            in.skip(connIdLength);
+        }
+        locator.setPort(Varints.readVarInt(in));
+        locator.setHost(Varints.readString(in));
+        locator.setDeviceId(Varints.readString(in));
+        locator.setOsName(Varints.readString(in));
+        locator.setOsVersion(Varints.readString(in));
+        locator.setClientVersion(Varints.readString(in));
+        return locator;
+    }
+}
@@ -29,9 +29,12 @@ import io.netty.util.internal.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -51,25 +54,42 @@ public class RemoteRouterManager extends EventObservable implements RouterManage
     public RemoteRouter register(String userId, RemoteRouter router) {
         String key = CacheKeys.getUserRouteKey(userId);
         String field = String.valueOf(router.getClientType());
-        //TODO need atomic?
-        ClientLocator old = cacheManager.hget(key, field, ClientLocator.class);
-        cacheManager.hset(key, field, router.getRouterValue().toJson());
+        ClientLocator old = ClientLocatorCodec.decode(cacheManager.hgetAndSet(key, field, ClientLocatorCodec.encode(router.getRouterValue())));
         logger.info("register userId: {} clientType: {} router: {} old: {}", userId, router.getClientType(), router, old);
+        publishChange(userId);
         return old == null ? null : new RemoteRouter(old);
     }
 
+    /**
+     * register with a write batched into a pipeline, the future completes with the previous router
+     *
+     * @param userId
+     * @param router
+     * @return
+     */
+    public CompletableFuture<RemoteRouter> registerAsync(String userId, RemoteRouter router) {
+        String key = CacheKeys.getUserRouteKey(userId);
+        String field = String.valueOf(router.getClientType());
+        return cacheManager.hgetAndSetAsync(key, field, ClientLocatorCodec.encode(router.getRouterValue())).thenApply(value -> {
+            ClientLocator old = ClientLocatorCodec.decode(value);
+            logger.info("register userId: {} clientType: {} router: {} old: {}", userId, router.getClientType(), router, old);
+            publishChange(userId);
+            return old == null ? null : new RemoteRouter(old);
+        });
+    }
+
     @Override
     public boolean unregister(String userId, byte clientType) {
         String key = CacheKeys.getUserRouteKey(userId);
         String field = String.valueOf(clientType);
         ClientLocator old = null;
         try {
-            old = cacheManager.hget(key, field, ClientLocator.class);
-            if (old == null || old.isOffline()) {
+            old = ClientLocatorCodec.decode(cacheManager.hofflineLocator(key, field, null));
+            if (old == null) {
                 return true;
             }
-            cacheManager.hset(key, field, old.offline().toJson());
             logger.info("unRegister remote router success,  userId: {} router: {}", userId, old);
+            publishChange(userId);
             return true;
         } catch (Exception e) {
             logger.error("unRegister remote router failure, userId: {} router: {} cause: {}", userId, old, e);
@@ -77,11 +97,34 @@ public class RemoteRouterManager extends EventObservable implements RouterManage
         }
     }
 
+    public CompletableFuture<Boolean> unregisterAsync(String userId, byte clientType) {
+        return unregisterAsync(userId, clientType, null);
+    }
+
+    /**
+     * @param connId only offline the router if it still locates this connection, null for any
+     */
+    public CompletableFuture<Boolean> unregisterAsync(String userId, byte clientType, String connId) {
+        String key = CacheKeys.getUserRouteKey(userId);
+        String field = String.valueOf(clientType);
+        return cacheManager.hofflineLocatorAsync(key, field, connId).handle((old, e) -> {
+            if (e != null) {
+                logger.error("unRegister remote router failure, userId: {} clientType: {} cause: {}", userId, clientType, e);
+                return false;
+            }
+            if (old != null) {
+                logger.info("unRegister remote router success,  userId: {} router: {}", userId, ClientLocatorCodec.decode(old));
+                publishChange(userId);
+            }
+            return true;
+        });
+    }
+
     @Override
     public RemoteRouter lookup(String userId, byte clientType) {
         String key = CacheKeys.getUserRouteKey(userId);
         String field = String.valueOf(clientType);
-        ClientLocator clientLocator = cacheManager.hget(key, field, ClientLocator.class);
+        ClientLocator clientLocator = ClientLocatorCodec.decode(cacheManager.hgetBytes(key, field));
         logger.info("lookup remote router userId={}, router={}", userId, clientLocator);
         return clientLocator == null ? null : new RemoteRouter(clientLocator);
     }
@@ -89,11 +132,49 @@ public class RemoteRouterManager extends EventObservable implements RouterManage
     @Override
     public Set<RemoteRouter> lookupAll(String userId) {
         String key = CacheKeys.getUserRouteKey(userId);
-        Map<String, ClientLocator> map = cacheManager.hgetAll(key, ClientLocator.class);
+        return toRouters(cacheManager.hgetAllBytes(key));
+    }
+
+    /**
+     * look up the routers of many users with a few pipelined round trips
+     *
+     * @param userIds
+     * @return the routers of each user, empty if it has none
+     */
+    public Map<String, Set<RemoteRouter>> lookupAll(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> keyUsers = new HashMap<>(userIds.size());
+        userIds.forEach(userId -> keyUsers.put(CacheKeys.getUserRouteKey(userId), userId));
+        Map<String, Set<RemoteRouter>> result = new HashMap<>(keyUsers.size());
+        cacheManager.hgetAllBytes(keyUsers.keySet()).forEach((key, map) -> result.put(keyUsers.get(key), toRouters(map)));
+        return result;
+    }
+
+    public CompletableFuture<RemoteRouter> lookupAsync(String userId, byte clientType) {
+        String key = CacheKeys.getUserRouteKey(userId);
+        String field = String.valueOf(clientType);
+        return cacheManager.hgetBytesAsync(key, field).thenApply(value -> {
+            ClientLocator clientLocator = ClientLocatorCodec.decode(value);
+            logger.info("lookup remote router userId={}, router={}", userId, clientLocator);
+            return clientLocator == null ? null : new RemoteRouter(clientLocator);
+        });
+    }
+
+    public CompletableFuture<Set<RemoteRouter>> lookupAllAsync(String userId) {
+        String key = CacheKeys.getUserRouteKey(userId);
+        return cacheManager.hgetAllBytesAsync(key).thenApply(this::toRouters);
+    }
+
+    private Set<RemoteRouter> toRouters(Map<String, byte[]> map) {
         if (map == null || map.isEmpty()) {
             return Collections.emptySet();
         }
-        return map.values().stream().map(RemoteRouter::new).collect(Collectors.toSet());
+        return map.values().stream()
+                .map(ClientLocatorCodec::decode)
+                .map(RemoteRouter::new)
+                .collect(Collectors.toSet());
     }
 
     @Subscribe
@@ -109,17 +190,31 @@ public class RemoteRouterManager extends EventObservable implements RouterManage
         }
         String key = CacheKeys.getUserRouteKey(context.getUserId());
         String field = String.valueOf(context.getClientType());
-        ClientLocator clientLocator = cacheManager.hget(key, field, ClientLocator.class);
-        if (clientLocator == null || clientLocator.isOffline()) {
-            return;
-        }
+        String userId = context.getUserId();
         //检测是否同一个链接，
-        if (connection.getId().equals(clientLocator.getConnId())) {
-            cacheManager.hset(key, field, clientLocator.offline().toJson());
-            logger.info("clean disconnected remote route, userId: {}, route: {}", context.getUserId(), clientLocator);
-        } else {
-            logger.info("clean disconnected remote route, not clean, userId: {}, route: {}", context.getUserId(), clientLocator);
-        }
+        cacheManager.hofflineLocatorAsync(key, field, connection.getId()).whenComplete((old, e) -> {
+            if (e != null) {
+                logger.error("clean disconnected remote route failure, userId: {}, connId: {}, cause: {}", userId, connection.getId(), e);
+            } else if (old != null) {
+                logger.info("clean disconnected remote route, userId: {}, route: {}", userId, ClientLocatorCodec.decode(old));
+                publishChange(userId);
+            } else {
+                logger.info("clean disconnected remote route, not clean, userId: {}, connId: {}", userId, connection.getId());
+            }
+        });
+
+    }
 
+    /**
+     * let the near caches of the routers drop the user
+     *
+     * @param userId
+     */
+    private void publishChange(String userId) {
+        cacheManager.publishAsync(CacheKeys.ROUTER_CHANGE_CHANNEL, userId).whenComplete((receivers, e) -> {
+            if (e != null) {
+                logger.warn("publish router change failure, userId: {} cause: {}", userId, e);
+            }
+        });
     }
 }
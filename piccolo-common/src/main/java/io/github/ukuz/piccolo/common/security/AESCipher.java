@@ -33,9 +33,6 @@ import java.util.Properties;
  */
 public class AESCipher implements Cipher {
 
-    private final SecretKeySpec key;
-    private final IvParameterSpec iv;
-
     public static final String KEY_ALGORITHM = "AES";
     public static final String KEY_ALGORITHM_TRANSFORM = "AES/CBC/PKCS5Padding";
 
@@ -51,15 +48,24 @@ public class AESCipher implements Cipher {
         Assert.notNull(iv, "iv must not empty");
         this.keyB = key;
         this.ivB = iv;
-        this.key = new SecretKeySpec(key, KEY_ALGORITHM);
-        this.iv = new IvParameterSpec(iv);
+    }
+
+    /**
+     * the key specs are cheap and only live during an encrypt or decrypt, an idle session keeps just the raw bytes
+     */
+    private SecretKeySpec key() {
+        return new SecretKeySpec(keyB, KEY_ALGORITHM);
+    }
+
+    private IvParameterSpec iv() {
+        return new IvParameterSpec(ivB);
     }
 
     @Override
     public byte[] decrypt(byte[] encryptData) {
         Properties properties = new Properties();
         try (ByteArrayInputStream inputStream = new ByteArrayInputStream(encryptData);
-             CryptoInputStream cis = new CryptoInputStream(KEY_ALGORITHM_TRANSFORM, properties, inputStream, key, iv)) {
+             CryptoInputStream cis = new CryptoInputStream(KEY_ALGORITHM_TRANSFORM, properties, inputStream, key(), iv())) {
 
             byte[] decryptedData = new byte[cis.available()];
             int decryptedLen = 0;
@@ -77,7 +83,7 @@ public class AESCipher implements Cipher {
     public byte[] encrypt(byte[] originData) {
         Properties properties = new Properties();
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            try (CryptoOutputStream cos = new CryptoOutputStream(KEY_ALGORITHM_TRANSFORM, properties, outputStream, key, iv)) {
+            try (CryptoOutputStream cos = new CryptoOutputStream(KEY_ALGORITHM_TRANSFORM, properties, outputStream, key(), iv())) {
                 cos.write(originData);
                 cos.flush();
             }
@@ -104,7 +110,7 @@ public class AESCipher implements Cipher {
     }
 
     public static byte[] toArray(String str) {
-        String[] arr = str.split("|");
+        String[] arr = str.split("\\|");
         byte[] bytes = new byte[arr.length];
         for (int i = 0; i < bytes.length; i++) {
             bytes[i] = Byte.parseByte(arr[i]);
@@ -38,6 +38,28 @@ public class RSACipher implements Cipher {
 
     private final KeyFactory keyFactory;
 
+    private static volatile RSACipher shared;
+
+    /**
+     * the server key pair is the same for every connection, parse it once and share the cipher,
+     * it keeps no per call state.
+     *
+     * @param publicKey
+     * @param privateKey
+     * @return
+     */
+    public static RSACipher shared(String publicKey, String privateKey) throws CryptoException {
+        RSACipher cipher = shared;
+        if (cipher == null || !cipher.matches(publicKey, privateKey)) {
+            cipher = new RSACipher(publicKey, privateKey);
+            shared = cipher;
+        }
+        return cipher;
+    }
+
+    private String publicKeyText;
+    private String privateKeyText;
+
 
     public RSACipher(String publicKey, String privateKey) throws CryptoException {
         Assert.notEmptyString(publicKey, "publicKey must not empty");
@@ -46,6 +68,8 @@ public class RSACipher implements Cipher {
             this.keyFactory = KeyFactory.getInstance(KEY_ALGORITHM);
             this.publicKey = newX509EncodedKeySpec(publicKey, keyFactory);
             this.privateKey = newPKCS8EncodedKeySpec(privateKey, keyFactory);
+            this.publicKeyText = publicKey;
+            this.privateKeyText = privateKey;
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
             throw new CryptoException(e);
         }
@@ -84,6 +108,10 @@ public class RSACipher implements Cipher {
         }
     }
 
+    private boolean matches(String publicKey, String privateKey) {
+        return publicKey.equals(publicKeyText) && privateKey.equals(privateKeyText);
+    }
+
     private PublicKey newX509EncodedKeySpec(String publicKey, KeyFactory keyFactory) throws InvalidKeySpecException {
         byte[] bytes = publicKey.getBytes(StandardCharsets.UTF_8);
         X509EncodedKeySpec pubX509 = new X509EncodedKeySpec(Base64.getDecoder().decode(bytes));
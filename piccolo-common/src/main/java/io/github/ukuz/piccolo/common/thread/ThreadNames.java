@@ -49,5 +49,8 @@ public final class ThreadNames {
     public static final String T_MONITOR = "monitor";
     public static final String T_ZK = NS + "-zk";
     public static final String T_ID_GEN = NS + "-id-gen";
+    public static final String T_REDIS_BATCH = NS + "-redis-batch";
+    public static final String T_REDIS_PIPELINE = NS + "-redis-pipeline";
+    public static final String T_MQ_UPLINK = NS + "-mq-uplink";
 
 }
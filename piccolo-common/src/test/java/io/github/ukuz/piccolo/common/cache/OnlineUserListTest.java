@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.common.cache;
+
+import io.github.ukuz.piccolo.api.cache.CacheManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OnlineUserListTest {
+
+    private static final String IP = "10.0.0.1";
+
+    @Mock
+    private CacheManager cacheManager;
+    @Captor
+    private ArgumentCaptor<Collection<String>> keysCaptor;
+
+    private OnlineUserList onlineUserList;
+
+    @BeforeEach
+    void setUp() {
+        onlineUserList = new OnlineUserList(cacheManager, 3);
+    }
+
+    @DisplayName("test_addAsync_WithStableShard")
+    @Test
+    void testAddAsyncWithStableShard() {
+        onlineUserList.addAsync(IP, "user");
+        onlineUserList.removeAsync(IP, "user");
+
+        String key = CacheKeys.getOnlineUserListKey(IP, ("user".hashCode() & Integer.MAX_VALUE) % 3);
+        verify(cacheManager).zAddAsync(key, "\"user\"", 0);
+        verify(cacheManager).zRemAsync(key, "\"user\"");
+    }
+
+    @DisplayName("test_clear_WithFormerKey")
+    @Test
+    void testClearWithFormerKey() {
+        onlineUserList.clear(IP);
+
+        verify(cacheManager).unlink(keysCaptor.capture());
+        assertEquals(4, keysCaptor.getValue().size());
+        assertTrue(keysCaptor.getValue().contains(CacheKeys.getOnlineUserListKey(IP)));
+    }
+
+    @DisplayName("test_range_WithAcrossShards")
+    @Test
+    void testRangeWithAcrossShards() {
+        // shard sizes 2, 0, 3: the range 1..3 takes the last of the first shard and two of the third
+        when(cacheManager.zCard(anyList())).thenReturn(Arrays.asList(2L, 0L, 3L));
+        when(cacheManager.zrange(anyString(), anyInt(), anyInt(), eq(String.class))).thenReturn(Collections.singletonList("user"));
+
+        List<String> users = onlineUserList.range(Collections.singletonList(IP), 1, 3);
+
+        assertEquals(2, users.size());
+        verify(cacheManager).zrange(CacheKeys.getOnlineUserListKey(IP, 0), 1, 1, String.class);
+        verify(cacheManager).zrange(CacheKeys.getOnlineUserListKey(IP, 2), 0, 1, String.class);
+        assertEquals(5, onlineUserList.count(IP));
+    }
+
+    @DisplayName("test_range_WithNegativeIndexes")
+    @Test
+    void testRangeWithNegativeIndexes() {
+        when(cacheManager.zCard(anyList())).thenReturn(Arrays.asList(2L, 0L, 3L));
+        when(cacheManager.zrange(anyString(), anyInt(), anyInt(), eq(String.class))).thenReturn(Collections.singletonList("user"));
+
+        // 0..-1 is every user, as in ZRANGE
+        onlineUserList.range(Collections.singletonList(IP), 0, -1);
+        verify(cacheManager).zrange(CacheKeys.getOnlineUserListKey(IP, 0), 0, 1, String.class);
+        verify(cacheManager).zrange(CacheKeys.getOnlineUserListKey(IP, 2), 0, 2, String.class);
+
+        // the last two users
+        clearInvocations(cacheManager);
+        onlineUserList.range(Collections.singletonList(IP), -2, -1);
+        verify(cacheManager).zrange(CacheKeys.getOnlineUserListKey(IP, 2), 1, 2, String.class);
+        verify(cacheManager, never()).zrange(eq(CacheKeys.getOnlineUserListKey(IP, 0)), anyInt(), anyInt(), eq(String.class));
+
+        // beyond the first user
+        assertTrue(onlineUserList.range(Collections.singletonList(IP), 0, -6).isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.common.message;
+
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.api.connection.SessionContext;
+import io.github.ukuz.piccolo.api.exchange.protocol.Packet;
+import io.github.ukuz.piccolo.common.constants.CommandType;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MulticastPushMessageTest {
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Channel channel;
+
+    @Mock
+    private SessionContext sessionContext;
+
+    @BeforeEach
+    void setUp() {
+        when(connection.getChannel()).thenReturn(channel);
+        when(channel.alloc()).thenReturn(PooledByteBufAllocator.DEFAULT);
+        when(connection.getSessionContext()).thenReturn(sessionContext);
+        when(sessionContext.getCipher()).thenReturn(null);
+    }
+
+    @DisplayName("test_decode")
+    @Test
+    void testDecode() {
+        byte[] content = "hello".getBytes();
+        Packet packet = MulticastPushMessage.build(connection)
+                .content(content)
+                .userIds(Arrays.asList("u1", "用户2", "u3"))
+                .encodeBody();
+        assertEquals(CommandType.MULTICAST_PUSH, CommandType.toCMD(packet.getCommandType()));
+
+        MulticastPushMessage in = new MulticastPushMessage(connection);
+        in.decodeBody(packet);
+        assertArrayEquals(content, in.content);
+        assertEquals(Arrays.asList("u1", "用户2", "u3"), in.userIds);
+    }
+
+    @DisplayName("test_decode_WithNoUser")
+    @Test
+    void testDecodeWithNoUser() {
+        Packet packet = MulticastPushMessage.build(connection)
+                .content(new byte[]{1})
+                .userIds(Collections.emptyList())
+                .encodeBody();
+
+        MulticastPushMessage in = new MulticastPushMessage(connection);
+        in.decodeBody(packet);
+        assertTrue(in.userIds.isEmpty());
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.common.router;
+
+import io.github.ukuz.piccolo.api.router.ClientLocator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientLocatorCodecTest {
+
+    private static ClientLocator locator() {
+        ClientLocator locator = new ClientLocator()
+                .setHost("10.0.0.1")
+                .setPort(8087)
+                .setDeviceId("设备-1")
+                .setClientVersion("1.0.0")
+                .setOsVersion("10")
+                .setConnId("0a1b2c3d");
+        locator.setOsName("android");
+        return locator;
+    }
+
+    @DisplayName("test_decode_WithEncoded")
+    @Test
+    void testDecodeWithEncoded() {
+        ClientLocator decoded = ClientLocatorCodec.decode(ClientLocatorCodec.encode(locator()));
+
+        assertEquals(locator().toString(), decoded.toString());
+    }
+
+    @DisplayName("test_decode_WithLegacyJson")
+    @Test
+    void testDecodeWithLegacyJson() {
+        byte[] legacy = locator().toJson().getBytes(StandardCharsets.UTF_8);
+
+        ClientLocator decoded = ClientLocatorCodec.decode(legacy);
+
+        assertEquals(locator().toString(), decoded.toString());
+        assertTrue(ClientLocatorCodec.encode(locator()).length < legacy.length);
+    }
+
+    @DisplayName("test_encode_WithConnIdAfterVersion")
+    @Test
+    void testEncodeWithConnIdAfterVersion() {
+        // the layout the offline script relies on
+        byte[] online = ClientLocatorCodec.encode(locator());
+        byte[] offline = ClientLocatorCodec.encode(locator().offline());
+
+        assertEquals(ClientLocatorCodec.VERSION_1, online[0]);
+        assertEquals("0a1b2c3d".length() + 1, online[1]);
+        assertEquals("0a1b2c3d", new String(online, 2, online[1] - 1, StandardCharsets.UTF_8));
+        assertEquals(0, offline[1]);
+        assertArrayEquals(Arrays.copyOfRange(online, online[1] + 1, online.length),
+                Arrays.copyOfRange(offline, 2, offline.length));
+        assertTrue(ClientLocatorCodec.decode(offline).isOffline());
+    }
+
+    @DisplayName("test_decode_WithUnknownVersion")
+    @Test
+    void testDecodeWithUnknownVersion() {
+        assertNull(ClientLocatorCodec.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> ClientLocatorCodec.decode(new byte[]{9, 0}));
+    }
+}
@@ -33,7 +33,9 @@ import io.github.ukuz.piccolo.api.service.registry.ServiceRegistry;
 import io.github.ukuz.piccolo.api.spi.SpiLoader;
 import io.github.ukuz.piccolo.common.event.EventBus;
 import io.github.ukuz.piccolo.common.properties.CoreProperties;
+import io.github.ukuz.piccolo.core.dispatch.UplinkDispatcher;
 import io.github.ukuz.piccolo.core.endpoint.SpringConfiguration;
+import io.github.ukuz.piccolo.core.heartbeat.HeartbeatSupervisor;
 import io.github.ukuz.piccolo.core.id.snowflake.SnowflakeIdGen;
 import io.github.ukuz.piccolo.core.id.snowflake.ZooKeeperWorkerIdHolder;
 import io.github.ukuz.piccolo.core.router.RouterCenter;
@@ -60,6 +62,7 @@ public class PiccoloServer implements PiccoloContext {
     private final ConnectServer connectServer;
     private final WebSocketServer webSocketServer;
     private final ReusableSessionManager reusableSessionManager;
+    private final HeartbeatSupervisor heartbeatSupervisor;
     private final CacheManager cacheManager;
     private final MonitorExecutorFactory executorFactory;
     private final MQClient mqClient;
@@ -70,6 +73,7 @@ public class PiccoloServer implements PiccoloContext {
     private final RouterCenter routerCenter;
     private final RouteLocator routeLocator;
     private final IdGen idGen;
+    private final UplinkDispatcher uplinkDispatcher;
 
     public PiccoloServer() {
         //initialize config
@@ -85,13 +89,16 @@ public class PiccoloServer implements PiccoloContext {
         String srdChooser = StringUtils.hasText(core.getSrd()) ? core.getSrd() : ServiceRegistryAndDiscovery.DEFAULT;
         srd = SpiLoader.getLoader(ServiceRegistryAndDiscovery.class).getExtension(srdChooser);
 
-        mqClient = SpiLoader.getLoader(MQClient.class).getExtension();
+        String mqChooser = StringUtils.hasText(core.getMq()) ? core.getMq() : MQClient.DEFAULT;
+        mqClient = SpiLoader.getLoader(MQClient.class).getExtension(mqChooser);
 
         String configCenterChooser = StringUtils.hasText(core.getConfigCenter()) ? core.getConfigCenter() : DynamicConfiguration.DEFAULT;
         configCenter = SpiLoader.getLoader(DynamicConfiguration.class).getExtension(configCenterChooser);
 
         reusableSessionManager = new ReusableSessionManager(this);
 
+        heartbeatSupervisor = new HeartbeatSupervisor(this);
+
         cacheManager = SpiLoader.getLoader(CacheManager.class).getExtension();
 
         routerCenter = new RouterCenter(this);
@@ -101,6 +108,8 @@ public class PiccoloServer implements PiccoloContext {
         ZooKeeperWorkerIdHolder workerIdHolder = new ZooKeeperWorkerIdHolder(this);
         idGen = new SnowflakeIdGen(workerIdHolder);
 
+        uplinkDispatcher = new UplinkDispatcher(this);
+
         monitor = new MonitorService();
 
         gatewayServer = new GatewayServer(this);
@@ -186,10 +195,18 @@ public class PiccoloServer implements PiccoloContext {
         return reusableSessionManager;
     }
 
+    public HeartbeatSupervisor getHeartbeatSupervisor() {
+        return heartbeatSupervisor;
+    }
+
     public RouterCenter getRouterCenter() {
         return routerCenter;
     }
 
+    public UplinkDispatcher getUplinkDispatcher() {
+        return uplinkDispatcher;
+    }
+
     public RouteLocator getRouteLocator() {
         return routeLocator;
     }
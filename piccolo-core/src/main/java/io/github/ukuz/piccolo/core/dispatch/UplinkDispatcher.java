@@ -0,0 +1,290 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.dispatch;
+
+import io.github.ukuz.piccolo.api.PiccoloContext;
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.api.id.IdGen;
+import io.github.ukuz.piccolo.api.mq.MQClient;
+import io.github.ukuz.piccolo.api.service.AbstractService;
+import io.github.ukuz.piccolo.api.service.ServiceException;
+import io.github.ukuz.piccolo.common.message.DispatcherMessage;
+import io.github.ukuz.piccolo.common.message.ErrorMessage;
+import io.github.ukuz.piccolo.common.message.push.KafkaDispatcherMqMessage;
+import io.github.ukuz.piccolo.common.thread.NamedThreadFactory;
+import io.github.ukuz.piccolo.common.thread.ThreadNames;
+import io.github.ukuz.piccolo.core.properties.DispatchProperties;
+import io.github.ukuz.piccolo.monitor.MetricsMonitor;
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Uplink path from the client connections to the mq.
+ *
+ * the event loops only append the message to the bounded queue of its topic, a thread per topic generates the xid,
+ * encodes the message and hands it to the producer without waiting for the broker, the producer batches the records
+ * by linger.ms and batch.size. when the producer's buffer is full the send blocks the topic's thread, the queue fills
+ * up and the connections writing to it stop reading until the queue drained to a quarter.
+ *
+ * a message the producer failed to publish is queued again on the topic's thread, behind the messages taken after
+ * it, up to publishAttempts publishes in all. a message still failing, or not encoded, is answered with an error so
+ * the client can send it again: a message is either accepted by the producer or reported to its client.
+ *
+ * @author ukuz90
+ */
+public class UplinkDispatcher extends AbstractService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UplinkDispatcher.class);
+    private static final long IDLE_POLL_MS = 100;
+    private static final String METRICS_NAME = "uplink";
+
+    private final MQClient mqClient;
+    private final IdGen idGen;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final int publishAttempts;
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final LongAdder paused = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean running;
+
+    public UplinkDispatcher(PiccoloContext piccoloContext) {
+        this(piccoloContext.getMQClient(), piccoloContext.getIdGen(),
+                piccoloContext.getProperties(DispatchProperties.class).getUplinkQueueCapacity(),
+                piccoloContext.getProperties(DispatchProperties.class).getUplinkBatchSize(),
+                piccoloContext.getProperties(DispatchProperties.class).getUplinkPublishAttempts());
+    }
+
+    UplinkDispatcher(MQClient mqClient, IdGen idGen, int queueCapacity, int batchSize, int publishAttempts) {
+        this.mqClient = mqClient;
+        this.idGen = idGen;
+        this.queueCapacity = Math.max(queueCapacity, 4);
+        this.batchSize = Math.max(batchSize, 1);
+        this.publishAttempts = Math.max(publishAttempts, 1);
+    }
+
+    @Override
+    public void init() throws ServiceException {
+        running = true;
+        MetricsMonitor.monitorBackpressureCount(METRICS_NAME, "paused", paused::sum);
+        MetricsMonitor.monitorBackpressureCount(METRICS_NAME, "rejected", rejected::sum);
+        MetricsMonitor.monitorBackpressurePending(METRICS_NAME, this::getPending);
+        LOGGER.info("uplink dispatcher init, queueCapacity: {} batchSize: {} publishAttempts: {}", queueCapacity, batchSize, publishAttempts);
+    }
+
+    @Override
+    public void destroy() throws ServiceException {
+        running = false;
+        lanes.values().forEach(Lane::close);
+    }
+
+    /**
+     * queue the message for its topic, called by the event loop of the connection
+     *
+     * @param msg the message of the client, answered with an error if it can not be published
+     * @param topic
+     * @param uid
+     * @return false if the topic's queue is full or the dispatcher stopped, the message was not queued
+     */
+    public boolean dispatch(DispatcherMessage msg, String topic, String uid) {
+        if (!running) {
+            return false;
+        }
+        Connection connection = msg.getConnection();
+        Lane lane = lanes.computeIfAbsent(topic, Lane::new);
+        if (!lane.queue.offer(new Uplink(msg, uid))) {
+            rejected.increment();
+            lane.pause(connection);
+            return false;
+        }
+        if (lane.queue.size() >= lane.highWaterMark) {
+            lane.pause(connection);
+        }
+        return true;
+    }
+
+    public int getPending() {
+        int pending = 0;
+        for (Lane lane : lanes.values()) {
+            pending += lane.queue.size();
+        }
+        return pending;
+    }
+
+    public long getPaused() {
+        return paused.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private static final class Uplink {
+
+        private final DispatcherMessage msg;
+        private final String uid;
+        private final long enqueueTime = System.nanoTime();
+        /**
+         * publishes tried so far, the producer callback of a publish reads it before the next one is tried
+         */
+        private int attempts;
+
+        Uplink(DispatcherMessage msg, String uid) {
+            this.msg = msg;
+            this.uid = uid;
+        }
+    }
+
+    private final class Lane implements Runnable {
+
+        private final String topic;
+        private final BlockingQueue<Uplink> queue = new ArrayBlockingQueue<>(queueCapacity);
+        /**
+         * messages whose publish failed, sent again before the next drain of the queue
+         */
+        private final ConcurrentLinkedQueue<Uplink> retries = new ConcurrentLinkedQueue<>();
+        private final int highWaterMark = queueCapacity - queueCapacity / 4;
+        private final int lowWaterMark = queueCapacity / 4;
+        private final Map<Channel, Boolean> pausedChannels = new ConcurrentHashMap<>();
+        private final Thread thread;
+
+        Lane(String topic) {
+            this.topic = topic;
+            this.thread = new NamedThreadFactory(ThreadNames.T_MQ_UPLINK + "-" + topic).newThread(this);
+            this.thread.start();
+        }
+
+        void pause(Connection connection) {
+            Channel channel = connection.getChannel();
+            if (pausedChannels.putIfAbsent(channel, Boolean.TRUE) == null) {
+                channel.config().setAutoRead(false);
+                paused.increment();
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("uplink queue is full, pause reading, topic: {} conn: {}", topic, connection);
+                }
+            }
+        }
+
+        void resumeIfDrained() {
+            if (pausedChannels.isEmpty() || queue.size() > lowWaterMark) {
+                return;
+            }
+            // a connection paused by several topics may be resumed early, the next message pauses it again
+            pausedChannels.keySet().removeIf(channel -> {
+                channel.config().setAutoRead(true);
+                return true;
+            });
+        }
+
+        @Override
+        public void run() {
+            List<Uplink> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    Uplink retry;
+                    while ((retry = retries.poll()) != null) {
+                        send(retry);
+                    }
+                    Uplink first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        resumeIfDrained();
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    batch.forEach(this::send);
+                    resumeIfDrained();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    LOGGER.error("uplink dispatch failure, topic: {} cause: {}", topic, e);
+                } finally {
+                    batch.clear();
+                }
+            }
+            resumeIfDrained();
+        }
+
+        private void send(Uplink uplink) {
+            byte[] message;
+            try {
+                KafkaDispatcherMqMessage mqMessage = new KafkaDispatcherMqMessage();
+                mqMessage.setXid(idGen.get("dispatch"));
+                mqMessage.setMqClient(mqClient);
+                mqMessage.setPayload(uplink.msg.payload);
+                mqMessage.setUid(uplink.uid);
+                message = mqMessage.encode();
+            } catch (Exception e) {
+                LOGGER.error("uplink encode failure, topic: {} uid: {} cause: {}", topic, uplink.uid, e);
+                fail(uplink, "dispatch failure");
+                return;
+            }
+            uplink.attempts++;
+            mqClient.publishAsync(topic, uplink.uid, message).whenComplete((v, e) -> {
+                if (e == null) {
+                    record(uplink, "success");
+                } else if (uplink.attempts < publishAttempts && running) {
+                    retries.offer(uplink);
+                    LOGGER.warn("uplink publish failure, retry, attempts: {} topic: {} uid: {} cause: {}", uplink.attempts, topic, uplink.uid, e.getMessage());
+                } else {
+                    LOGGER.error("uplink publish failure, attempts: {} topic: {} uid: {} conn: {} cause: {}",
+                            uplink.attempts, topic, uplink.uid, uplink.msg.getConnection(), e.getMessage());
+                    fail(uplink, "dispatch failure");
+                }
+            });
+        }
+
+        /**
+         * the message is given up, let its client know
+         */
+        private void fail(Uplink uplink, String reason) {
+            record(uplink, "failure");
+            uplink.msg.getConnection().sendAsync(ErrorMessage.build(uplink.msg).reason(reason));
+        }
+
+        private void record(Uplink uplink, String result) {
+            MetricsMonitor.getMqSendTimer(topic, result).record(System.nanoTime() - uplink.enqueueTime, TimeUnit.NANOSECONDS);
+        }
+
+        void close() {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!queue.isEmpty()) {
+                LOGGER.warn("uplink dispatcher closed with pending messages, topic: {} size: {}", topic, queue.size());
+            }
+            Uplink retry;
+            while ((retry = retries.poll()) != null) {
+                fail(retry, "dispatch failure");
+            }
+        }
+    }
+}
@@ -29,7 +29,6 @@ import io.github.ukuz.piccolo.common.message.BindUserMessage;
 import io.github.ukuz.piccolo.common.message.ErrorMessage;
 import io.github.ukuz.piccolo.common.message.OkMessage;
 import io.github.ukuz.piccolo.common.message.UnbindUserMessage;
-import io.github.ukuz.piccolo.common.router.RemoteRouter;
 import io.github.ukuz.piccolo.core.PiccoloServer;
 import io.github.ukuz.piccolo.core.router.LocalRouter;
 import io.github.ukuz.piccolo.core.router.RouterCenter;
@@ -37,6 +36,8 @@ import io.netty.util.internal.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author ukuz90
  */
@@ -77,6 +78,7 @@ public class BindUserHandler extends ChannelHandlerDelegateAdapter {
         SessionContext context = connection.getSessionContext();
         if (context.handshakeOk()) {
             //处理重复绑定问题
+            CompletableFuture<Void> unbound = CompletableFuture.completedFuture(null);
             if (context.getUserId() != null) {
                 if (context.getUserId().equals(msg.userId)) {
                     context.setTags(msg.tags);
@@ -84,7 +86,7 @@ public class BindUserHandler extends ChannelHandlerDelegateAdapter {
                     logger.info("bind user success, userId: {} conn: {}", msg.userId, connection);
                     return;
                 } else {
-                    unbind(connection, UnbindUserMessage.from(connection, msg));
+                    unbound = unbind(connection, UnbindUserMessage.from(connection, msg));
                 }
             }
 
@@ -93,20 +95,29 @@ public class BindUserHandler extends ChannelHandlerDelegateAdapter {
 
             //向路由中心注册用户
             RouterCenter routerCenter = ((PiccoloServer)piccoloContext).getRouterCenter();
-            boolean success = routerCenter.register(msg.userId, connection);
-
-            if (success) {
+            //注册结果在连接所属的event loop上处理，不阻塞在redis上
+            unbound.thenCompose(v -> {
+                //注册前先记下userId, 注册期间连接关闭或再次绑定时都能找到这个用户
                 context.setUserId(msg.userId);
-                context.setTags(msg.tags);
-                EventBus.post(new UserOnlineEvent(msg.userId, connection));
-                connection.sendAsync(OkMessage.build(msg).data("bind success"));
-                logger.info("bind success, userId: {} conn: {}", msg.userId, connection);
-            } else {
-                //若注册失败，则注销用户
-                routerCenter.unRegister(msg.userId, context.getClientType());
-                connection.sendAsyncAndClose(ErrorMessage.build(msg).reason("bind failure"));
-                logger.info("bind failure, userId: {} conn: {}", msg.userId, connection);
-            }
+                return routerCenter.registerAsync(msg.userId, connection);
+            }).whenCompleteAsync((success, e) -> {
+                if (connection.isClosed() || !msg.userId.equals(context.getUserId())) {
+                    //注册期间连接已关闭或已被其他绑定取代, 回滚仍指向这个连接的路由
+                    routerCenter.unRegisterAsync(msg.userId, connection);
+                    logger.info("bind abandoned, userId: {} current userId: {} conn: {}", msg.userId, context.getUserId(), connection);
+                } else if (e == null && success) {
+                    context.setTags(msg.tags);
+                    EventBus.post(new UserOnlineEvent(msg.userId, connection));
+                    connection.sendAsync(OkMessage.build(msg).data("bind success"));
+                    logger.info("bind success, userId: {} conn: {}", msg.userId, connection);
+                } else {
+                    //若注册失败，则注销仍指向这个连接的路由
+                    context.setUserId(null);
+                    routerCenter.unRegisterAsync(msg.userId, connection);
+                    connection.sendAsyncAndClose(ErrorMessage.build(msg).reason("bind failure"));
+                    logger.info("bind failure, userId: {} conn: {} cause: {}", msg.userId, connection, e);
+                }
+            }, connection.getChannel().eventLoop());
 
         } else {
             connection.sendAsyncAndClose(ErrorMessage.build(msg).reason("not handshake"));
@@ -115,11 +126,11 @@ public class BindUserHandler extends ChannelHandlerDelegateAdapter {
         }
     }
 
-    private void unbind(Connection connection, UnbindUserMessage msg) {
+    private CompletableFuture<Void> unbind(Connection connection, UnbindUserMessage msg) {
         if (Strings.isNullOrEmpty(msg.userId)) {
             connection.sendAsyncAndClose(ErrorMessage.build(msg).reason("invalid param"));
             logger.error("unbind user failure or invalid param, conn: {}", connection);
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         //1.解绑用户时先看下是否握手成功
         SessionContext context = connection.getSessionContext();
@@ -127,41 +138,43 @@ public class BindUserHandler extends ChannelHandlerDelegateAdapter {
             String userId = msg.userId;
             byte clientType = context.getClientType();
             //2.先删除远程路由, 必须是同一个设备才允许解绑
-            boolean success = true;
             RouterCenter routerCenter = ((PiccoloServer)piccoloContext).getRouterCenter();
-            RemoteRouter remoteRouter = routerCenter.lookupRemote(userId, clientType);
-            if (remoteRouter != null) {
-                String deviceId = remoteRouter.getRouterValue().getDeviceId();
-                if (context.getDeviceId().equals(deviceId)) {
-                    success = routerCenter.unRegisterRemote(userId, clientType);
+            return routerCenter.lookupRemoteAsync(userId, clientType).thenCompose(remoteRouter -> {
+                if (remoteRouter != null && context.getDeviceId().equals(remoteRouter.getRouterValue().getDeviceId())) {
+                    return routerCenter.unRegisterRemoteAsync(userId, clientType);
                 }
-            }
-
-            //3.删除本地路由信息
-            if (success) {
-                LocalRouter localRouter = routerCenter.lookupLocal(userId, clientType);
-                if (localRouter != null) {
-                    String deviceId = localRouter.getRouterValue().getSessionContext().getDeviceId();
-                    if (context.getDeviceId().equals(deviceId)) {
-                        success = routerCenter.unRegisterLocal(userId, clientType);
+                return CompletableFuture.completedFuture(true);
+            }).handleAsync((removed, e) -> {
+                boolean success = e == null && removed;
+
+                //3.删除本地路由信息
+                if (success) {
+                    LocalRouter localRouter = routerCenter.lookupLocal(userId, clientType);
+                    if (localRouter != null) {
+                        String deviceId = localRouter.getRouterValue().getSessionContext().getDeviceId();
+                        if (context.getDeviceId().equals(deviceId)) {
+                            success = routerCenter.unRegisterLocal(userId, clientType);
+                        }
                     }
                 }
-            }
 
-            //4.路由删除成功，广播用户下线事件
-            if (success) {
-                context.setUserId(null);
-                context.setTags(null);
-                connection.sendAsync(OkMessage.build(msg).data("unbind success"));
-                EventBus.post(new UserOfflineEvent(userId, connection));
-                logger.info("unbind success, userId: {} conn: {}", userId, connection);
-            } else {
-                connection.sendAsyncAndClose(ErrorMessage.build(msg).reason("unbind failure"));
-                logger.error("unbind failure, userId: {} conn: {}", userId, connection);
-            }
+                //4.路由删除成功，广播用户下线事件
+                if (success) {
+                    context.setUserId(null);
+                    context.setTags(null);
+                    connection.sendAsync(OkMessage.build(msg).data("unbind success"));
+                    EventBus.post(new UserOfflineEvent(userId, connection));
+                    logger.info("unbind success, userId: {} conn: {}", userId, connection);
+                } else {
+                    connection.sendAsyncAndClose(ErrorMessage.build(msg).reason("unbind failure"));
+                    logger.error("unbind failure, userId: {} conn: {} cause: {}", userId, connection, e);
+                }
+                return null;
+            }, connection.getChannel().eventLoop());
         } else {
             connection.sendAsyncAndClose(ErrorMessage.build(msg).reason("not handshake"));
             logger.error("not handshake, conn: {}", connection);
+            return CompletableFuture.completedFuture(null);
         }
 
     }
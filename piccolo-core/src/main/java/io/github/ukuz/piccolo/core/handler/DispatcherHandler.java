@@ -16,19 +16,18 @@
 package io.github.ukuz.piccolo.core.handler;
 
 import io.github.ukuz.piccolo.api.PiccoloContext;
-import io.github.ukuz.piccolo.api.common.remote.FailoverInvoker;
 import io.github.ukuz.piccolo.api.common.utils.StringUtils;
 import io.github.ukuz.piccolo.api.connection.Connection;
 import io.github.ukuz.piccolo.api.connection.SessionContext;
 import io.github.ukuz.piccolo.api.exchange.ExchangeException;
 import io.github.ukuz.piccolo.api.exchange.handler.ChannelHandler;
 import io.github.ukuz.piccolo.api.external.common.Assert;
-import io.github.ukuz.piccolo.api.mq.MQClient;
 import io.github.ukuz.piccolo.api.route.RouteLocator;
 import io.github.ukuz.piccolo.api.spi.SpiLoader;
 import io.github.ukuz.piccolo.common.message.DispatcherMessage;
 import io.github.ukuz.piccolo.common.message.ErrorMessage;
-import io.github.ukuz.piccolo.common.message.push.KafkaDispatcherMqMessage;
+import io.github.ukuz.piccolo.core.PiccoloServer;
+import io.github.ukuz.piccolo.core.dispatch.UplinkDispatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,36 +77,21 @@ public class DispatcherHandler implements ChannelHandler {
             if (context.getUserId() == null) {
                 connection.sendAsyncAndClose(ErrorMessage.build(msg).reason("not bind user"));
                 LOGGER.error("dispatcher failure, cause: not bind user");
+                return;
             }
-            FailoverInvoker invoker = new FailoverInvoker();
-            try {
-                invoker.invoke(() -> {
-                    MQClient client = piccoloContext.getMQClient();
-                    long xid = piccoloContext.getIdGen().get("dispatch");
-                    String uid = connection.getSessionContext().getUserId();
-                    String topic = (String) routeLocator.getRoute(msg.routeKey);
-
-                    KafkaDispatcherMqMessage mqMessage = new KafkaDispatcherMqMessage();
-                    mqMessage.setXid(xid);
-                    mqMessage.setMqClient(client);
-                    mqMessage.setPayload(msg.payload);
-                    mqMessage.setUid(uid);
-
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug("dispatcher routeKey: {} topic: {}", msg.routeKey, topic);
-                    }
-                    if (StringUtils.hasText(topic)) {
-                        client.publish(topic, uid, mqMessage.encode());
-                    } else {
-                        //识别不到的路由
-                        LOGGER.warn("dispatcher can not found topic, routeKey: {} topic: {}", msg.routeKey, topic);
-                        client.publish(DISPATCH_MESSAGE.getTopic(), uid, mqMessage.encode());
-                    }
-
-                    return null;
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
+            String topic = (String) routeLocator.getRoute(msg.routeKey);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("dispatcher routeKey: {} topic: {}", msg.routeKey, topic);
+            }
+            if (!StringUtils.hasText(topic)) {
+                //识别不到的路由
+                LOGGER.warn("dispatcher can not found topic, routeKey: {} topic: {}", msg.routeKey, topic);
+                topic = DISPATCH_MESSAGE.getTopic();
+            }
+            UplinkDispatcher uplinkDispatcher = ((PiccoloServer) piccoloContext).getUplinkDispatcher();
+            if (!uplinkDispatcher.dispatch(msg, topic, context.getUserId())) {
+                connection.sendAsync(ErrorMessage.build(msg).reason("server busy"));
+                LOGGER.warn("dispatcher rejected, the uplink queue is full, topic: {} conn: {}", topic, connection);
             }
         } else {
             connection.close();
@@ -47,44 +47,56 @@ public class FastConnectHandler extends ChannelHandlerDelegateAdapter {
         if (message instanceof FastConnectMessage) {
             FastConnectMessage msg = (FastConnectMessage) message;
             ReusableSessionManager reusableSessionManager = ((PiccoloServer)piccoloContext).getReusableSessionManager();
-            ReusableSession session = reusableSessionManager.querySession(msg.sessionId);
-            if (session == null) {
+            //查询结果在连接所属的event loop上处理，不阻塞在redis上
+            reusableSessionManager.querySessionAsync(msg.sessionId).whenCompleteAsync((session, e) -> {
+                if (e != null) {
+                    connection.sendAsync(ErrorMessage.build(msg).code(ErrorCode.REPEAT_HANDSHAKE));
+                    logger.error("fast connect failure, query session failure, sessionId: {} deviceId: {} conn: {} cause: {}",
+                            msg.sessionId, msg.deviceId, connection, e);
+                } else {
+                    fastConnect(connection, msg, session);
+                }
+            }, connection.getChannel().eventLoop());
+        } else {
+            super.received(connection, message);
+        }
+    }
 
-                //1.没查到说明session已经失效了
-                connection.sendAsync(ErrorMessage.build(msg).code(ErrorCode.REPEAT_HANDSHAKE));
-                logger.warn("fast connect failure, session was expired, sessionId: {} deviceId: {} conn: {}",
-                        msg.sessionId, msg.deviceId, connection);
+    private void fastConnect(Connection connection, FastConnectMessage msg, ReusableSession session) {
+        if (session == null) {
 
-            } else if (!session.getContext().getDeviceId().equals(msg.deviceId)) {
+            //1.没查到说明session已经失效了
+            connection.sendAsync(ErrorMessage.build(msg).code(ErrorCode.REPEAT_HANDSHAKE));
+            logger.warn("fast connect failure, session was expired, sessionId: {} deviceId: {} conn: {}",
+                    msg.sessionId, msg.deviceId, connection);
 
-                //2.非法的设备, 当前设备不是上次生成session时的设备
-                connection.sendAsync(ErrorMessage.build(msg).code(ErrorCode.INVALID_DEVICE));
-                logger.warn("fast connect failure, not the same device, sessionId: {} deviceId: {} conn: {}",
-                        msg.sessionId, msg.deviceId, connection);
+        } else if (!session.getContext().getDeviceId().equals(msg.deviceId)) {
 
-            } else {
+            //2.非法的设备, 当前设备不是上次生成session时的设备
+            connection.sendAsync(ErrorMessage.build(msg).code(ErrorCode.INVALID_DEVICE));
+            logger.warn("fast connect failure, not the same device, sessionId: {} deviceId: {} conn: {}",
+                    msg.sessionId, msg.deviceId, connection);
 
-                //3.校验成功，重新计算心跳，完成快速重连
-                CoreProperties core = piccoloContext.getProperties(CoreProperties.class);
-                int heartbeat = Math.max(core.getMinHeartbeatTime(), Math.min(msg.maxHeartbeat, core.getMaxHeartbeatTime()));
+        } else {
 
-                FastConnectOkMessage okMessage = FastConnectOkMessage.build(connection)
-                        .heartbeat(heartbeat);
+            //3.校验成功，重新计算心跳，完成快速重连
+            CoreProperties core = piccoloContext.getProperties(CoreProperties.class);
+            int heartbeat = Math.max(core.getMinHeartbeatTime(), Math.min(msg.maxHeartbeat, core.getMaxHeartbeatTime()));
 
-                //不加密发送
-                connection.sendRawAsync(okMessage, future -> {
-                    if (future.isSuccess()) {
-                        //4. 恢复缓存的会话信息(包含会话密钥等)
-                        connection.setSessionContext(session.getContext());
-                        logger.info("fast connect success, session: {} conn: {}", session.getContext(), connection);
-                    } else {
-                        logger.warn("fast connect failure, session: {} conn: {} cause: {}", session.getContext(), connection, future.cause());
-                    }
-                });
+            FastConnectOkMessage okMessage = FastConnectOkMessage.build(connection)
+                    .heartbeat(heartbeat);
+
+            //不加密发送
+            connection.sendRawAsync(okMessage, future -> {
+                if (future.isSuccess()) {
+                    //4. 恢复缓存的会话信息(包含会话密钥等)
+                    connection.setSessionContext(session.getContext());
+                    logger.info("fast connect success, session: {} conn: {}", session.getContext(), connection);
+                } else {
+                    logger.warn("fast connect failure, session: {} conn: {} cause: {}", session.getContext(), connection, future.cause());
+                }
+            });
 
-            }
-        } else {
-            super.received(connection, message);
         }
     }
 }
@@ -124,7 +124,11 @@ public class HandshakeServerHandler extends ChannelHandlerDelegateAdapter {
                         .setHeartbeat(heartbeat);
 
                 //9. 保存当前session到缓存中，用来快速重连
-                reusableSessionManager.cacheSession(session);
+                reusableSessionManager.cacheSessionAsync(session).whenComplete((v, e) -> {
+                    if (e != null) {
+                        logger.warn("cache session failure, sessionId: {} conn: {} cause: {}", session.getSessionId(), connection, e);
+                    }
+                });
 
                 logger.info("handshake success, conn: {}", connection);
             } else {
@@ -21,6 +21,7 @@ import io.github.ukuz.piccolo.api.exchange.ExchangeException;
 import io.github.ukuz.piccolo.api.exchange.handler.ChannelHandler;
 import io.github.ukuz.piccolo.api.exchange.handler.ChannelHandlerDelegateAdapter;
 import io.github.ukuz.piccolo.common.message.HeartbeatMessage;
+import io.github.ukuz.piccolo.core.PiccoloServer;
 
 /**
  * @author ukuz90
@@ -32,6 +33,12 @@ public class HeartbeatHandler extends ChannelHandlerDelegateAdapter {
         super(piccoloContext, handler);
     }
 
+    @Override
+    public void connected(Connection connection) throws ExchangeException {
+        ((PiccoloServer) piccoloContext).getHeartbeatSupervisor().watch(connection);
+        super.connected(connection);
+    }
+
     @Override
     public void received(Connection connection, Object message) throws ExchangeException {
         if (message instanceof HeartbeatMessage) {
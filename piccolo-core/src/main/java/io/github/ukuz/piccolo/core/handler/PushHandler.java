@@ -21,14 +21,15 @@ import io.github.ukuz.piccolo.api.connection.Connection;
 import io.github.ukuz.piccolo.api.exchange.ExchangeException;
 import io.github.ukuz.piccolo.api.exchange.handler.ChannelHandler;
 import io.github.ukuz.piccolo.common.message.DispatcherResponseMessage;
+import io.github.ukuz.piccolo.common.message.MulticastPushMessage;
 import io.github.ukuz.piccolo.common.message.PushMessage;
 import io.github.ukuz.piccolo.core.PiccoloServer;
-import io.github.ukuz.piccolo.core.router.LocalRouter;
+import io.github.ukuz.piccolo.core.push.BroadcastEngine;
+import io.github.ukuz.piccolo.core.push.BroadcastProgress;
+import io.github.ukuz.piccolo.core.router.LocalRouterSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Set;
-
 /**
  * @author ukuz90
  */
@@ -37,9 +38,11 @@ public class PushHandler implements ChannelHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(PushHandler.class);
 
     private final PiccoloContext piccoloContext;
+    private final BroadcastEngine broadcastEngine;
 
     public PushHandler(PiccoloContext piccoloContext) {
         this.piccoloContext = piccoloContext;
+        this.broadcastEngine = new BroadcastEngine((PiccoloServer) piccoloContext);
     }
 
     @Override
@@ -64,21 +67,17 @@ public class PushHandler implements ChannelHandler {
 
             PiccoloServer piccoloServer = (PiccoloServer) piccoloContext;
             if (msg.broadcast) {
-                Set<LocalRouter> localRouters = piccoloServer.getRouterCenter().lookupLocalAll();
-                localRouters.forEach(localRouter -> {
-                    Connection conn = localRouter.getRouterValue();
-                    conn.sendAsync(DispatcherResponseMessage.build(connection).payload(msg.content));
-                });
+                BroadcastProgress progress = broadcastEngine.broadcast(connection, msg.content);
                 if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("broadcast message, msg: {} conn's size: {}", msg, localRouters.size());
+                    LOGGER.debug("broadcast message, msg: {} progress: {}", msg, progress);
                 }
             } else if (StringUtils.hasText(msg.userId)) {
-                Set<LocalRouter> localRouters = piccoloServer.getRouterCenter().lookupLocal(msg.userId);
-                if (localRouters != null && !localRouters.isEmpty()) {
-                    localRouters.forEach(localRouter -> {
-                        Connection conn = localRouter.getRouterValue();
-                        conn.sendAsync(DispatcherResponseMessage.build(connection).payload(msg.content));
-                    });
+                LocalRouterSet localRouters = piccoloServer.getRouterCenter().lookupLocal(msg.userId);
+                if (!localRouters.isEmpty()) {
+                    for (int i = 0; i < localRouters.size(); i++) {
+                        Connection conn = localRouters.get(i).getRouterValue();
+                        conn.sendAsync(DispatcherResponseMessage.build(conn).payload(msg.content));
+                    }
                     if (LOGGER.isDebugEnabled()) {
                         LOGGER.debug("send a message, msg: {} conn's size: {}", msg, localRouters.size());
                     }
@@ -89,6 +88,16 @@ public class PushHandler implements ChannelHandler {
                 LOGGER.error("received a invalid message, msg: {} conn: {}", message, connection);
             }
 
+        } else if (message instanceof MulticastPushMessage) {
+            MulticastPushMessage msg = (MulticastPushMessage) message;
+            if (msg.userIds.isEmpty()) {
+                LOGGER.error("received a invalid message, msg: {} conn: {}", message, connection);
+                return;
+            }
+            BroadcastProgress progress = broadcastEngine.multicast(connection, msg.userIds, msg.content);
+            if (progress.getTotal() == 0) {
+                LOGGER.warn("can not found alive connection, msg: {}", msg);
+            }
         } else {
             connection.close();
             LOGGER.error("handler unknown message, message: {} conn: {}", message, connection);
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.heartbeat;
+
+import io.github.ukuz.piccolo.api.PiccoloContext;
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.api.service.AbstractService;
+import io.github.ukuz.piccolo.api.service.ServiceException;
+import io.github.ukuz.piccolo.common.properties.CoreProperties;
+import io.github.ukuz.piccolo.common.thread.NamedThreadFactory;
+import io.github.ukuz.piccolo.common.thread.ThreadNames;
+import io.github.ukuz.piccolo.monitor.MetricsMonitor;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Close the connections which did not send anything within the negotiated heartbeat plus
+ * {@link CoreProperties#getMaxHbTimeoutMs()}.
+ *
+ * every connection owns a single timeout in a hashed timing wheel, reads never touch the wheel, when the
+ * timeout expires the idle time is checked against the last read time and the timeout is re-armed for the
+ * remaining time, so a live connection costs one wheel insert per heartbeat period.
+ *
+ * @author ukuz90
+ */
+public final class HeartbeatSupervisor extends AbstractService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HeartbeatSupervisor.class);
+
+    private final AtomicLong watching = new AtomicLong();
+    private final LongAdder evicted = new LongAdder();
+    private final long toleranceMs;
+    private final long tickMs;
+    private final int ticksPerWheel;
+    private volatile HashedWheelTimer timer;
+
+    public HeartbeatSupervisor(PiccoloContext piccoloContext) {
+        CoreProperties core = piccoloContext.getProperties(CoreProperties.class);
+        this.toleranceMs = core.getMaxHbTimeoutMs() == null ? 0 : core.getMaxHbTimeoutMs();
+        this.tickMs = core.getHbCheckTickMs() == null ? 1000 : core.getHbCheckTickMs();
+        this.ticksPerWheel = core.getHbCheckTicksPerWheel() == null ? 512 : core.getHbCheckTicksPerWheel();
+    }
+
+    @Override
+    public void init() throws ServiceException {
+        timer = new HashedWheelTimer(new NamedThreadFactory(ThreadNames.T_CONN_TIMER), tickMs, TimeUnit.MILLISECONDS, ticksPerWheel);
+        timer.start();
+        MetricsMonitor.monitorHeartbeat("watching", watching::get);
+        MetricsMonitor.monitorHeartbeat("evicted", evicted::sum);
+        LOGGER.info("heartbeat supervisor init, tick: {}ms, ticksPerWheel: {}, tolerance: {}ms", tickMs, ticksPerWheel, toleranceMs);
+    }
+
+    @Override
+    public void destroy() throws ServiceException {
+        HashedWheelTimer timer = this.timer;
+        this.timer = null;
+        if (timer != null) {
+            int unprocessed = timer.stop().size();
+            watching.addAndGet(-unprocessed);
+        }
+    }
+
+    /**
+     * start checking the heartbeat of the connection until it is closed
+     *
+     * @param connection
+     */
+    public void watch(Connection connection) {
+        HashedWheelTimer timer = this.timer;
+        if (timer == null) {
+            return;
+        }
+        long timeout = timeoutOf(connection);
+        if (timeout < 0) {
+            return;
+        }
+        watching.incrementAndGet();
+        timer.newTimeout(new HeartbeatCheck(connection), timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return -1 if the connection negotiated no heartbeat
+     */
+    private long timeoutOf(Connection connection) {
+        int heartbeat = connection.getSessionContext().getHeartbeat();
+        if (heartbeat == Integer.MAX_VALUE) {
+            return -1;
+        }
+        return Math.max(heartbeat, 0) + toleranceMs;
+    }
+
+    public long getWatching() {
+        return watching.get();
+    }
+
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    private final class HeartbeatCheck implements TimerTask {
+
+        private final Connection connection;
+
+        HeartbeatCheck(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            long maxIdle = timeoutOf(connection);
+            if (connection.isClosed() || maxIdle < 0) {
+                watching.decrementAndGet();
+                return;
+            }
+            long idle = System.currentTimeMillis() - connection.getLastReadTime();
+            if (idle >= maxIdle) {
+                watching.decrementAndGet();
+                evicted.increment();
+                LOGGER.info("heartbeat timeout, close connection: {} idle: {}ms", connection, idle);
+                connection.close();
+                return;
+            }
+            HashedWheelTimer timer = HeartbeatSupervisor.this.timer;
+            if (timer == null) {
+                watching.decrementAndGet();
+                return;
+            }
+            timer.newTimeout(this, maxIdle - idle, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.properties;
+
+import io.github.ukuz.piccolo.api.config.ConfigurationProperties;
+import io.github.ukuz.piccolo.api.config.Properties;
+import lombok.Data;
+
+/**
+ * @author ukuz90
+ */
+@ConfigurationProperties(prefix = "piccolo.dispatch")
+@Data
+public class DispatchProperties implements Properties {
+
+    /**
+     * max uplink messages queued for one topic, the connections stop reading from three quarters of it
+     */
+    private int uplinkQueueCapacity = 8192;
+    /**
+     * max uplink messages handed to the producer in one drain
+     */
+    private int uplinkBatchSize = 256;
+    /**
+     * max publishes of an uplink message, a message still failing is answered with an error
+     */
+    private int uplinkPublishAttempts = 3;
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.properties;
+
+import io.github.ukuz.piccolo.api.config.ConfigurationProperties;
+import io.github.ukuz.piccolo.api.config.Properties;
+import lombok.Data;
+
+/**
+ * @author ukuz90
+ */
+@ConfigurationProperties(prefix = "piccolo.push")
+@Data
+public class PushProperties implements Properties {
+
+    /**
+     * broadcast budget in msgs/sec shared by all the broadcasts and multicasts of the node, 0 means unlimited
+     */
+    private int broadcastRateLimit;
+    /**
+     * max connections written by one event loop task
+     */
+    private int broadcastBatchSize = 1024;
+
+}
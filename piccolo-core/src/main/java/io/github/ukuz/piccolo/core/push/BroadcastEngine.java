@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.push;
+
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.common.message.DispatcherResponseMessage;
+import io.github.ukuz.piccolo.core.PiccoloServer;
+import io.github.ukuz.piccolo.core.properties.PushProperties;
+import io.github.ukuz.piccolo.core.router.LocalRouterSet;
+import io.github.ukuz.piccolo.transport.codec.BinaryPacketCodec;
+import io.github.ukuz.piccolo.transport.codec.CodecException;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoop;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broadcast and multicast fan-out partitioned by the connection's event loop.
+ *
+ * the frame is encoded once, connections are grouped by their {@link EventLoop} and each loop receives batched
+ * tasks which hand a duplicate of the frame to every connection of the batch, so no cross-thread task is submitted
+ * per message. the connection flushes it according to its flush mode and holds it back when it is not writable.
+ * batches are scheduled round-robin across the loops and delayed to fit the configured msgs/sec budget, the budget
+ * is shared by every broadcast and multicast of the node so concurrent fan-outs queue up behind each other.
+ *
+ * @author ukuz90
+ */
+public class BroadcastEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BroadcastEngine.class);
+
+    private static final BinaryPacketCodec FRAME_CODEC = new BinaryPacketCodec();
+    private static final int MAX_TRACKED_PROGRESS = 64;
+
+    private final PiccoloServer piccoloServer;
+    private final int rateLimit;
+    private final int batchSize;
+    private final AtomicLong broadcastIdSeq = new AtomicLong();
+    /**
+     * the {@link System#nanoTime()} from which the budget is free again
+     */
+    private final AtomicLong nextSendNanos = new AtomicLong(System.nanoTime());
+    private final Map<Long, BroadcastProgress> progresses = Collections.synchronizedMap(
+            new LinkedHashMap<Long, BroadcastProgress>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, BroadcastProgress> eldest) {
+                    return size() > MAX_TRACKED_PROGRESS;
+                }
+            });
+
+    public BroadcastEngine(PiccoloServer piccoloServer) {
+        this.piccoloServer = piccoloServer;
+        PushProperties push = piccoloServer.getProperties(PushProperties.class);
+        this.rateLimit = Math.max(push.getBroadcastRateLimit(), 0);
+        this.batchSize = push.getBroadcastBatchSize() > 0 ? push.getBroadcastBatchSize() : 1024;
+    }
+
+    /**
+     * broadcast the content to every local connection
+     *
+     * @param connection the connection which the push came from, only used to encode the shared frame
+     * @param content payload
+     * @return the progress of this broadcast
+     */
+    public BroadcastProgress broadcast(Connection connection, byte[] content) {
+        List<Connection> targets = new ArrayList<>();
+        piccoloServer.getRouterCenter().forEachLocal(localRouter -> targets.add(localRouter.getRouterValue()));
+        BroadcastProgress progress = fanOut(connection, content, targets);
+        progresses.put(progress.getBroadcastId(), progress);
+        LOGGER.info("broadcast scheduled, id: {} conn's size: {}", progress.getBroadcastId(), targets.size());
+        return progress;
+    }
+
+    /**
+     * send the content to every local connection of the users, with the same batched fan-out as a broadcast
+     *
+     * @param connection the connection which the push came from, only used to encode the shared frame
+     * @param userIds the target users, the ones not connected to this gateway are ignored
+     * @param content payload
+     * @return the progress of this multicast, not tracked so frequent multicasts do not evict the broadcasts
+     */
+    public BroadcastProgress multicast(Connection connection, Collection<String> userIds, byte[] content) {
+        List<Connection> targets = new ArrayList<>();
+        for (String userId : userIds) {
+            LocalRouterSet localRouters = piccoloServer.getRouterCenter().lookupLocal(userId);
+            for (int i = 0; i < localRouters.size(); i++) {
+                targets.add(localRouters.get(i).getRouterValue());
+            }
+        }
+        BroadcastProgress progress = fanOut(connection, content, targets);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("multicast scheduled, id: {} user's size: {} conn's size: {}",
+                    progress.getBroadcastId(), userIds.size(), targets.size());
+        }
+        return progress;
+    }
+
+    public BroadcastProgress getProgress(long broadcastId) {
+        return progresses.get(broadcastId);
+    }
+
+    public Collection<BroadcastProgress> getProgresses() {
+        synchronized (progresses) {
+            return new ArrayList<>(progresses.values());
+        }
+    }
+
+    /**
+     * encode the frame once and schedule the batches of every event loop
+     *
+     * @param connection the connection which the push came from, only used to encode the shared frame
+     * @param content payload
+     * @param targets the connections to send to
+     * @return the progress of the fan-out
+     */
+    BroadcastProgress fanOut(Connection connection, byte[] content, List<Connection> targets) {
+        BroadcastProgress progress = new BroadcastProgress(broadcastIdSeq.incrementAndGet(), targets.size());
+        if (targets.isEmpty()) {
+            return progress;
+        }
+
+        Map<EventLoop, List<Connection>> partitions = new IdentityHashMap<>();
+        for (Connection conn : targets) {
+            partitions.computeIfAbsent(conn.getChannel().eventLoop(), k -> new ArrayList<>()).add(conn);
+        }
+
+        ByteBuf frame = encodeSharedFrame(connection, content);
+        try {
+            schedule(partitions, frame, content, progress);
+        } finally {
+            frame.release();
+        }
+        return progress;
+    }
+
+    private void schedule(Map<EventLoop, List<Connection>> partitions, ByteBuf frame, byte[] content, BroadcastProgress progress) {
+        List<Iterator<List<Connection>>> batches = new ArrayList<>(partitions.size());
+        List<EventLoop> loops = new ArrayList<>(partitions.size());
+        partitions.forEach((loop, connections) -> {
+            loops.add(loop);
+            batches.add(partition(connections).iterator());
+        });
+
+        boolean hasMore = true;
+        while (hasMore) {
+            hasMore = false;
+            for (int i = 0; i < loops.size(); i++) {
+                Iterator<List<Connection>> it = batches.get(i);
+                if (!it.hasNext()) {
+                    continue;
+                }
+                hasMore = true;
+                List<Connection> batch = it.next();
+                long delayNanos = rateLimit > 0 ? reserve(batch.size()) : 0;
+                submit(loops.get(i), batch, frame.retain(), content, progress, delayNanos);
+            }
+        }
+    }
+
+    /**
+     * take the send time of the messages from the shared budget
+     *
+     * @param messages the count of messages to send
+     * @return the delay in nanos until the messages may be sent
+     */
+    private long reserve(int messages) {
+        long now = System.nanoTime();
+        long cost = TimeUnit.SECONDS.toNanos(messages) / rateLimit;
+        long next = nextSendNanos.accumulateAndGet(now, (free, n) -> (free - n > 0 ? free : n) + cost);
+        return next - cost - now;
+    }
+
+    private List<List<Connection>> partition(List<Connection> connections) {
+        List<List<Connection>> batches = new ArrayList<>(connections.size() / batchSize + 1);
+        for (int from = 0; from < connections.size(); from += batchSize) {
+            batches.add(connections.subList(from, Math.min(from + batchSize, connections.size())));
+        }
+        return batches;
+    }
+
+    private void submit(EventLoop loop, List<Connection> batch, ByteBuf frame, byte[] content,
+                        BroadcastProgress progress, long delayNanos) {
+        Runnable task = () -> write(batch, frame, content, progress);
+        try {
+            if (delayNanos > 0) {
+                loop.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+            } else {
+                loop.execute(task);
+            }
+        } catch (RejectedExecutionException e) {
+            frame.release();
+            progress.skip(batch.size());
+            LOGGER.error("broadcast batch rejected, id: {} batch's size: {} cause: {}", progress.getBroadcastId(), batch.size(), e.getMessage());
+        }
+    }
+
+    private void write(List<Connection> batch, ByteBuf frame, byte[] content, BroadcastProgress progress) {
+        int skipped = 0;
+        try {
+            for (Connection conn : batch) {
+                if (!conn.getChannel().isActive()) {
+                    skipped++;
+                    continue;
+                }
+                ChannelFuture future;
+                if (conn.getSessionContext().isSecurity()) {
+                    // the session's cipher requires a per-connection encryption
+                    future = conn.sendAsync(DispatcherResponseMessage.build(conn).payload(content));
+                } else {
+                    future = conn.sendEncodedAsync(frame.retainedDuplicate());
+                }
+                if (future == null) {
+                    // closed meanwhile
+                    skipped++;
+                } else {
+                    future.addListener(progress);
+                }
+            }
+        } finally {
+            frame.release();
+            progress.skip(skipped);
+        }
+    }
+
+    private ByteBuf encodeSharedFrame(Connection connection, byte[] content) {
+        DispatcherResponseMessage message = DispatcherResponseMessage.build(connection).payload(content);
+        message.setRaw(true);
+        ByteBuf frame = connection.getChannel().alloc().ioBuffer();
+        try {
+            FRAME_CODEC.encode(connection, message, frame);
+        } catch (CodecException e) {
+            frame.release();
+            throw e;
+        }
+        return frame;
+    }
+}
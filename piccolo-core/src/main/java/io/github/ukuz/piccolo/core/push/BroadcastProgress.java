@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.push;
+
+import io.github.ukuz.piccolo.monitor.MetricsMonitor;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * progress of a single broadcast, completed once every write was acknowledged or skipped.
+ *
+ * @author ukuz90
+ */
+public class BroadcastProgress implements ChannelFutureListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BroadcastProgress.class);
+
+    private final long broadcastId;
+    private final int total;
+    private final long startTime;
+    private volatile long endTime;
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger remaining;
+
+    BroadcastProgress(long broadcastId, int total) {
+        this.broadcastId = broadcastId;
+        this.total = total;
+        this.startTime = System.currentTimeMillis();
+        this.remaining = new AtomicInteger(total);
+        if (total == 0) {
+            complete();
+        }
+    }
+
+    @Override
+    public void operationComplete(ChannelFuture future) {
+        if (future.isSuccess()) {
+            sent.incrementAndGet();
+            MetricsMonitor.getBroadcastCount("sent").increment();
+        } else {
+            failed.incrementAndGet();
+            MetricsMonitor.getBroadcastCount("failed").increment();
+        }
+        countDown(1);
+    }
+
+    void skip(int count) {
+        if (count <= 0) {
+            return;
+        }
+        skipped.addAndGet(count);
+        MetricsMonitor.getBroadcastCount("skipped").increment(count);
+        countDown(count);
+    }
+
+    private void countDown(int count) {
+        if (remaining.addAndGet(-count) == 0) {
+            complete();
+        }
+    }
+
+    private void complete() {
+        endTime = System.currentTimeMillis();
+        LOGGER.info("broadcast complete, id: {} total: {} sent: {} failed: {} skipped: {} cost: {}ms",
+                broadcastId, total, sent.get(), failed.get(), skipped.get(), endTime - startTime);
+    }
+
+    public long getBroadcastId() {
+        return broadcastId;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getSent() {
+        return sent.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public boolean isDone() {
+        return remaining.get() == 0;
+    }
+
+    public long getCostMillis() {
+        return (isDone() ? endTime : System.currentTimeMillis()) - startTime;
+    }
+
+    @Override
+    public String toString() {
+        return "BroadcastProgress{" +
+                "broadcastId=" + broadcastId +
+                ", total=" + total +
+                ", sent=" + sent +
+                ", failed=" + failed +
+                ", skipped=" + skipped +
+                ", done=" + isDone() +
+                '}';
+    }
+}
@@ -28,56 +28,128 @@ import io.netty.util.internal.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 /**
+ * the routers of a user are kept in an immutable {@link LocalRouterSet} which is replaced with compare-and-set,
+ * so concurrent register, unregister and connection close never lose an update.
+ *
  * @author ukuz90
  */
 public class LocalRouterManager extends EventObservable implements RouterManager<LocalRouter> {
 
     private final Logger logger = LoggerFactory.getLogger(LocalRouterManager.class);
 
-    private static final Map<Byte, LocalRouter> EMPTY = new HashMap<>(0);
-
-    private ConcurrentMap<String, Map<Byte, LocalRouter>> routers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LocalRouterSet> routers = new ConcurrentHashMap<>();
 
     @Override
     public LocalRouter register(String userId, LocalRouter router) {
         logger.info("register userId: {} clientType: {} router: {}", userId, router.getClientType(), router);
-        return routers.computeIfAbsent(userId, (s) -> new HashMap<>(1)).put(router.getClientType(), router);
+        byte clientType = router.getClientType();
+        for (;;) {
+            LocalRouterSet current = routers.get(userId);
+            if (current == null) {
+                if (routers.putIfAbsent(userId, LocalRouterSet.EMPTY.put(clientType, router)) == null) {
+                    return null;
+                }
+            } else if (routers.replace(userId, current, current.put(clientType, router))) {
+                return current.lookup(clientType);
+            }
+        }
     }
 
     @Override
     public boolean unregister(String userId, byte clientType) {
-        LocalRouter router = routers.getOrDefault(userId, EMPTY).remove(clientType);
+        LocalRouter router = remove(userId, clientType, null);
         logger.info("unregister userId: {} clientType: {} router: {}", userId, clientType, router);
         return true;
     }
 
+    /**
+     * unregister the router only if it still routes to the connection
+     *
+     * @param userId
+     * @param clientType
+     * @param connection
+     * @return true if the router was removed
+     */
+    public boolean unregister(String userId, byte clientType, Connection connection) {
+        LocalRouter router = remove(userId, clientType, connection);
+        logger.info("unregister userId: {} clientType: {} conn: {} router: {}", userId, clientType, connection, router);
+        return router != null;
+    }
+
+    /**
+     * @param expected only remove the router if it still routes to this connection, null for any
+     * @return the removed router
+     */
+    private LocalRouter remove(String userId, byte clientType, Connection expected) {
+        for (;;) {
+            LocalRouterSet current = routers.get(userId);
+            if (current == null) {
+                return null;
+            }
+            LocalRouter router = current.lookup(clientType);
+            if (router == null || expected != null && router.getRouterValue() != expected) {
+                return null;
+            }
+            LocalRouterSet next = current.remove(clientType);
+            boolean swapped = next.isEmpty() ? routers.remove(userId, current) : routers.replace(userId, current, next);
+            if (swapped) {
+                return router;
+            }
+        }
+    }
+
     @Override
     public LocalRouter lookup(String userId, byte clientType) {
-        LocalRouter router = routers.getOrDefault(userId, EMPTY).get(clientType);
-        logger.info("lookup userId: {} clientType: {} router: {}", userId, clientType, router);
+        LocalRouterSet current = routers.get(userId);
+        LocalRouter router = current == null ? null : current.lookup(clientType);
+        if (logger.isDebugEnabled()) {
+            logger.debug("lookup userId: {} clientType: {} router: {}", userId, clientType, router);
+        }
         return router;
     }
 
+    /**
+     * the returned snapshot is shared, iterate it by index to avoid any allocation
+     *
+     * @param userId
+     * @return
+     */
     @Override
-    public Set<LocalRouter> lookupAll(String userId) {
-        Set<LocalRouter> sets = new HashSet<>(routers.getOrDefault(userId, EMPTY).values());
-        logger.info("lookupAll userId: {} router: {}", userId, sets);
-        return sets;
+    public LocalRouterSet lookupAll(String userId) {
+        LocalRouterSet current = routers.getOrDefault(userId, LocalRouterSet.EMPTY);
+        if (logger.isDebugEnabled()) {
+            logger.debug("lookupAll userId: {} router: {}", userId, current);
+        }
+        return current;
     }
 
     public Set<LocalRouter> lookupAll() {
-        Map<String, Map<Byte, LocalRouter>> routers = Collections.unmodifiableMap(this.routers);
         Set<LocalRouter> result = new HashSet<>();
-        routers.forEach((k, v) -> result.addAll(v.values()));
+        routers.values().forEach(result::addAll);
         logger.info("lookupAll router size: {}", result.size());
         return result;
     }
 
+    /**
+     * iterate all local routers without copying them into a new set
+     *
+     * @param action
+     */
+    public void forEach(Consumer<LocalRouter> action) {
+        routers.values().forEach(v -> {
+            for (int i = 0; i < v.size(); i++) {
+                action.accept(v.get(i));
+            }
+        });
+    }
+
     @Subscribe
     @AllowConcurrentEvents
     public void on(ConnectionCloseEvent event) {
@@ -93,19 +165,13 @@ public class LocalRouterManager extends EventObservable implements RouterManager
         }
 
         byte clientType = context.getClientType();
-        LocalRouter router = routers.getOrDefault(userId, EMPTY).get(clientType);
-        if (router == null) {
-            logger.info("connection closed, can not found router, clientType: {}", clientType);
-            return;
-        }
-        String connId = connection.getId();
         //检测下，是否是同一个链接, 如果客户端重连，老的路由会被新的链接覆盖
-        if (connId.equals(router.getRouterValue().getId())) {
-            routers.getOrDefault(userId, EMPTY).remove(clientType);
+        LocalRouter router = remove(userId, clientType, connection);
+        if (router != null) {
             EventBus.post(new UserOfflineEvent(context.getUserId(), connection));
             logger.info("clean disconnected local route, userId: {}, route: {}", context.getUserId(), router);
         } else {
-            logger.info("clean disconnected local route, not clean, userId: {}, route: {}", context.getUserId(), router);
+            logger.info("clean disconnected local route, not clean, userId: {}, clientType: {}", context.getUserId(), clientType);
         }
     }
 }
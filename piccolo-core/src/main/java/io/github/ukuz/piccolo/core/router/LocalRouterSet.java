@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.router;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable snapshot of the local routers of one user, at most one per client type.
+ *
+ * a user has a handful of client types, so the routers live in a small array which is copied on every change
+ * and swapped as a whole, readers iterate the snapshot by index without any allocation.
+ *
+ * equality is identity, {@link LocalRouterManager} swaps the snapshots with compare-and-set.
+ *
+ * @author ukuz90
+ */
+public final class LocalRouterSet extends AbstractSet<LocalRouter> {
+
+    static final LocalRouterSet EMPTY = new LocalRouterSet(new LocalRouter[0], new byte[0]);
+
+    private final LocalRouter[] routers;
+    private final byte[] clientTypes;
+
+    private LocalRouterSet(LocalRouter[] routers, byte[] clientTypes) {
+        this.routers = routers;
+        this.clientTypes = clientTypes;
+    }
+
+    public LocalRouter get(int index) {
+        return routers[index];
+    }
+
+    public LocalRouter lookup(byte clientType) {
+        int index = indexOf(clientType);
+        return index < 0 ? null : routers[index];
+    }
+
+    @Override
+    public int size() {
+        return routers.length;
+    }
+
+    @Override
+    public Iterator<LocalRouter> iterator() {
+        return new Iterator<LocalRouter>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < routers.length;
+            }
+
+            @Override
+            public LocalRouter next() {
+                if (index >= routers.length) {
+                    throw new NoSuchElementException();
+                }
+                return routers[index++];
+            }
+        };
+    }
+
+    /**
+     * @return a new snapshot with the router of the client type replaced
+     */
+    LocalRouterSet put(byte clientType, LocalRouter router) {
+        int index = indexOf(clientType);
+        if (index >= 0) {
+            LocalRouter[] newRouters = routers.clone();
+            newRouters[index] = router;
+            return new LocalRouterSet(newRouters, clientTypes);
+        }
+        int size = routers.length;
+        LocalRouter[] newRouters = new LocalRouter[size + 1];
+        byte[] newClientTypes = new byte[size + 1];
+        System.arraycopy(routers, 0, newRouters, 0, size);
+        System.arraycopy(clientTypes, 0, newClientTypes, 0, size);
+        newRouters[size] = router;
+        newClientTypes[size] = clientType;
+        return new LocalRouterSet(newRouters, newClientTypes);
+    }
+
+    /**
+     * @return a new snapshot without the router of the client type
+     */
+    LocalRouterSet remove(byte clientType) {
+        int index = indexOf(clientType);
+        if (index < 0) {
+            return this;
+        }
+        int size = routers.length;
+        if (size == 1) {
+            return EMPTY;
+        }
+        LocalRouter[] newRouters = new LocalRouter[size - 1];
+        byte[] newClientTypes = new byte[size - 1];
+        System.arraycopy(routers, 0, newRouters, 0, index);
+        System.arraycopy(routers, index + 1, newRouters, index, size - index - 1);
+        System.arraycopy(clientTypes, 0, newClientTypes, 0, index);
+        System.arraycopy(clientTypes, index + 1, newClientTypes, index, size - index - 1);
+        return new LocalRouterSet(newRouters, newClientTypes);
+    }
+
+    private int indexOf(byte clientType) {
+        for (int i = 0; i < clientTypes.length; i++) {
+            if (clientTypes[i] == clientType) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+}
@@ -28,6 +28,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * @author ukuz90
@@ -66,6 +68,17 @@ public final class RouterCenter extends AbstractService {
      * @return
      */
     public boolean register(String userId, Connection connection) {
+        return registerAsync(userId, connection).join();
+    }
+
+    /**
+     * register, the remote router is written with a pipelined batch so the caller does not block on redis
+     *
+     * @param userId
+     * @param connection
+     * @return completes with false if the remote router could not be written
+     */
+    public CompletableFuture<Boolean> registerAsync(String userId, Connection connection) {
         ClientLocator clientLocator = ClientLocator.from(connection)
                 .setHost(piccoloServer.getGatewayServer().getRegistration().getHost())
                 .setPort(piccoloServer.getGatewayServer().getRegistration().getPort());
@@ -73,26 +86,23 @@ public final class RouterCenter extends AbstractService {
         LocalRouter localRouter = new LocalRouter(connection);
         RemoteRouter remoteRouter = new RemoteRouter(clientLocator);
 
-        LocalRouter oldLocalRouter = null;
-        RemoteRouter oldRemoteRouter = null;
-        try {
-            oldLocalRouter = localRouterManager.register(userId, localRouter);
-            oldRemoteRouter = remoteRouterManager.register(userId, remoteRouter);
-        } catch (Exception e) {
-            LOGGER.error("register router failure, userId: {}, cause: {}", userId, e);
-        }
-
+        LocalRouter oldLocalRouter = localRouterManager.register(userId, localRouter);
         if (oldLocalRouter != null) {
             EventBus.post(new RouterChangeEvent(userId, oldLocalRouter));
-            LOGGER.info("register router success, userId: {}, oldLocalRouter: {}", oldLocalRouter);
-        }
-
-        if (oldRemoteRouter != null && oldRemoteRouter.isOnline()) {
-            EventBus.post(new RouterChangeEvent(userId, oldRemoteRouter));
-            LOGGER.info("register router success, userId: {}, oldRemoteRouter: {}", oldRemoteRouter);
+            LOGGER.info("register router success, userId: {}, oldLocalRouter: {}", userId, oldLocalRouter);
         }
 
-        return true;
+        return remoteRouterManager.registerAsync(userId, remoteRouter).handle((oldRemoteRouter, e) -> {
+            if (e != null) {
+                LOGGER.error("register router failure, userId: {}, cause: {}", userId, e);
+                return false;
+            }
+            if (oldRemoteRouter != null && oldRemoteRouter.isOnline()) {
+                EventBus.post(new RouterChangeEvent(userId, oldRemoteRouter));
+                LOGGER.info("register router success, userId: {}, oldRemoteRouter: {}", userId, oldRemoteRouter);
+            }
+            return true;
+        });
     }
 
     @Override
@@ -111,11 +121,28 @@ public final class RouterCenter extends AbstractService {
         return unRegisterRemote(userId, clientType) && unRegisterLocal(userId, clientType);
     }
 
+    public CompletableFuture<Boolean> unRegisterAsync(String userId, byte clientType) {
+        return unRegisterRemoteAsync(userId, clientType).thenApply(success -> success && unRegisterLocal(userId, clientType));
+    }
+
+    /**
+     * unregister the routers of the user that still point at the connection, a newer login of the user is kept
+     *
+     * @param userId
+     * @param connection
+     * @return completes with false if the remote router could not be removed
+     */
+    public CompletableFuture<Boolean> unRegisterAsync(String userId, Connection connection) {
+        byte clientType = connection.getSessionContext().getClientType();
+        localRouterManager.unregister(userId, clientType, connection);
+        return remoteRouterManager.unregisterAsync(userId, clientType, connection.getId());
+    }
+
     public LocalRouter lookupLocal(String userId, byte clientType) {
         return localRouterManager.lookup(userId, clientType);
     }
 
-    public Set<LocalRouter> lookupLocal(String userId) {
+    public LocalRouterSet lookupLocal(String userId) {
         return localRouterManager.lookupAll(userId);
     }
 
@@ -123,6 +150,10 @@ public final class RouterCenter extends AbstractService {
         return localRouterManager.lookupAll();
     }
 
+    public void forEachLocal(Consumer<LocalRouter> action) {
+        localRouterManager.forEach(action);
+    }
+
     public RemoteRouter lookupRemote(String userId, byte clientType) {
         return remoteRouterManager.lookup(userId, clientType);
     }
@@ -131,6 +162,14 @@ public final class RouterCenter extends AbstractService {
         return remoteRouterManager.lookupAll(userId);
     }
 
+    public CompletableFuture<RemoteRouter> lookupRemoteAsync(String userId, byte clientType) {
+        return remoteRouterManager.lookupAsync(userId, clientType);
+    }
+
+    public CompletableFuture<Set<RemoteRouter>> lookupRemoteAsync(String userId) {
+        return remoteRouterManager.lookupAllAsync(userId);
+    }
+
     public boolean unRegisterLocal(String userId, byte clientType) {
         return localRouterManager.unregister(userId, clientType);
     }
@@ -138,4 +177,8 @@ public final class RouterCenter extends AbstractService {
     public boolean unRegisterRemote(String userId, byte clientType) {
         return remoteRouterManager.unregister(userId, clientType);
     }
+
+    public CompletableFuture<Boolean> unRegisterRemoteAsync(String userId, byte clientType) {
+        return remoteRouterManager.unregisterAsync(userId, clientType);
+    }
 }
@@ -33,6 +33,7 @@ import io.github.ukuz.piccolo.core.handler.MonitorBytesHandler;
 import io.github.ukuz.piccolo.core.handler.MonitorQpsHandler;
 import io.github.ukuz.piccolo.core.properties.ThreadProperties;
 import io.github.ukuz.piccolo.monitor.MonitorExecutorFactory;
+import io.github.ukuz.piccolo.transport.codec.BinaryPacketCodec;
 import io.github.ukuz.piccolo.transport.codec.Codec;
 import io.github.ukuz.piccolo.transport.codec.MultiPacketCodec;
 import io.github.ukuz.piccolo.transport.connection.NettyConnectionManager;
@@ -80,7 +81,9 @@ public class GatewayServer extends NettyServer {
 
     @Override
     protected Codec newCodec() {
-        return new MultiPacketCodec(SpiLoader.getLoader(PacketToMessageConverter.class).getExtension());
+        NetProperties.ServerNestedProperties server = getServerProperties();
+        return new MultiPacketCodec(SpiLoader.getLoader(PacketToMessageConverter.class).getExtension(),
+                new BinaryPacketCodec(server.isZeroCopyDecode(), server.isDirectEncode()));
     }
 
     @Override
@@ -95,6 +98,7 @@ public class GatewayServer extends NettyServer {
 
         monitorBytesHandler = new MonitorBytesHandler(getName());
         monitorQpsHandler = new MonitorQpsHandler(getName());
+        ServerMetrics.monitorBackpressure(getName(), getBackpressureStats());
     }
 
     @Override
@@ -142,6 +146,11 @@ public class GatewayServer extends NettyServer {
         cxnxManager.destroy();
     }
 
+    @Override
+    protected NetProperties.ServerNestedProperties getServerProperties() {
+        return piccoloContext.getProperties(NetProperties.class).getGatewayServer();
+    }
+
     @Override
     protected InetSocketAddress getInetSocketAddress() {
         return address;
@@ -76,13 +76,16 @@ public class WebSocketServer extends NettyServer {
 
     @Override
     protected Codec newCodec() {
-        return new MultiPacketCodec(SpiLoader.getLoader(PacketToMessageConverter.class).getExtension());
+        NetProperties.ServerNestedProperties server = getServerProperties();
+        return new MultiPacketCodec(SpiLoader.getLoader(PacketToMessageConverter.class).getExtension(),
+                new BinaryPacketCodec(server.isZeroCopyDecode(), server.isDirectEncode()));
     }
 
     @Override
     protected void doInit() {
         monitorBytesHandler = new MonitorBytesHandler(getName());
         monitorQpsHandler = new MonitorQpsHandler(getName());
+        ServerMetrics.monitorBackpressure(getName(), getBackpressureStats());
     }
 
     @Override
@@ -141,6 +144,11 @@ public class WebSocketServer extends NettyServer {
         cxnxManager.destroy();
     }
 
+    @Override
+    protected NetProperties.ServerNestedProperties getServerProperties() {
+        return piccoloContext.getProperties(NetProperties.class).getWsServer();
+    }
+
     @Override
     protected InetSocketAddress getInetSocketAddress() {
         return address;
@@ -16,9 +16,14 @@
 package io.github.ukuz.piccolo.core.session;
 
 import io.github.ukuz.piccolo.api.connection.SessionContext;
+import io.github.ukuz.piccolo.common.codec.Varints;
+import io.github.ukuz.piccolo.common.external.io.UnsafeByteArrayInputStream;
+import io.github.ukuz.piccolo.common.external.io.UnsafeByteArrayOutputStream;
 import io.github.ukuz.piccolo.common.security.AESCipher;
 import lombok.Data;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * @author ukuz90
  */
@@ -29,18 +34,65 @@ public final class ReusableSession {
     private long expireTime;
     private SessionContext context;
 
-    public static String encode(SessionContext context) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(context.getOsName()).append(',');
-        sb.append(context.getOsVersion()).append(',');
-        sb.append(context.getClientVersion()).append(',');
-        sb.append(context.getDeviceId()).append(',');
-        sb.append(context.getCipher());
+    /**
+     * the binary form stored in redis.
+     * <pre>
+     * version 1:
+     * | version (1) | osName | osVersion | clientVersion | deviceId |  nullable strings, see {@link Varints}
+     * | key length (varint) | key | iv length (varint) | iv |
+     * </pre>
+     */
+    public static final byte VERSION_1 = 1;
+
+    public static byte[] encode(SessionContext context) {
+        if (!(context.getCipher() instanceof AESCipher)) {
+            throw new IllegalArgumentException("session cipher must be aes, but " + context.getCipher());
+        }
+        AESCipher cipher = (AESCipher) context.getCipher();
+        UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream(96);
+        out.write(VERSION_1);
+        Varints.writeString(out, context.getOsName());
+        Varints.writeString(out, context.getOsVersion());
+        Varints.writeString(out, context.getClientVersion());
+        Varints.writeString(out, context.getDeviceId());
+        Varints.writeBytes(out, cipher.keyB);
+        Varints.writeBytes(out, cipher.ivB);
+        return out.toByteArray();
+    }
 
-        return sb.toString();
+    /**
+     * @param encodeValue
+     * @return null if the value is absent or can not be read
+     */
+    public static ReusableSession decode(byte[] encodeValue) {
+        if (encodeValue == null || encodeValue.length == 0) {
+            return null;
+        }
+        if (encodeValue[0] != VERSION_1) {
+            // written as text by the former versions, it never starts with a control character
+            return decodeLegacy(new String(encodeValue, StandardCharsets.UTF_8));
+        }
+        UnsafeByteArrayInputStream in = new UnsafeByteArrayInputStream(encodeValue, 1);
+        SessionContext context = new SessionContext();
+        context.setOsName(Varints.readString(in));
+        context.setOsVersion(Varints.readString(in));
+        context.setClientVersion(Varints.readString(in));
+        context.setDeviceId(Varints.readString(in));
+        byte[] key = Varints.readBytes(in);
+        byte[] iv = Varints.readBytes(in);
+        context.changeCipher(new AESCipher(key, iv));
+        ReusableSession session = new ReusableSession();
+        session.setContext(context);
+        return session;
     }
 
-    public static ReusableSession decode(String encodeValue) {
+    /**
+     * osName,osVersion,clientVersion,deviceId,key,iv with the bytes of the key and iv joined by '|'
+     *
+     * @param encodeValue
+     * @return
+     */
+    static ReusableSession decodeLegacy(String encodeValue) {
         String[] arr = encodeValue.split(",");
         if (arr.length != 6) {
             return null;
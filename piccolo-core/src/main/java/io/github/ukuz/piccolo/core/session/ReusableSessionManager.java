@@ -15,39 +15,90 @@
  */
 package io.github.ukuz.piccolo.core.session;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import io.github.ukuz.piccolo.api.PiccoloContext;
 import io.github.ukuz.piccolo.api.connection.SessionContext;
 import io.github.ukuz.piccolo.common.cache.CacheKeys;
 import io.github.ukuz.piccolo.common.properties.CoreProperties;
 import io.github.ukuz.piccolo.common.security.MD5Utils;
-import io.netty.util.internal.StringUtil;
+import io.github.ukuz.piccolo.monitor.MetricsMonitor;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 /**
+ * Sessions are stored in redis behind a bounded local tier, so a client reconnecting to the gateway which
+ * issued its session is resumed without a round trip. The local tier only holds the sessions issued here,
+ * with the same expiration as redis, the ones read from redis are not kept since their remaining time is
+ * unknown. Entries are kept encoded, each query decodes its own copy of the context.
+ *
  * @author ukuz90
  */
 public final class ReusableSessionManager {
 
+    private static final String LOCAL_CACHE_NAME = "session";
+
     private PiccoloContext piccoloContext;
     private final int expireTime;
+    private final Cache<String, byte[]> localSessions;
 
     public ReusableSessionManager(PiccoloContext piccoloContext) {
         this.piccoloContext = piccoloContext;
-        this.expireTime = piccoloContext.getProperties(CoreProperties.class).getSessionExpireTime();
+        CoreProperties core = piccoloContext.getProperties(CoreProperties.class);
+        this.expireTime = core.getSessionExpireTime();
+        this.localSessions = CacheBuilder.newBuilder()
+                .maximumSize(core.getSessionLocalCacheSize())
+                .expireAfterWrite(Duration.ofSeconds(expireTime))
+                .recordStats()
+                .build();
+        MetricsMonitor.monitorCacheCount(LOCAL_CACHE_NAME, "hit", () -> localSessions.stats().hitCount());
+        MetricsMonitor.monitorCacheCount(LOCAL_CACHE_NAME, "miss", () -> localSessions.stats().missCount());
+        MetricsMonitor.monitorCacheCount(LOCAL_CACHE_NAME, "eviction", () -> localSessions.stats().evictionCount());
+        MetricsMonitor.monitorCacheSize(LOCAL_CACHE_NAME, localSessions::size);
     }
 
     public void cacheSession(ReusableSession session) {
         String key = CacheKeys.getSessionKey(session.getSessionId());
-        String encodeValue = ReusableSession.encode(session.getContext());
-        piccoloContext.getCacheManager().set(key, encodeValue, expireTime);
+        byte[] encodeValue = ReusableSession.encode(session.getContext());
+        piccoloContext.getCacheManager().setBytes(key, encodeValue, expireTime);
+        localSessions.put(session.getSessionId(), encodeValue);
     }
 
     public ReusableSession querySession(String sessionId) {
+        byte[] local = localSessions.getIfPresent(sessionId);
+        if (local != null) {
+            return ReusableSession.decode(local);
+        }
         String key = CacheKeys.getSessionKey(sessionId);
-        String content = piccoloContext.getCacheManager().get(key, String.class);
-        if (StringUtil.isNullOrEmpty(content)) {
-            return null;
+        return ReusableSession.decode(piccoloContext.getCacheManager().getBytes(key));
+    }
+
+    public CompletableFuture<Void> cacheSessionAsync(ReusableSession session) {
+        String key = CacheKeys.getSessionKey(session.getSessionId());
+        byte[] encodeValue = ReusableSession.encode(session.getContext());
+        localSessions.put(session.getSessionId(), encodeValue);
+        return piccoloContext.getCacheManager().setBytesAsync(key, encodeValue, expireTime);
+    }
+
+    /**
+     * completes at once on a local hit, otherwise on the threads of the redis client
+     *
+     * @param sessionId
+     * @return
+     */
+    public CompletableFuture<ReusableSession> querySessionAsync(String sessionId) {
+        byte[] local = localSessions.getIfPresent(sessionId);
+        if (local != null) {
+            return CompletableFuture.completedFuture(ReusableSession.decode(local));
         }
-        return ReusableSession.decode(content);
+        String key = CacheKeys.getSessionKey(sessionId);
+        return piccoloContext.getCacheManager().getBytesAsync(key).thenApply(ReusableSession::decode);
+    }
+
+    public CacheStats getLocalStats() {
+        return localSessions.stats();
     }
 
     public ReusableSession genSession(SessionContext context) {
@@ -15,13 +15,15 @@
  */
 package io.github.ukuz.piccolo.core.user;
 
-import io.github.ukuz.piccolo.common.cache.CacheKeys;
+import io.github.ukuz.piccolo.common.cache.OnlineUserList;
+import io.github.ukuz.piccolo.common.properties.CoreProperties;
 import io.github.ukuz.piccolo.common.properties.NetProperties;
 import io.github.ukuz.piccolo.common.router.RemoteRouter;
 import io.github.ukuz.piccolo.core.PiccoloServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -31,13 +33,16 @@ import java.util.Set;
 public class UserManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UserManager.class);
-    private final String onlineUserListKey;
+    private final String publicIp;
+    private final OnlineUserList onlineUserList;
     private PiccoloServer piccoloContext;
 
     public UserManager(PiccoloServer piccoloServer) {
         this.piccoloContext = piccoloServer;
         NetProperties net = piccoloContext.getProperties(NetProperties.class);
-        this.onlineUserListKey = CacheKeys.getOnlineUserListKey(net.getPublicIp());
+        CoreProperties core = piccoloContext.getProperties(CoreProperties.class);
+        this.publicIp = net.getPublicIp();
+        this.onlineUserList = new OnlineUserList(piccoloContext.getCacheManager(), core.getOnlineUserShards());
     }
 
     public void kickUser(String userId, byte clientType) {
@@ -51,33 +56,39 @@ public class UserManager {
     }
 
     public void clearOnlineList() {
-        piccoloContext.getCacheManager().del(onlineUserListKey);
+        onlineUserList.clear(publicIp);
     }
 
     public void addToOnlineList(String userId) {
-        piccoloContext.getCacheManager().zAdd(onlineUserListKey, "\"" + userId + "\"", 0);
-        LOGGER.info("user online, userId: {}", userId);
+        onlineUserList.addAsync(publicIp, userId).whenComplete((v, e) -> {
+            if (e != null) {
+                LOGGER.error("add to online list failure, userId: {} cause: {}", userId, e);
+            } else {
+                LOGGER.info("user online, userId: {}", userId);
+            }
+        });
     }
 
     public void removeFromOnlineList(String userId) {
-        piccoloContext.getCacheManager().zRem(onlineUserListKey, "\"" + userId + "\"");
-        LOGGER.info("user offline, userId: {}", userId);
+        onlineUserList.removeAsync(publicIp, userId).whenComplete((v, e) -> {
+            if (e != null) {
+                LOGGER.error("remove from online list failure, userId: {} cause: {}", userId, e);
+            } else {
+                LOGGER.info("user offline, userId: {}", userId);
+            }
+        });
     }
 
     public long getOnlineUserNum() {
-        Long val = piccoloContext.getCacheManager().zCard(onlineUserListKey);
-        return val == null ? 0 : val;
+        return onlineUserList.count(publicIp);
     }
 
     public long getOnlineUserNum(String publicIp) {
-        String key = CacheKeys.getOnlineUserListKey(publicIp);
-        Long val = piccoloContext.getCacheManager().zCard(key);
-        return val == null ? 0 : val;
+        return onlineUserList.count(publicIp);
     }
 
     public List<String> getOnlineUserList(String publicIp, int start, int end) {
-        String key = CacheKeys.getOnlineUserListKey(publicIp);
-        return piccoloContext.getCacheManager().zrange(key, start, end, String.class);
+        return onlineUserList.range(Collections.singletonList(publicIp), start, end);
     }
 
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.dispatch;
+
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.api.id.IdGen;
+import io.github.ukuz.piccolo.api.mq.MQClient;
+import io.github.ukuz.piccolo.common.message.DispatcherMessage;
+import io.github.ukuz.piccolo.common.message.ErrorMessage;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UplinkDispatcherTest {
+
+    private static final String TOPIC = "topic";
+
+    @Mock
+    private MQClient mqClient;
+    @Mock
+    private IdGen idGen;
+    @Mock
+    private Connection connection;
+    @Mock
+    private Channel channel;
+    @Mock
+    private ChannelConfig channelConfig;
+
+    private UplinkDispatcher dispatcher;
+    private final CountDownLatch broker = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(idGen.get("dispatch")).thenReturn(1L);
+        dispatcher = new UplinkDispatcher(mqClient, idGen, 4, 1, 3);
+        dispatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.countDown();
+        dispatcher.destroy();
+    }
+
+    @DisplayName("test_dispatch")
+    @Test
+    void testDispatch() {
+        when(mqClient.publishAsync(eq(TOPIC), eq("user"), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertTrue(dispatcher.dispatch(newMessage(), TOPIC, "user"));
+
+        verify(mqClient, timeout(1000)).publishAsync(eq(TOPIC), eq("user"), any());
+    }
+
+    @DisplayName("test_dispatch_WithPublishRetried")
+    @Test
+    void testDispatchWithPublishRetried() {
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("buffer full"));
+        when(mqClient.publishAsync(eq(TOPIC), eq("user"), any()))
+                .thenReturn(failed)
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertTrue(dispatcher.dispatch(newMessage(), TOPIC, "user"));
+
+        verify(mqClient, timeout(1000).times(2)).publishAsync(eq(TOPIC), eq("user"), any());
+        verify(connection, after(200).never()).sendAsync(any());
+    }
+
+    @DisplayName("test_dispatch_WithPublishFailure")
+    @Test
+    void testDispatchWithPublishFailure() {
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("buffer full"));
+        when(mqClient.publishAsync(eq(TOPIC), eq("user"), any())).thenReturn(failed);
+
+        assertTrue(dispatcher.dispatch(newMessage(), TOPIC, "user"));
+
+        // the client is told once the attempts are used up
+        verify(connection, timeout(1000)).sendAsync(any(ErrorMessage.class));
+        verify(mqClient, times(3)).publishAsync(eq(TOPIC), eq("user"), any());
+    }
+
+    @DisplayName("test_dispatch_WithFullQueue")
+    @Test
+    void testDispatchWithFullQueue() {
+        when(connection.getChannel()).thenReturn(channel);
+        when(channel.config()).thenReturn(channelConfig);
+        when(mqClient.publishAsync(eq(TOPIC), eq("user"), any())).thenAnswer(invocation -> {
+            // the producer's buffer is full
+            broker.await();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        int accepted = 0;
+        for (int i = 0; i < 6; i++) {
+            if (dispatcher.dispatch(newMessage(), TOPIC, "user")) {
+                accepted++;
+            }
+        }
+
+        assertTrue(accepted < 6);
+        assertTrue(dispatcher.getRejected() > 0);
+        verify(channelConfig).setAutoRead(false);
+
+        broker.countDown();
+        verify(channelConfig, timeout(1000)).setAutoRead(true);
+        verify(mqClient, timeout(1000).times(accepted)).publishAsync(eq(TOPIC), eq("user"), any());
+    }
+
+    private DispatcherMessage newMessage() {
+        DispatcherMessage msg = new DispatcherMessage(connection);
+        msg.payload = new byte[]{1};
+        return msg;
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.handler;
+
+import io.github.ukuz.piccolo.api.cache.CacheManager;
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.api.event.ConnectionCloseEvent;
+import io.github.ukuz.piccolo.api.exchange.handler.ChannelHandler;
+import io.github.ukuz.piccolo.api.mq.MQClient;
+import io.github.ukuz.piccolo.api.service.registry.Registration;
+import io.github.ukuz.piccolo.common.cache.CacheKeys;
+import io.github.ukuz.piccolo.common.event.EventBus;
+import io.github.ukuz.piccolo.common.message.BindUserMessage;
+import io.github.ukuz.piccolo.common.properties.CoreProperties;
+import io.github.ukuz.piccolo.common.properties.NetProperties;
+import io.github.ukuz.piccolo.core.PiccoloServer;
+import io.github.ukuz.piccolo.core.router.RouterCenter;
+import io.github.ukuz.piccolo.core.server.GatewayServer;
+import io.github.ukuz.piccolo.transport.connection.FlushMode;
+import io.github.ukuz.piccolo.transport.connection.NettyConnection;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.concurrent.CompletableFuture;
+
+import static io.github.ukuz.piccolo.mq.kafka.Topics.ONLINE_MESSAGE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BindUserHandlerTest {
+
+    private static final String USER_ID = "user";
+
+    @Mock
+    private PiccoloServer piccoloServer;
+    @Mock
+    private CacheManager cacheManager;
+    @Mock
+    private MQClient mqClient;
+    @Mock
+    private GatewayServer gatewayServer;
+    @Mock
+    private Registration registration;
+    @Mock
+    private ChannelHandler next;
+
+    private final CompletableFuture<byte[]> registered = new CompletableFuture<>();
+    private RouterCenter routerCenter;
+    private BindUserHandler handler;
+    private EmbeddedChannel channel;
+    private Connection connection;
+
+    @BeforeAll
+    static void init() {
+        EventBus.create(Runnable::run);
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(piccoloServer.getCacheManager()).thenReturn(cacheManager);
+        when(piccoloServer.getMQClient()).thenReturn(mqClient);
+        when(piccoloServer.getProperties(NetProperties.class)).thenReturn(new NetProperties());
+        when(piccoloServer.getProperties(CoreProperties.class)).thenReturn(new CoreProperties());
+        when(piccoloServer.getGatewayServer()).thenReturn(gatewayServer);
+        when(gatewayServer.getRegistration()).thenReturn(registration);
+        when(registration.getHost()).thenReturn("127.0.0.1");
+        when(registration.getPort()).thenReturn(7000);
+        when(cacheManager.hgetAndSetAsync(anyString(), anyString(), any())).thenReturn(registered);
+        when(cacheManager.hofflineLocatorAsync(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(cacheManager.publishAsync(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(0L));
+        when(cacheManager.zAddAsync(anyString(), anyString(), anyDouble())).thenReturn(CompletableFuture.completedFuture(null));
+        when(cacheManager.zRemAsync(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+
+        routerCenter = new RouterCenter(piccoloServer);
+        when(piccoloServer.getRouterCenter()).thenReturn(routerCenter);
+        handler = new BindUserHandler(piccoloServer, next);
+
+        channel = new EmbeddedChannel();
+        NettyConnection conn = new NettyConnection(null, FlushMode.IMMEDIATE, FlushMode.DEFAULT_FLUSH_AFTER_WRITES, null);
+        conn.init(channel, false);
+        conn.getSessionContext().setDeviceId("device").setOsName("android");
+        connection = conn;
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @DisplayName("test_bind")
+    @Test
+    void testBind() throws Exception {
+        handler.received(connection, bindMessage(USER_ID));
+        registered.complete(null);
+        channel.runPendingTasks();
+
+        assertEquals(USER_ID, connection.getSessionContext().getUserId());
+        assertSame(connection, routerCenter.lookupLocal(USER_ID, clientType()).getRouterValue());
+        verify(mqClient).publish(ONLINE_MESSAGE.getTopic(), USER_ID);
+    }
+
+    @DisplayName("test_bind_WithConnectionClosedBeforeRegistered")
+    @Test
+    void testBindWithConnectionClosedBeforeRegistered() throws Exception {
+        handler.received(connection, bindMessage(USER_ID));
+        // the pending user is visible to the close cleanup while redis has not answered yet
+        assertEquals(USER_ID, connection.getSessionContext().getUserId());
+
+        connection.close();
+        EventBus.post(new ConnectionCloseEvent(connection));
+        registered.complete(null);
+        channel.runPendingTasks();
+
+        assertNull(routerCenter.lookupLocal(USER_ID, clientType()));
+        verify(cacheManager, never()).hofflineLocatorAsync(anyString(), anyString(), isNull());
+        verify(mqClient, never()).publish(eq(ONLINE_MESSAGE.getTopic()), any());
+        // offlined by connection id on close and again by the rollback of the late registration
+        verify(cacheManager, times(2)).hofflineLocatorAsync(CacheKeys.getUserRouteKey(USER_ID),
+                String.valueOf(clientType()), connection.getId());
+    }
+
+    @DisplayName("test_bind_WithSupersededBind")
+    @Test
+    void testBindWithSupersededBind() throws Exception {
+        when(cacheManager.hgetBytesAsync(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        handler.received(connection, bindMessage(USER_ID));
+        // a second bind is pipelined before the first one is registered
+        handler.received(connection, bindMessage("other"));
+        registered.complete(null);
+        channel.runPendingTasks();
+
+        assertEquals("other", connection.getSessionContext().getUserId());
+        assertNull(routerCenter.lookupLocal(USER_ID, clientType()));
+        assertSame(connection, routerCenter.lookupLocal("other", clientType()).getRouterValue());
+        verify(mqClient, never()).publish(ONLINE_MESSAGE.getTopic(), USER_ID);
+        verify(mqClient).publish(ONLINE_MESSAGE.getTopic(), "other");
+    }
+
+    private BindUserMessage bindMessage(String userId) {
+        BindUserMessage msg = new BindUserMessage(connection);
+        msg.userId = userId;
+        return msg;
+    }
+
+    private byte clientType() {
+        return connection.getSessionContext().getClientType();
+    }
+
+}
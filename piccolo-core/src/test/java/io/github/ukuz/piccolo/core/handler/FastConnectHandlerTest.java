@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.handler;
+
+import io.github.ukuz.piccolo.api.cache.CacheManager;
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.api.connection.SessionContext;
+import io.github.ukuz.piccolo.api.exchange.handler.ChannelHandler;
+import io.github.ukuz.piccolo.common.ErrorCode;
+import io.github.ukuz.piccolo.common.message.ErrorMessage;
+import io.github.ukuz.piccolo.common.message.FastConnectMessage;
+import io.github.ukuz.piccolo.common.message.FastConnectOkMessage;
+import io.github.ukuz.piccolo.common.properties.CoreProperties;
+import io.github.ukuz.piccolo.common.security.AESCipher;
+import io.github.ukuz.piccolo.core.PiccoloServer;
+import io.github.ukuz.piccolo.core.session.ReusableSession;
+import io.github.ukuz.piccolo.core.session.ReusableSessionManager;
+import io.github.ukuz.piccolo.transport.connection.FlushMode;
+import io.github.ukuz.piccolo.transport.connection.NettyConnection;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FastConnectHandlerTest {
+
+    private static final String DEVICE_ID = "device";
+
+    @Mock
+    private PiccoloServer piccoloServer;
+    @Mock
+    private CacheManager cacheManager;
+    @Mock
+    private ChannelHandler next;
+
+    private final CompletableFuture<byte[]> stored = new CompletableFuture<>();
+    private CoreProperties core;
+    private FastConnectHandler handler;
+    private EmbeddedChannel channel;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() {
+        core = new CoreProperties();
+        core.setSessionExpireTime(60);
+        core.setSessionLocalCacheSize(16);
+        core.setMinHeartbeatTime(10000);
+        core.setMaxHeartbeatTime(180000);
+        when(piccoloServer.getProperties(CoreProperties.class)).thenReturn(core);
+        when(piccoloServer.getCacheManager()).thenReturn(cacheManager);
+        when(cacheManager.getBytesAsync(anyString())).thenReturn(stored);
+        ReusableSessionManager reusableSessionManager = new ReusableSessionManager(piccoloServer);
+        when(piccoloServer.getReusableSessionManager()).thenReturn(reusableSessionManager);
+        handler = new FastConnectHandler(piccoloServer, next);
+
+        channel = new EmbeddedChannel();
+        NettyConnection conn = new NettyConnection(null, FlushMode.IMMEDIATE, FlushMode.DEFAULT_FLUSH_AFTER_WRITES, null);
+        conn.init(channel, false);
+        connection = conn;
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @DisplayName("test_received_WithSessionHit")
+    @Test
+    void testReceivedWithSessionHit() throws Exception {
+        SessionContext context = new SessionContext().setDeviceId(DEVICE_ID).setOsName("android");
+        context.changeCipher(new AESCipher("1234567890123456", "1234567890123456"));
+
+        handler.received(connection, fastConnectMessage(DEVICE_ID));
+        stored.complete(ReusableSession.encode(context));
+        // the reply of redis is handled on the event loop of the channel, not on the redis thread
+        assertNull(channel.readOutbound());
+        channel.runPendingTasks();
+
+        FastConnectOkMessage ok = channel.readOutbound();
+        assertEquals(core.getMaxHeartbeatTime(), ok.heartbeat);
+        assertEquals(DEVICE_ID, connection.getSessionContext().getDeviceId());
+        assertTrue(connection.getSessionContext().getCipher() instanceof AESCipher);
+    }
+
+    @DisplayName("test_received_WithSessionMiss")
+    @Test
+    void testReceivedWithSessionMiss() throws Exception {
+        SessionContext origin = connection.getSessionContext();
+
+        handler.received(connection, fastConnectMessage(DEVICE_ID));
+        stored.complete(null);
+        assertNull(channel.readOutbound());
+        channel.runPendingTasks();
+
+        assertErrorCode(ErrorCode.REPEAT_HANDSHAKE, channel.readOutbound());
+        assertSame(origin, connection.getSessionContext());
+    }
+
+    @DisplayName("test_received_WithQueryFailure")
+    @Test
+    void testReceivedWithQueryFailure() throws Exception {
+        SessionContext origin = connection.getSessionContext();
+
+        handler.received(connection, fastConnectMessage(DEVICE_ID));
+        stored.completeExceptionally(new IllegalStateException("redis unavailable"));
+        assertNull(channel.readOutbound());
+        channel.runPendingTasks();
+
+        assertErrorCode(ErrorCode.REPEAT_HANDSHAKE, channel.readOutbound());
+        assertSame(origin, connection.getSessionContext());
+        assertTrue(channel.isActive());
+    }
+
+    private FastConnectMessage fastConnectMessage(String deviceId) {
+        FastConnectMessage msg = new FastConnectMessage(connection);
+        msg.sessionId = "session";
+        msg.deviceId = deviceId;
+        msg.maxHeartbeat = 300000;
+        return msg;
+    }
+
+    private static void assertErrorCode(ErrorCode code, Object message) {
+        assertTrue(message instanceof ErrorMessage);
+        assertTrue(message.toString().contains("code=" + code.errorCode), message.toString());
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.heartbeat;
+
+import io.github.ukuz.piccolo.api.PiccoloContext;
+import io.github.ukuz.piccolo.common.properties.CoreProperties;
+import io.github.ukuz.piccolo.transport.connection.NettyConnection;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HeartbeatSupervisorTest {
+
+    private static final int HEARTBEAT_MS = 100;
+    private static final int TOLERANCE_MS = 50;
+
+    @Mock
+    private PiccoloContext piccoloContext;
+
+    private HeartbeatSupervisor supervisor;
+    private EmbeddedChannel channel;
+    private NettyConnection connection;
+
+    @BeforeEach
+    void setUp() {
+        CoreProperties core = new CoreProperties();
+        core.setMaxHbTimeoutMs(TOLERANCE_MS);
+        core.setHbCheckTickMs(10);
+        core.setHbCheckTicksPerWheel(64);
+        when(piccoloContext.getProperties(CoreProperties.class)).thenReturn(core);
+        supervisor = new HeartbeatSupervisor(piccoloContext);
+        supervisor.startAsync().join();
+
+        channel = new EmbeddedChannel();
+        connection = new NettyConnection();
+        connection.init(channel, false);
+        connection.getSessionContext().setHeartbeat(HEARTBEAT_MS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        supervisor.stopAsync().join();
+        channel.finishAndReleaseAll();
+    }
+
+    @DisplayName("test_watch_WithIdleConnection")
+    @Test
+    void testWatchWithIdleConnection() {
+        long start = System.currentTimeMillis();
+        supervisor.watch(connection);
+        assertEquals(1, supervisor.getWatching());
+
+        // the connection is marked closed before the timer thread closes the channel and counts the eviction
+        waitUntil(() -> !channel.isActive() && supervisor.getEvicted() == 1);
+
+        // not within the heartbeat period
+        assertTrue(System.currentTimeMillis() - start >= HEARTBEAT_MS);
+        assertTrue(connection.isClosed());
+        assertEquals(0, supervisor.getWatching());
+    }
+
+    @DisplayName("test_watch_WithReadingConnection")
+    @Test
+    void testWatchWithReadingConnection() throws InterruptedException {
+        supervisor.watch(connection);
+
+        // reads for three heartbeat periods
+        long deadline = System.currentTimeMillis() + 3 * (HEARTBEAT_MS + TOLERANCE_MS);
+        while (System.currentTimeMillis() < deadline) {
+            connection.updateLastReadTime();
+            Thread.sleep(HEARTBEAT_MS / 5);
+        }
+        assertFalse(connection.isClosed());
+        assertEquals(0, supervisor.getEvicted());
+        assertEquals(1, supervisor.getWatching());
+
+        // then goes idle
+        waitUntil(connection::isClosed);
+        assertEquals(1, supervisor.getEvicted());
+        assertEquals(0, supervisor.getWatching());
+    }
+
+    @DisplayName("test_watch_WithClosedConnection")
+    @Test
+    void testWatchWithClosedConnection() {
+        supervisor.watch(connection);
+        connection.close();
+
+        // the timeout is dropped without counting an eviction
+        waitUntil(() -> supervisor.getWatching() == 0);
+        assertEquals(0, supervisor.getEvicted());
+    }
+
+    @DisplayName("test_watch_WithoutHeartbeat")
+    @Test
+    void testWatchWithoutHeartbeat() {
+        connection.getSessionContext().setHeartbeat(Integer.MAX_VALUE);
+
+        supervisor.watch(connection);
+
+        assertEquals(0, supervisor.getWatching());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.push;
+
+import io.github.ukuz.piccolo.api.connection.Cipher;
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.common.message.DispatcherResponseMessage;
+import io.github.ukuz.piccolo.core.PiccoloServer;
+import io.github.ukuz.piccolo.core.properties.PushProperties;
+import io.github.ukuz.piccolo.transport.connection.FlushMode;
+import io.github.ukuz.piccolo.transport.connection.NettyConnection;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BroadcastEngineTest {
+
+    private static final byte[] CONTENT = {1, 2, 3};
+
+    @Mock
+    private PiccoloServer piccoloServer;
+    @Mock
+    private Cipher cipher;
+
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private BroadcastEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        when(piccoloServer.getProperties(PushProperties.class)).thenReturn(new PushProperties());
+        engine = new BroadcastEngine(piccoloServer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channels.forEach(EmbeddedChannel::finishAndReleaseAll);
+    }
+
+    @DisplayName("test_fanOut_WithSharedFrame")
+    @Test
+    void testFanOutWithSharedFrame() {
+        for (int i = 0; i < 3; i++) {
+            newConnection();
+        }
+
+        BroadcastProgress progress = engine.fanOut(connections.get(0), CONTENT, connections);
+        channels.forEach(EmbeddedChannel::runPendingTasks);
+
+        assertTrue(progress.isDone());
+        assertEquals(3, progress.getSent());
+        ByteBuf shared = null;
+        for (EmbeddedChannel channel : channels) {
+            ByteBuf frame = channel.readOutbound();
+            // a duplicate of the frame encoded once
+            if (shared == null) {
+                shared = frame.unwrap();
+            }
+            assertSame(shared, frame.unwrap());
+            assertEquals(shared.readableBytes(), frame.readableBytes());
+            frame.release();
+            assertNull(channel.readOutbound());
+        }
+        assertEquals(0, shared.refCnt());
+    }
+
+    @DisplayName("test_fanOut_WithSecurityConnection")
+    @Test
+    void testFanOutWithSecurityConnection() {
+        newConnection();
+        Connection security = newConnection();
+        security.getSessionContext().changeCipher(cipher);
+
+        BroadcastProgress progress = engine.fanOut(connections.get(0), CONTENT, connections);
+        channels.forEach(EmbeddedChannel::runPendingTasks);
+
+        assertTrue(progress.isDone());
+        assertEquals(2, progress.getSent());
+        ByteBuf frame = channels.get(0).readOutbound();
+        frame.release();
+        // encoded and encrypted by the pipeline of its own connection
+        Object message = channels.get(1).readOutbound();
+        assertTrue(message instanceof DispatcherResponseMessage);
+        assertSame(security, ((DispatcherResponseMessage) message).getConnection());
+        assertArrayEquals(CONTENT, ((DispatcherResponseMessage) message).payload);
+    }
+
+    @DisplayName("test_fanOut_WithInactiveConnection")
+    @Test
+    void testFanOutWithInactiveConnection() {
+        newConnection();
+        newConnection();
+        channels.get(1).close();
+
+        BroadcastProgress progress = engine.fanOut(connections.get(0), CONTENT, connections);
+        channels.forEach(EmbeddedChannel::runPendingTasks);
+
+        assertTrue(progress.isDone());
+        assertEquals(1, progress.getSent());
+        assertEquals(1, progress.getSkipped());
+    }
+
+    @DisplayName("test_fanOut_WithSharedRateLimit")
+    @Test
+    void testFanOutWithSharedRateLimit() {
+        PushProperties push = new PushProperties();
+        push.setBroadcastRateLimit(2);
+        push.setBroadcastBatchSize(1);
+        when(piccoloServer.getProperties(PushProperties.class)).thenReturn(push);
+        engine = new BroadcastEngine(piccoloServer);
+        Connection first = newConnection();
+        Connection second = newConnection();
+
+        BroadcastProgress firstProgress = engine.fanOut(first, CONTENT, Collections.singletonList(first));
+        BroadcastProgress secondProgress = engine.fanOut(second, CONTENT, Collections.singletonList(second));
+        channels.forEach(EmbeddedChannel::runPendingTasks);
+
+        assertTrue(firstProgress.isDone());
+        // the first broadcast used up the budget of the next half second
+        assertFalse(secondProgress.isDone());
+        assertNull(channels.get(1).readOutbound());
+        assertTrue(channels.get(1).runScheduledPendingTasks() > 0);
+    }
+
+    private Connection newConnection() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        NettyConnection connection = new NettyConnection(null, FlushMode.IMMEDIATE, FlushMode.DEFAULT_FLUSH_AFTER_WRITES, null);
+        connection.init(channel, false);
+        channels.add(channel);
+        connections.add(connection);
+        return connection;
+    }
+
+}
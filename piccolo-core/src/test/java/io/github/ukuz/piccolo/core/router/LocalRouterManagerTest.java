@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.router;
+
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.api.connection.SessionContext;
+import io.github.ukuz.piccolo.api.event.ConnectionCloseEvent;
+import io.github.ukuz.piccolo.common.event.EventBus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LocalRouterManagerTest {
+
+    private static final int USERS = 500;
+    private static final int CLIENT_TYPES = 6;
+
+    @BeforeAll
+    static void setUp() {
+        EventBus.create(Runnable::run);
+    }
+
+    @DisplayName("test_register_WithConcurrentClientTypes")
+    @Test
+    void testRegisterWithConcurrentClientTypes() throws Exception {
+        LocalRouterManager manager = new LocalRouterManager();
+        LocalRouter[][] routers = newRouters(USERS, CLIENT_TYPES);
+
+        // every thread registers its own client type for the same users
+        runConcurrently(CLIENT_TYPES, thread -> {
+            for (int user = 0; user < USERS; user++) {
+                manager.register(userId(user), routers[user][thread]);
+            }
+        });
+
+        for (int user = 0; user < USERS; user++) {
+            LocalRouterSet set = manager.lookupAll(userId(user));
+            assertEquals(CLIENT_TYPES, set.size(), "lost registration, user: " + user);
+            for (int type = 0; type < CLIENT_TYPES; type++) {
+                assertSame(routers[user][type], manager.lookup(userId(user), clientType(type)));
+            }
+        }
+    }
+
+    @DisplayName("test_register_WithConcurrentUnregister")
+    @Test
+    void testRegisterWithConcurrentUnregister() throws Exception {
+        LocalRouterManager manager = new LocalRouterManager();
+        LocalRouter[][] routers = newRouters(USERS, CLIENT_TYPES);
+
+        // even client types are registered, odd ones register and unregister repeatedly
+        runConcurrently(CLIENT_TYPES, thread -> {
+            for (int round = 0; round < 5; round++) {
+                for (int user = 0; user < USERS; user++) {
+                    manager.register(userId(user), routers[user][thread]);
+                    if (thread % 2 == 1) {
+                        manager.unregister(userId(user), clientType(thread));
+                    }
+                }
+            }
+        });
+
+        for (int user = 0; user < USERS; user++) {
+            LocalRouterSet set = manager.lookupAll(userId(user));
+            assertEquals(CLIENT_TYPES / 2, set.size(), "lost registration, user: " + user);
+            for (int type = 0; type < CLIENT_TYPES; type += 2) {
+                assertSame(routers[user][type], manager.lookup(userId(user), clientType(type)));
+            }
+        }
+    }
+
+    @DisplayName("test_close_WithConcurrentReconnect")
+    @Test
+    void testCloseWithConcurrentReconnect() throws Exception {
+        LocalRouterManager manager = new LocalRouterManager();
+        LocalRouter[][] oldRouters = newRouters(USERS, CLIENT_TYPES);
+        LocalRouter[][] newRouters = newRouters(USERS, CLIENT_TYPES);
+        for (int user = 0; user < USERS; user++) {
+            for (int type = 0; type < CLIENT_TYPES; type++) {
+                manager.register(userId(user), oldRouters[user][type]);
+            }
+        }
+
+        // half of the threads reconnect, the other half deliver the close of the old connections
+        runConcurrently(CLIENT_TYPES * 2, thread -> {
+            int type = thread / 2;
+            for (int user = 0; user < USERS; user++) {
+                if (thread % 2 == 0) {
+                    manager.register(userId(user), newRouters[user][type]);
+                } else {
+                    manager.on(new ConnectionCloseEvent(oldRouters[user][type].getRouterValue()));
+                }
+            }
+        });
+
+        for (int user = 0; user < USERS; user++) {
+            for (int type = 0; type < CLIENT_TYPES; type++) {
+                assertSame(newRouters[user][type], manager.lookup(userId(user), clientType(type)),
+                        "the close of an old connection removed the new one, user: " + user);
+            }
+        }
+    }
+
+    @DisplayName("test_lookupAll_WithSnapshot")
+    @Test
+    void testLookupAllWithSnapshot() {
+        LocalRouterManager manager = new LocalRouterManager();
+        LocalRouter[][] routers = newRouters(1, 2);
+        manager.register(userId(0), routers[0][0]);
+
+        LocalRouterSet snapshot = manager.lookupAll(userId(0));
+        assertSame(snapshot, manager.lookupAll(userId(0)));
+
+        manager.register(userId(0), routers[0][1]);
+        assertEquals(1, snapshot.size());
+        assertEquals(2, manager.lookupAll(userId(0)).size());
+
+        manager.unregister(userId(0), clientType(0));
+        manager.unregister(userId(0), clientType(1));
+        assertTrue(manager.lookupAll(userId(0)).isEmpty());
+    }
+
+    private void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                int thread = i;
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private LocalRouter[][] newRouters(int users, int clientTypes) {
+        LocalRouter[][] routers = new LocalRouter[users][clientTypes];
+        for (int user = 0; user < users; user++) {
+            for (int type = 0; type < clientTypes; type++) {
+                SessionContext context = mock(SessionContext.class);
+                when(context.getUserId()).thenReturn(userId(user));
+                when(context.getClientType()).thenReturn(clientType(type));
+                Connection connection = mock(Connection.class);
+                when(connection.getSessionContext()).thenReturn(context);
+                routers[user][type] = new LocalRouter(connection);
+            }
+        }
+        return routers;
+    }
+
+    private static String userId(int user) {
+        return "user-" + user;
+    }
+
+    private static byte clientType(int type) {
+        return (byte) (type + 1);
+    }
+
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.session;
+
+import io.github.ukuz.piccolo.api.PiccoloContext;
+import io.github.ukuz.piccolo.api.cache.CacheManager;
+import io.github.ukuz.piccolo.api.connection.SessionContext;
+import io.github.ukuz.piccolo.common.properties.CoreProperties;
+import io.github.ukuz.piccolo.common.security.AESCipher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReusableSessionManagerTest {
+
+    @Mock
+    private PiccoloContext piccoloContext;
+    @Mock
+    private CacheManager cacheManager;
+
+    private ReusableSessionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        CoreProperties core = new CoreProperties();
+        core.setSessionExpireTime(60);
+        core.setSessionLocalCacheSize(16);
+        when(piccoloContext.getProperties(CoreProperties.class)).thenReturn(core);
+        lenient().when(piccoloContext.getCacheManager()).thenReturn(cacheManager);
+        manager = new ReusableSessionManager(piccoloContext);
+    }
+
+    private ReusableSession session() {
+        SessionContext context = new SessionContext().setDeviceId("device-1").setOsName("android");
+        context.changeCipher(new AESCipher("1234567890123456", "1234567890123456"));
+        return manager.genSession(context);
+    }
+
+    @DisplayName("test_querySessionAsync_WithLocalHit")
+    @Test
+    void testQuerySessionAsyncWithLocalHit() {
+        when(cacheManager.setBytesAsync(anyString(), any(byte[].class), eq(60))).thenReturn(CompletableFuture.completedFuture(null));
+        ReusableSession session = session();
+        manager.cacheSessionAsync(session);
+
+        ReusableSession cached = manager.querySessionAsync(session.getSessionId()).join();
+
+        assertEquals("device-1", cached.getContext().getDeviceId());
+        // a copy, the issuing connection keeps its own context
+        assertNotSame(session.getContext(), cached.getContext());
+        verify(cacheManager, never()).getBytesAsync(anyString());
+        assertEquals(1, manager.getLocalStats().hitCount());
+    }
+
+    @DisplayName("test_querySessionAsync_WithLocalMiss")
+    @Test
+    void testQuerySessionAsyncWithLocalMiss() {
+        ReusableSession session = session();
+        byte[] stored = ReusableSession.encode(session.getContext());
+        when(cacheManager.getBytesAsync(anyString())).thenReturn(CompletableFuture.completedFuture(stored));
+
+        ReusableSession queried = manager.querySessionAsync(session.getSessionId()).join();
+
+        assertEquals("device-1", queried.getContext().getDeviceId());
+        assertEquals(1, manager.getLocalStats().missCount());
+    }
+}
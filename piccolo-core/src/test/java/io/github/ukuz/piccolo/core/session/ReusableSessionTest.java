@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.session;
+
+import io.github.ukuz.piccolo.api.connection.SessionContext;
+import io.github.ukuz.piccolo.common.security.AESCipher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReusableSessionTest {
+
+    private static final byte[] KEY = {1, -2, 3, -4, 5, -6, 7, -8, 9, -10, 11, -12, 13, -14, 15, -16};
+    private static final byte[] IV = {-1, 2, -3, 4, -5, 6, -7, 8, -9, 10, -11, 12, -13, 14, -15, 16};
+
+    private static SessionContext context() {
+        SessionContext context = new SessionContext()
+                .setOsName("android")
+                .setOsVersion("10")
+                .setClientVersion("1.0.0")
+                .setDeviceId("device-1");
+        context.changeCipher(new AESCipher(KEY, IV));
+        return context;
+    }
+
+    @DisplayName("test_decode_WithEncoded")
+    @Test
+    void testDecodeWithEncoded() {
+        ReusableSession session = ReusableSession.decode(ReusableSession.encode(context()));
+
+        assertSession(session);
+    }
+
+    @DisplayName("test_decode_WithLegacyText")
+    @Test
+    void testDecodeWithLegacyText() {
+        String legacy = "android,10,1.0.0,device-1," + context().getCipher();
+
+        ReusableSession session = ReusableSession.decode(legacy.getBytes(StandardCharsets.UTF_8));
+
+        assertSession(session);
+        assertTrue(ReusableSession.encode(context()).length < legacy.length());
+    }
+
+    @DisplayName("test_decode_WithAbsent")
+    @Test
+    void testDecodeWithAbsent() {
+        assertNull(ReusableSession.decode(null));
+        assertNull(ReusableSession.decode("android,10".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void assertSession(ReusableSession session) {
+        SessionContext context = session.getContext();
+        assertEquals("android", context.getOsName());
+        assertEquals("10", context.getOsVersion());
+        assertEquals("1.0.0", context.getClientVersion());
+        assertEquals("device-1", context.getDeviceId());
+        AESCipher cipher = (AESCipher) context.getCipher();
+        assertArrayEquals(KEY, cipher.keyB);
+        assertArrayEquals(IV, cipher.ivB);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.core.session;
+
+import io.github.ukuz.piccolo.api.connection.SessionContext;
+import io.github.ukuz.piccolo.api.router.ClientLocator;
+import io.github.ukuz.piccolo.common.json.Jsons;
+import io.github.ukuz.piccolo.common.router.ClientLocatorCodec;
+import io.github.ukuz.piccolo.common.security.AESCipher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * encode and decode of the values stored in redis, the binary codecs versus the json locator and the text session.
+ *
+ * run with {@code main}, the bytes per entry of each format are printed before the benchmarks.
+ *
+ * @author ukuz90
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StoredValueCodecBenchmark {
+
+    private ClientLocator locator;
+    private byte[] binaryLocator;
+    private String jsonLocator;
+
+    private SessionContext context;
+    private byte[] binarySession;
+    private byte[] legacySession;
+
+    @Setup
+    public void setUp() {
+        locator = locator();
+        binaryLocator = ClientLocatorCodec.encode(locator);
+        jsonLocator = locator.toJson();
+        context = context();
+        binarySession = ReusableSession.encode(context);
+        legacySession = legacySession(context).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ClientLocator locator() {
+        ClientLocator locator = new ClientLocator()
+                .setHost("10.12.131.7")
+                .setPort(8087)
+                .setDeviceId("a3f1c9e0-5d2b-4e7a-9c1f-0b8d6e4a2f71")
+                .setClientVersion("2.3.1")
+                .setOsVersion("10")
+                .setConnId("0242acfffe110002-00000001-00000003-5e6f9a1b2c3d4e5f-8a9b0c1d");
+        locator.setOsName("android");
+        return locator;
+    }
+
+    private static SessionContext context() {
+        byte[] key = new byte[16];
+        byte[] iv = new byte[16];
+        for (int i = 0; i < 16; i++) {
+            key[i] = (byte) (i * 37 - 128);
+            iv[i] = (byte) (i * 59 - 100);
+        }
+        SessionContext context = new SessionContext()
+                .setOsName("android")
+                .setOsVersion("10")
+                .setClientVersion("2.3.1")
+                .setDeviceId("a3f1c9e0-5d2b-4e7a-9c1f-0b8d6e4a2f71");
+        context.changeCipher(new AESCipher(key, iv));
+        return context;
+    }
+
+    private static String legacySession(SessionContext context) {
+        return context.getOsName() + ',' + context.getOsVersion() + ',' + context.getClientVersion() + ','
+                + context.getDeviceId() + ',' + context.getCipher();
+    }
+
+    @Benchmark
+    public byte[] locatorEncodeBinary() {
+        return ClientLocatorCodec.encode(locator);
+    }
+
+    @Benchmark
+    public byte[] locatorEncodeJson() {
+        return locator.toJson().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ClientLocator locatorDecodeBinary() {
+        return ClientLocatorCodec.decode(binaryLocator);
+    }
+
+    @Benchmark
+    public ClientLocator locatorDecodeJson() {
+        return Jsons.fromJson(jsonLocator, ClientLocator.class);
+    }
+
+    @Benchmark
+    public byte[] sessionEncodeBinary() {
+        return ReusableSession.encode(context);
+    }
+
+    @Benchmark
+    public byte[] sessionEncodeLegacy() {
+        return legacySession(context).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ReusableSession sessionDecodeBinary() {
+        return ReusableSession.decode(binarySession);
+    }
+
+    @Benchmark
+    public ReusableSession sessionDecodeLegacy() {
+        return ReusableSession.decode(legacySession);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        ClientLocator locator = locator();
+        SessionContext context = context();
+        System.out.println("client locator bytes per entry, binary: " + ClientLocatorCodec.encode(locator).length
+                + " json: " + locator.toJson().getBytes(StandardCharsets.UTF_8).length);
+        System.out.println("reusable session bytes per entry, binary: " + ReusableSession.encode(context).length
+                + " legacy: " + legacySession(context).getBytes(StandardCharsets.UTF_8).length);
+
+        Options options = new OptionsBuilder()
+                .include(StoredValueCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
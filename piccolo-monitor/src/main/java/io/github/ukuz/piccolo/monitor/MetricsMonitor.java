@@ -36,6 +36,13 @@ public class MetricsMonitor {
     private static final String REQUEST_BYTES_TAG = "piccolo_recv_bytes";
     private static final String RESPONSE_CNT_TAG = "piccolo_send_count";
     private static final String RESPONSE_BYTES_TAG = "piccolo_send_bytes";
+    private static final String BROADCAST_CNT_TAG = "piccolo_broadcast_count";
+    private static final String BACKPRESSURE_CNT_TAG = "piccolo_backpressure_count";
+    private static final String BACKPRESSURE_PENDING_TAG = "piccolo_backpressure_pending";
+    private static final String HEARTBEAT_TAG = "piccolo_heartbeat_connections";
+    private static final String CACHE_CNT_TAG = "piccolo_cache_count";
+    private static final String CACHE_SIZE_TAG = "piccolo_cache_size";
+    private static final String MQ_SEND_TAG = "piccolo_mq_send";
 
     public static void gauge(String tag, String module, String name, Number value) {
         if (StringUtils.hasText(module)) {
@@ -98,6 +105,45 @@ public class MetricsMonitor {
         return counter(RESPONSE_BYTES_TAG, "name", name);
     }
 
+    public static final Counter getBroadcastCount(String name) {
+        return counter(BROADCAST_CNT_TAG, "name", name);
+    }
+
+    public static final void monitorBackpressureCount(String name, String action, Supplier<Number> supplier) {
+        FunctionCounter.builder(BACKPRESSURE_CNT_TAG, supplier, s -> s.get().doubleValue())
+                .tags(wrapLabelSet("name", name, "action", action))
+                .register(Metrics.globalRegistry);
+    }
+
+    public static final void monitorBackpressurePending(String name, Supplier<Number> supplier) {
+        Gauge.builder(BACKPRESSURE_PENDING_TAG, supplier).tags(wrapLabelSet("name", name)).register(Metrics.globalRegistry);
+    }
+
+    public static final void monitorHeartbeat(String name, Supplier<Number> supplier) {
+        Gauge.builder(HEARTBEAT_TAG, supplier).tags(wrapLabelSet("name", name)).register(Metrics.globalRegistry);
+    }
+
+    public static final void monitorCacheCount(String name, String result, Supplier<Number> supplier) {
+        FunctionCounter.builder(CACHE_CNT_TAG, supplier, s -> s.get().doubleValue())
+                .tags(wrapLabelSet("name", name, "result", result))
+                .register(Metrics.globalRegistry);
+    }
+
+    public static final void monitorCacheSize(String name, Supplier<Number> supplier) {
+        Gauge.builder(CACHE_SIZE_TAG, supplier).tags(wrapLabelSet("name", name)).register(Metrics.globalRegistry);
+    }
+
+    /**
+     * latency of a message from the uplink queue to the broker acknowledgement
+     *
+     * @param topic
+     * @param result success or failure
+     * @return
+     */
+    public static final Timer getMqSendTimer(String topic, String result) {
+        return Metrics.timer(MQ_SEND_TAG, wrapLabelSet("topic", topic, "result", result));
+    }
+
     public static final void monitorDisk() {
         if (!PlatformDependent.isWindows()) {
             new DiskSpaceMetrics(new File("/")).bindTo(Metrics.globalRegistry);
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.mq.kafka.consumer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Worker lanes of a consumer, the poll thread hands every record to a lane chosen by its partition or by its key,
+ * so the records of a partition, or of a key, are received in order while the others go on in parallel.
+ *
+ * @author ukuz90
+ */
+public class ConsumerLanes {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConsumerLanes.class);
+    private static final long IDLE_POLL_MS = 100;
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactoryBuilder()
+            .setNameFormat("piccolo-mq-lane-%d")
+            .setDaemon(true)
+            .build();
+
+    private final Lane[] lanes;
+    private final boolean routeByKey;
+    private volatile boolean running;
+
+    /**
+     * @param laneCount
+     * @param routeByKey true to keep the order of every key only, false to keep the order of every partition
+     */
+    public ConsumerLanes(int laneCount, boolean routeByKey) {
+        this.lanes = new Lane[Math.max(laneCount, 1)];
+        this.routeByKey = routeByKey;
+    }
+
+    void start(Consumer<ConsumerRecord<String, byte[]>> handler) {
+        running = true;
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(handler);
+        }
+    }
+
+    void dispatch(ConsumerRecord<String, byte[]> record) {
+        lanes[indexOf(record)].queue.offer(record);
+    }
+
+    private int indexOf(ConsumerRecord<String, byte[]> record) {
+        int hash = routeByKey && record.key() != null
+                ? record.key().hashCode()
+                : 31 * record.topic().hashCode() + record.partition();
+        return Math.floorMod(hash, lanes.length);
+    }
+
+    /**
+     * stop the lanes once the queued records were handled
+     */
+    void close() {
+        running = false;
+        for (Lane lane : lanes) {
+            if (lane != null) {
+                lane.join();
+            }
+        }
+    }
+
+    private final class Lane implements Runnable {
+
+        private final BlockingQueue<ConsumerRecord<String, byte[]>> queue = new LinkedBlockingQueue<>();
+        private final Consumer<ConsumerRecord<String, byte[]>> handler;
+        private final Thread thread;
+
+        Lane(Consumer<ConsumerRecord<String, byte[]>> handler) {
+            this.handler = handler;
+            this.thread = THREAD_FACTORY.newThread(this);
+            this.thread.start();
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                ConsumerRecord<String, byte[]> record;
+                try {
+                    record = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (record == null) {
+                    continue;
+                }
+                try {
+                    handler.accept(record);
+                } catch (Exception e) {
+                    LOGGER.error("lane handle failure, topic: {} partition: {} offset: {} cause: {}",
+                            record.topic(), record.partition(), record.offset(), e);
+                }
+            }
+        }
+
+        void join() {
+            try {
+                thread.join(CLOSE_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -25,61 +25,199 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 /**
+ * Polls all the topics registered to it with a single consumer and hands every record to the receiver of its topic,
+ * on the poll thread or on {@link ConsumerLanes}. a topic registered while polling is subscribed on the next loop.
+ *
+ * every delivered record is tracked by {@link PartitionOffsetTracker}, a record is acknowledged once the receiver
+ * returned, or once its message was committed when the receiver acknowledges manually, only the lowest
+ * unacknowledged offset of a partition is committed. a partition is paused while its window of records not
+ * committable yet is full. a record whose receiver threw is logged and acknowledged, it is not delivered again.
+ *
+ * on revoke only the acknowledged offsets are committed, the poll thread is shared by all the topics so it does not
+ * wait for the records still in flight, the next owner of the partition receives them again.
+ *
  * @author ukuz90
  */
 public class KafkaConsumerWorker implements Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaConsumerWorker.class);
-    private List<String> topics;
+    public static final int DEFAULT_MAX_PENDING_PER_PARTITION = 1000;
+
     private volatile boolean running = true;
-    private final MQMessageReceiver receiver;
+    private volatile boolean resubscribe;
+    private final ConcurrentMap<String, MQMessageReceiver> receivers = new ConcurrentHashMap<>();
     private final ConcurrentMap<TopicPartition, OffsetAndMetadata> offsetMap;
-    private final KafkaConsumer consumer;
+    private final Consumer<String, byte[]> consumer;
+    private final ConsumerLanes lanes;
+    private final int maxPendingPerPartition;
+    private final PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+    private final Set<TopicPartition> assigned = ConcurrentHashMap.newKeySet();
+    private final Set<TopicPartition> paused = new HashSet<>();
 
-    public KafkaConsumerWorker(Map<String, Object> properties, List<String> topics, MQMessageReceiver receiver) {
-        this.topics = topics;
-        this.receiver = receiver;
-        this.offsetMap = Maps.newConcurrentMap();
-        this.consumer = new KafkaConsumer(properties);
+    public KafkaConsumerWorker(Map<String, Object> properties) {
+        this(properties, null, DEFAULT_MAX_PENDING_PER_PARTITION);
     }
 
+    /**
+     * @param properties
+     * @param lanes the lanes receiving the records in parallel, null to receive them on the poll thread
+     * @param maxPendingPerPartition a partition is paused once this number of its records are not committable
+     */
     @SuppressWarnings("unchecked")
+    public KafkaConsumerWorker(Map<String, Object> properties, ConsumerLanes lanes, int maxPendingPerPartition) {
+        this(new KafkaConsumer(properties), lanes, maxPendingPerPartition);
+    }
+
+    KafkaConsumerWorker(Consumer<String, byte[]> consumer, ConsumerLanes lanes, int maxPendingPerPartition) {
+        this.offsetMap = Maps.newConcurrentMap();
+        this.consumer = consumer;
+        this.lanes = lanes;
+        this.maxPendingPerPartition = Math.max(maxPendingPerPartition, 1);
+    }
+
+    /**
+     * route the records of the topics to the receiver, a topic registered again is routed to its new receiver
+     *
+     * @param topics
+     * @param receiver
+     */
+    public void register(Collection<String> topics, MQMessageReceiver receiver) {
+        boolean added = false;
+        for (String topic : topics) {
+            MQMessageReceiver previous = receivers.put(topic, receiver);
+            if (previous == null) {
+                added = true;
+            } else if (previous != receiver) {
+                LOGGER.warn("topic: {} receiver replaced, previous: {} current: {}", topic, previous, receiver);
+            }
+        }
+        if (added) {
+            resubscribe = true;
+        }
+    }
+
     @Override
     public void run() {
         try {
-            consumer.subscribe(topics, new ConsumerRebalanceListener() {
+            if (lanes != null) {
+                lanes.start(this::receive);
+            }
+            ConsumerRebalanceListener rebalanceListener = new ConsumerRebalanceListener() {
                 @Override
                 public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    markCommittable();
                     commitSync(true);
+                    tracker.remove(partitions);
+                    assigned.removeAll(partitions);
+                    paused.removeAll(partitions);
                 }
 
                 @Override
                 public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
                     clearOffsets();
+                    assigned.addAll(partitions);
                 }
-            });
+            };
+            resubscribe = true;
             while (isRunning()) {
+                if (resubscribe) {
+                    resubscribe = false;
+                    List<String> topics = new ArrayList<>(receivers.keySet());
+                    consumer.subscribe(topics, rebalanceListener);
+                    LOGGER.info("subscribe topics: {}", topics);
+                }
+                resumeDrained();
                 ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofMillis(20));
-                records.forEach(record -> {
-                    LOGGER.info("topic: {} partition: {} offset: {} ", record.topic(), record.partition(), record.offset());
-                    receiver.receive(record.topic(), record.value(),
-                            new TopicPartition(record.topic(), record.partition()),
-                            new OffsetAndMetadata(record.offset() + 1));
-                });
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    tracker.track(new TopicPartition(record.topic(), record.partition()), record.offset());
+                    if (lanes == null) {
+                        receive(record);
+                    } else {
+                        lanes.dispatch(record);
+                    }
+                }
+                pauseSaturated(records.partitions());
+                markCommittable();
                 commitSync(false);
             }
 
         } catch (Exception e) {
             LOGGER.error("consume failure, err: {}", e.getCause());
         } finally {
+            if (lanes != null) {
+                lanes.close();
+            }
+            markCommittable();
             commitSync(true);
             consumer.close();
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private void receive(ConsumerRecord<String, byte[]> record) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("topic: {} partition: {} offset: {} ", record.topic(), record.partition(), record.offset());
+        }
+        TopicPartition topicPartition = new TopicPartition(record.topic(), record.partition());
+        MQMessageReceiver receiver = receivers.get(record.topic());
+        if (receiver == null) {
+            LOGGER.warn("can not found topic: {}'s receiver, offset: {}", record.topic(), record.offset());
+            tracker.ack(topicPartition, record.offset());
+            return;
+        }
+        boolean failed = false;
+        try {
+            receiver.receive(record.topic(), record.value(), topicPartition, new OffsetAndMetadata(record.offset() + 1));
+        } catch (Exception e) {
+            failed = true;
+            LOGGER.error("receive failure, topicPartition: {} offset: {} cause: {}", topicPartition, record.offset(), e);
+        } finally {
+            // the manual ack of a failed record never comes, skip it instead of blocking the partition
+            if (failed || !receiver.isManualAck()) {
+                tracker.ack(topicPartition, record.offset());
+            }
+        }
+    }
+
+    private void pauseSaturated(Set<TopicPartition> partitions) {
+        List<TopicPartition> saturated = new ArrayList<>();
+        for (TopicPartition topicPartition : partitions) {
+            if (!paused.contains(topicPartition) && tracker.pending(topicPartition) >= maxPendingPerPartition) {
+                saturated.add(topicPartition);
+            }
+        }
+        if (!saturated.isEmpty()) {
+            consumer.pause(saturated);
+            paused.addAll(saturated);
+            LOGGER.info("pending records exceed {}, pause partitions: {}", maxPendingPerPartition, saturated);
+        }
+    }
+
+    private void resumeDrained() {
+        if (paused.isEmpty()) {
+            return;
+        }
+        List<TopicPartition> drained = new ArrayList<>();
+        for (TopicPartition topicPartition : paused) {
+            if (tracker.pending(topicPartition) <= maxPendingPerPartition / 2) {
+                drained.add(topicPartition);
+            }
+        }
+        if (!drained.isEmpty()) {
+            consumer.resume(drained);
+            paused.removeAll(drained);
+            LOGGER.info("pending records drained, resume partitions: {}", drained);
+        }
+    }
+
+    private void markCommittable() {
+        tracker.committable().forEach(this::mark);
+    }
+
     public boolean isRunning() {
         return running;
     }
@@ -88,7 +226,31 @@ public class KafkaConsumerWorker implements Runnable {
         this.running = running;
     }
 
+    /**
+     * @param topicPartition
+     * @return whether the partition is currently assigned to this consumer
+     */
+    public boolean isAssigned(TopicPartition topicPartition) {
+        return assigned.contains(topicPartition);
+    }
+
+    /**
+     * acknowledge a message received by a receiver which acknowledges manually, ignored otherwise
+     *
+     * @param topicPartition
+     * @param offsetAndMetadata the offset following the one of the message
+     */
     public void commit(TopicPartition topicPartition, OffsetAndMetadata offsetAndMetadata) {
+        MQMessageReceiver receiver = receivers.get(topicPartition.topic());
+        if (receiver == null || !receiver.isManualAck()) {
+            return;
+        }
+        if (!tracker.ack(topicPartition, offsetAndMetadata.offset() - 1) && LOGGER.isDebugEnabled()) {
+            LOGGER.debug("ack ignored, not delivered or already acked, topicPartition: {} offset: {}", topicPartition, offsetAndMetadata);
+        }
+    }
+
+    private void mark(TopicPartition topicPartition, OffsetAndMetadata offsetAndMetadata) {
         synchronized (offsetMap) {
             OffsetAndMetadata offset = offsetMap.get(topicPartition);
             if (offset == null) {
@@ -115,7 +277,9 @@ public class KafkaConsumerWorker implements Runnable {
         if (sync) {
             try {
                 consumer.commitSync(unmodifiedMap);
-                LOGGER.info("sync commit success, offsets: {}", unmodifiedMap);
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("sync commit success, offsets: {}", unmodifiedMap);
+                }
             } catch (KafkaException e) {
                 LOGGER.error("sync commit error, offsets: {} cause: {}", unmodifiedMap, e);
                 backupExceptionOffsets(unmodifiedMap);
@@ -124,7 +288,9 @@ public class KafkaConsumerWorker implements Runnable {
         } else {
             consumer.commitAsync(unmodifiedMap, (offsets, exception) -> {
                 if (exception == null) {
-                    LOGGER.info("async commit success, offsets: {}", offsets);
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("async commit success, offsets: {}", offsets);
+                    }
                 } else {
                     LOGGER.error("async commit error, offsets: {} cause: {}", offsets, exception);
                     backupExceptionOffsets(offsets);
@@ -134,7 +300,7 @@ public class KafkaConsumerWorker implements Runnable {
     }
 
     private void backupExceptionOffsets(Map<TopicPartition, OffsetAndMetadata> offsets) {
-        offsets.forEach(this::commit);
+        offsets.forEach(this::mark);
     }
 
     private void clearOffsets() {
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.mq.kafka.consumer;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tracks the delivered records of every partition and the offset which is safe to commit, the lowest one
+ * not acknowledged yet, so an acknowledgement arriving before the ones of the earlier records never lets
+ * those be skipped.
+ *
+ * a partition keeps a window from its lowest unacknowledged offset to its last delivered one, with a bit
+ * per offset set once acknowledged. the offsets skipped by the delivery, compacted or transaction markers,
+ * are set as soon as a later one is delivered.
+ *
+ * @author ukuz90
+ */
+public final class PartitionOffsetTracker {
+
+    private final ConcurrentMap<TopicPartition, PartitionWindow> partitions = new ConcurrentHashMap<>();
+
+    public void track(TopicPartition topicPartition, long offset) {
+        partitions.computeIfAbsent(topicPartition, k -> new PartitionWindow()).track(offset);
+    }
+
+    /**
+     * @return false if the offset is not in the window of the partition, it was acknowledged or never delivered
+     */
+    public boolean ack(TopicPartition topicPartition, long offset) {
+        PartitionWindow window = partitions.get(topicPartition);
+        return window != null && window.ack(offset);
+    }
+
+    /**
+     * @return the delivered records of the partition which are not committable yet
+     */
+    public long pending(TopicPartition topicPartition) {
+        PartitionWindow window = partitions.get(topicPartition);
+        return window == null ? 0 : window.size();
+    }
+
+    /**
+     * @return the delivered records of the partition which are not acknowledged yet
+     */
+    public long unacked(TopicPartition topicPartition) {
+        PartitionWindow window = partitions.get(topicPartition);
+        return window == null ? 0 : window.unacked();
+    }
+
+    /**
+     * @return the partitions whose committable offset moved since the last call
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committable() {
+        Map<TopicPartition, OffsetAndMetadata> committable = new HashMap<>();
+        partitions.forEach((topicPartition, window) -> {
+            long offset = window.advance();
+            if (offset >= 0) {
+                committable.put(topicPartition, new OffsetAndMetadata(offset));
+            }
+        });
+        return committable;
+    }
+
+    public void remove(Collection<TopicPartition> topicPartitions) {
+        topicPartitions.forEach(partitions::remove);
+    }
+
+    private static final class PartitionWindow {
+
+        /**
+         * lowest offset not acknowledged, -1 before the first delivery
+         */
+        private long base = -1;
+        /**
+         * the offset following the last delivered one
+         */
+        private long end = -1;
+        /**
+         * bit i is set once base + i was acknowledged or skipped
+         */
+        private BitSet acked = new BitSet();
+
+        synchronized void track(long offset) {
+            if (base < 0) {
+                base = offset;
+                end = offset;
+            }
+            if (offset < end) {
+                // delivered again after a seek, it is already in the window
+                return;
+            }
+            if (offset > end) {
+                acked.set((int) (end - base), (int) (offset - base));
+            }
+            end = offset + 1;
+        }
+
+        synchronized boolean ack(long offset) {
+            if (offset < base || offset >= end) {
+                return false;
+            }
+            acked.set((int) (offset - base));
+            return true;
+        }
+
+        synchronized long size() {
+            return end - base;
+        }
+
+        synchronized long unacked() {
+            return end - base - acked.cardinality();
+        }
+
+        /**
+         * slide the window over its acknowledged prefix
+         *
+         * @return the new lowest unacknowledged offset, -1 if it did not move
+         */
+        synchronized long advance() {
+            int prefix = acked.nextClearBit(0);
+            if (prefix == 0) {
+                return -1;
+            }
+            acked = acked.get(prefix, Math.max(acked.length(), prefix));
+            base += prefix;
+            return base;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import io.github.ukuz.piccolo.api.external.common.Assert;
 import io.github.ukuz.piccolo.api.mq.MQMessageReceiver;
 import io.github.ukuz.piccolo.api.mq.MQTopic;
 import io.github.ukuz.piccolo.mq.kafka.KafkaAdmin;
+import io.github.ukuz.piccolo.mq.kafka.consumer.ConsumerLanes;
 import io.github.ukuz.piccolo.mq.kafka.consumer.KafkaConsumerWorker;
 import io.github.ukuz.piccolo.mq.kafka.producer.KafkaProducerSender;
 import io.github.ukuz.piccolo.mq.kafka.properties.KafkaProperties;
@@ -35,8 +36,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
@@ -53,12 +54,12 @@ public class KafkaManager {
     private KafkaProperties kafkaProperties;
     private KafkaProducerSender sender;
     private KafkaAdmin admin;
-    private ConcurrentMap<String, KafkaConsumerWorker> consumers;
+    private List<KafkaConsumerWorker> consumers;
 
     public KafkaManager(PiccoloContext context) {
         Assert.notNull(context, "context must not be null");
         this.context = context;
-        this.consumers = new ConcurrentHashMap<>();
+        this.consumers = new CopyOnWriteArrayList<>();
     }
 
     public void init() {
@@ -80,7 +81,7 @@ public class KafkaManager {
         if (executor instanceof ExecutorService) {
             ((ExecutorService) executor).shutdown();
         }
-        consumers.forEach((k, consumer) -> consumer.destroy());
+        consumers.forEach(KafkaConsumerWorker::destroy);
     }
 
     public void subscribe(String topic, MQMessageReceiver receiver) {
@@ -88,16 +89,46 @@ public class KafkaManager {
         List<String> newTopics = topics.stream()
                 .map(MQTopic::getTopic)
                 .collect(Collectors.toList());
+        synchronized (consumers) {
+            //没有配置lanes时receiver在poll线程上执行, 每次订阅使用自己的消费者, 慢的receiver不会拖住其他topic
+            if (consumers.isEmpty() || kafkaProperties.getConsumer().getLanes() <= 0) {
+                startConsumers(newTopics, receiver);
+            } else {
+                consumers.forEach(consumer -> consumer.register(newTopics, receiver));
+            }
+        }
+    }
+
+    /**
+     * 启动poll-threads个消费者, 由kafka在它们之间分配分区. 配置了lanes时同一个消费组的全部订阅共用这些消费者
+     */
+    private void startConsumers(List<String> topics, MQMessageReceiver receiver) {
         Map<String, Object> properties = kafkaProperties.buildConsumerProperties();
-        KafkaConsumerWorker consumer = new KafkaConsumerWorker(properties, newTopics, receiver);
-        newTopics.forEach(t -> consumers.computeIfAbsent(t, k -> consumer));
-        executor.execute(consumer);
+        KafkaProperties.ConsumerNestedProperties consumerProperties = kafkaProperties.getConsumer();
+        int pollThreads = Math.max(consumerProperties.getPollThreads(), 1);
+        for (int i = 0; i < pollThreads; i++) {
+            ConsumerLanes lanes = null;
+            if (consumerProperties.getLanes() > 0) {
+                lanes = new ConsumerLanes(consumerProperties.getLanes(),
+                        "key".equalsIgnoreCase(consumerProperties.getLaneRouting()));
+            }
+            KafkaConsumerWorker consumer = new KafkaConsumerWorker(properties, lanes,
+                    consumerProperties.getMaxPendingPerPartition());
+            consumer.register(topics, receiver);
+            consumers.add(consumer);
+            executor.execute(consumer);
+        }
+        LOGGER.info("start consumers, group: {} pollThreads: {}", consumerProperties.getGroupId(), pollThreads);
     }
 
     public void publish(String topic, String key, Object message) {
         sender.send(MQTopic.getTopic(topic), key, (byte[])message, null);
     }
 
+    public CompletableFuture<Void> publishAsync(String topic, String key, byte[] message) {
+        return sender.sendAsync(MQTopic.getTopic(topic), key, message);
+    }
+
     public void addTopicIfNeeded(MQTopic topic) {
         admin.addTopicIfNeeded(topic);
     }
@@ -105,13 +136,17 @@ public class KafkaManager {
     public void commitOffset(TopicPartition topicPartition, OffsetAndMetadata offsetAndMetadata) {
         Assert.notNull(topicPartition, "topicPartition must not be null");
         Assert.notNull(offsetAndMetadata, "offsetAndMetadata must not be null");
-        String topic = topicPartition.topic();
-        KafkaConsumerWorker consumer = consumers.get(topic);
-        if (consumer == null) {
-            LOGGER.error("can not found topic: {}'s consumer", topic);
-        } else {
-            LOGGER.info("commitOffset topicPartition: {} offsetAndMetadata: {}", topicPartition, offsetAndMetadata);
-            consumer.commit(topicPartition, offsetAndMetadata);
+        List<KafkaConsumerWorker> owners = consumers.stream()
+                .filter(consumer -> consumer.isAssigned(topicPartition))
+                .collect(Collectors.toList());
+        if (owners.isEmpty()) {
+            // 分区已被重新分配，由新的消费者重新投递
+            LOGGER.warn("can not found topicPartition: {}'s consumer, offsetAndMetadata: {}", topicPartition, offsetAndMetadata);
+            return;
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("commitOffset topicPartition: {} offsetAndMetadata: {}", topicPartition, offsetAndMetadata);
         }
+        owners.forEach(consumer -> consumer.commit(topicPartition, offsetAndMetadata));
     }
 }
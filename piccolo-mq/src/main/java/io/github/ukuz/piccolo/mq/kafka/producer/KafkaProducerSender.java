@@ -24,6 +24,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author ukuz90
@@ -45,19 +46,48 @@ public class KafkaProducerSender {
 
     @SuppressWarnings("unchecked")
     public void send(String topic, String key, byte[] content, Callback callback) {
-        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, key, content);
-        producer.send(record, ((metadata, exception) -> {
+        sendAsync(topic, key, content).whenComplete((v, exception) -> {
             if (exception == null) {
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("producer send success, message: {}", content);
-                }
                 Optional.ofNullable(callback).ifPresent(Callback::success);
             } else {
-                //TODO need throw exception ?
-                LOGGER.error("producer send failure, message: {}", exception);
                 Optional.ofNullable(callback).ifPresent(cb -> cb.failure(exception));
             }
-        }));
+        });
+    }
+
+    /**
+     * hand the record to the producer's accumulator, batched by linger.ms and batch.size.
+     *
+     * when the accumulator is full the producer blocks the caller up to max.block.ms then gives up,
+     * the failure is reported by the future instead of being thrown to the caller.
+     *
+     * @param topic
+     * @param key
+     * @param content
+     * @return a future completed once the broker acknowledged the record
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Void> sendAsync(String topic, String key, byte[] content) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, key, content);
+        try {
+            producer.send(record, ((metadata, exception) -> {
+                if (exception == null) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("producer send success, topic: {} partition: {} offset: {}", topic, metadata.partition(), metadata.offset());
+                    }
+                    future.complete(null);
+                } else {
+                    LOGGER.error("producer send failure, topic: {} cause: {}", topic, exception);
+                    future.completeExceptionally(exception);
+                }
+            }));
+        } catch (Exception e) {
+            // buffer exhausted, metadata not available within max.block.ms, or the producer was closed
+            LOGGER.error("producer send failure, topic: {} cause: {}", topic, e.getMessage());
+            future.completeExceptionally(e);
+        }
+        return future;
     }
 
     public void destroy() {
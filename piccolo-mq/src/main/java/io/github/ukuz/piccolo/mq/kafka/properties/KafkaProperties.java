@@ -54,6 +54,14 @@ public class KafkaProperties implements Properties {
         private Integer retries;
         private Integer retriesBackoffMs;
         private Integer requestTimeoutMs;
+        /**
+         * memory of the record accumulator, a full accumulator blocks the sender
+         */
+        private Long bufferMemory;
+        /**
+         * max time a send blocks on a full accumulator or missing metadata before it fails
+         */
+        private Long maxBlockMs;
         private final HashMap<String, Object> properties = new HashMap<>();
 
         public Map<String, Object> buildProperties() {
@@ -80,6 +88,10 @@ public class KafkaProperties implements Properties {
             map.from(this::getRetriesBackoffMs).to(props.in(ProducerConfig.RETRY_BACKOFF_MS_CONFIG));
             //发送到broker，broker的响应时间上限（默认30秒）
             map.from(this::getRequestTimeoutMs).to(props.in(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG));
+            //缓存待发送消息的内存大小（默认32M）
+            map.from(this::getBufferMemory).to(props.in(ProducerConfig.BUFFER_MEMORY_CONFIG));
+            //缓存满或拿不到元数据时send最多阻塞的时间（默认60秒）
+            map.from(this::getMaxBlockMs).to(props.in(ProducerConfig.MAX_BLOCK_MS_CONFIG));
 
             return props.with(properties);
         }
@@ -94,12 +106,33 @@ public class KafkaProperties implements Properties {
         private String autoOffsetReset;
         private Integer sessionTimeout;
         private Integer maxPollIntervalMs;
-        private Boolean enableAutoCommit;
+        /**
+         * the worker commits the offsets of the acknowledged records itself, the auto commit would pass over the unacknowledged ones
+         */
+        private Boolean enableAutoCommit = false;
         private Integer autoCommitIntervalMs;
         private Integer fetchMaxBytes;
         private Integer maxPollRecords;
         private Integer heartbeatIntervalMs;
         private Integer connectionsIntervalMs;
+        /**
+         * consumers started for the subscribed topics, each with its own poll thread of the mq thread pool
+         */
+        private int pollThreads = 1;
+        /**
+         * worker lanes receiving the records in parallel, all the subscriptions then share the same consumers.
+         * 0 receives the records on the poll thread and starts consumers for every subscription, so a slow receiver
+         * only holds back its own topics
+         */
+        private int lanes;
+        /**
+         * <code>partition</code> keeps the order of every partition, <code>key</code> only keeps the order of every key
+         */
+        private String laneRouting = "partition";
+        /**
+         * a partition is paused once this number of its delivered records are not committable yet
+         */
+        private int maxPendingPerPartition = 1000;
 
         private final HashMap<String, Object> properties = new HashMap<>();
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.mq.memory;
+
+import io.github.ukuz.piccolo.api.mq.MQMessageReceiver;
+import io.github.ukuz.piccolo.mq.kafka.consumer.PartitionOffsetTracker;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Polls its share of the partitions of the subscribed in memory topics, a partition belongs to a single poll
+ * thread, so its records are received in order. the records are acknowledged and committed as the kafka
+ * consumer does it, see {@link io.github.ukuz.piccolo.mq.kafka.consumer.KafkaConsumerWorker}.
+ *
+ * @author ukuz90
+ */
+final class MemoryConsumerWorker implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryConsumerWorker.class);
+
+    private final MemoryMQClient client;
+    private final int index;
+    private final int count;
+    private final int maxPollRecords;
+    private final int maxPendingPerPartition;
+    private final long idleWaitNanos;
+    /**
+     * fetch position of the owned partitions, only touched by the poll thread
+     */
+    private final Map<TopicPartition, Long> positions = new HashMap<>();
+    private volatile boolean running = true;
+
+    MemoryConsumerWorker(MemoryMQClient client, int index, int count, int maxPollRecords,
+                         int maxPendingPerPartition, long idleWaitMicros) {
+        this.client = client;
+        this.index = index;
+        this.count = count;
+        this.maxPollRecords = Math.max(maxPollRecords, 1);
+        this.maxPendingPerPartition = Math.max(maxPendingPerPartition, 1);
+        this.idleWaitNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(idleWaitMicros, 1));
+    }
+
+    static int ownerOf(String topic, int partition, int count) {
+        return Math.floorMod(31 * topic.hashCode() + partition, count);
+    }
+
+    @Override
+    public void run() {
+        PartitionOffsetTracker tracker = client.getTracker();
+        try {
+            while (running) {
+                int fetched = 0;
+                for (String topic : client.getReceivers().keySet()) {
+                    MemoryTopic memoryTopic = client.topic(topic);
+                    for (int partition = 0; partition < memoryTopic.numPartitions(); partition++) {
+                        if (ownerOf(topic, partition, count) == index) {
+                            fetched += fetch(memoryTopic, partition, tracker);
+                        }
+                    }
+                }
+                commit(tracker);
+                if (fetched == 0) {
+                    LockSupport.parkNanos(idleWaitNanos);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("consume failure, err: {}", e);
+        } finally {
+            commit(tracker);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int fetch(MemoryTopic memoryTopic, int partition, PartitionOffsetTracker tracker) {
+        TopicPartition topicPartition = new TopicPartition(memoryTopic.name(), partition);
+        if (tracker.pending(topicPartition) >= maxPendingPerPartition) {
+            return 0;
+        }
+        PartitionRing ring = memoryTopic.partition(partition);
+        long position = positions.computeIfAbsent(topicPartition, tp -> ring.floor());
+        int fetched = 0;
+        while (fetched < maxPollRecords && position < ring.end()) {
+            PartitionRing.Entry entry = ring.read(position);
+            if (entry == null) {
+                // claimed but not published yet
+                break;
+            }
+            if (entry.offset != position) {
+                LOGGER.warn("records dropped before they were received, topicPartition: {} from: {}", topicPartition, position);
+                position = Math.max(position + 1, ring.floor());
+                continue;
+            }
+            MQMessageReceiver receiver = client.getReceivers().get(memoryTopic.name());
+            tracker.track(topicPartition, position);
+            boolean failed = false;
+            try {
+                receiver.receive(memoryTopic.name(), entry.value, topicPartition, new OffsetAndMetadata(position + 1));
+            } catch (Exception e) {
+                failed = true;
+                LOGGER.error("receive failure, topicPartition: {} offset: {} cause: {}", topicPartition, position, e);
+            } finally {
+                // the manual ack of a failed record never comes, skip it instead of holding the ring
+                if (failed || !receiver.isManualAck()) {
+                    tracker.ack(topicPartition, position);
+                }
+            }
+            position++;
+            fetched++;
+        }
+        positions.put(topicPartition, position);
+        return fetched;
+    }
+
+    private void commit(PartitionOffsetTracker tracker) {
+        tracker.committable().forEach((topicPartition, offsetAndMetadata) -> client.topic(topicPartition.topic())
+                .partition(topicPartition.partition()).commit(offsetAndMetadata.offset()));
+    }
+
+    void destroy() {
+        running = false;
+    }
+}
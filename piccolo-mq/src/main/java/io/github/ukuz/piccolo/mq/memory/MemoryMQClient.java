@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.mq.memory;
+
+import io.github.ukuz.piccolo.api.PiccoloContext;
+import io.github.ukuz.piccolo.api.common.threadpool.ExecutorFactory;
+import io.github.ukuz.piccolo.api.mq.MQClient;
+import io.github.ukuz.piccolo.api.mq.MQMessage;
+import io.github.ukuz.piccolo.api.mq.MQMessageReceiver;
+import io.github.ukuz.piccolo.api.mq.MQTopic;
+import io.github.ukuz.piccolo.api.service.AbstractService;
+import io.github.ukuz.piccolo.api.service.ServiceException;
+import io.github.ukuz.piccolo.mq.kafka.KafkaMqMessage;
+import io.github.ukuz.piccolo.mq.kafka.consumer.PartitionOffsetTracker;
+import io.github.ukuz.piccolo.mq.memory.properties.MemoryMQProperties;
+import io.github.ukuz.piccolo.mq.properties.MQTopicProperties;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * A MQClient keeping the topics in the memory of the process, for single node deployments and load tests
+ * without a broker. only the producers and the receivers of the same process see each other.
+ *
+ * the receivers get the same attachments as with kafka, a {@link TopicPartition} and the offset following the
+ * record, and a message is committed the same way, by the receiver returning or by {@link MQMessage#completeConsume()}
+ * when it acknowledges manually.
+ *
+ * @author ukuz90
+ */
+public class MemoryMQClient extends AbstractService implements MQClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryMQClient.class);
+
+    private final ConcurrentMap<String, MemoryTopic> topics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, MQMessageReceiver> receivers = new ConcurrentHashMap<>();
+    private final PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+    private final List<MemoryConsumerWorker> consumers = new CopyOnWriteArrayList<>();
+    private MemoryMQProperties properties;
+    private Executor executor;
+    private PiccoloContext context;
+    private long maxBlockNanos;
+
+    @Override
+    public void init(PiccoloContext context) throws ServiceException {
+        this.context = context;
+        properties = context.getProperties(MemoryMQProperties.class);
+        maxBlockNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxBlockMs());
+        MQTopicProperties topicProperties = context.getProperties(MQTopicProperties.class);
+        topicProperties.getAllTopics().forEach(this::addTopicIfNeeded);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected CompletableFuture<Boolean> doStartAsync() {
+        CompletableFuture future = new CompletableFuture();
+        future.complete(true);
+        return future;
+    }
+
+    @Override
+    public void destroy() throws ServiceException {
+        consumers.forEach(MemoryConsumerWorker::destroy);
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    @Override
+    public void addTopicIfNeeded(MQTopic topic) {
+        MemoryTopic memoryTopic = topics.computeIfAbsent(topic.getTopic(),
+                name -> new MemoryTopic(name, topic.getNumPartitions(), properties.getPartitionCapacity()));
+        if (memoryTopic.numPartitions() != topic.getNumPartitions()) {
+            LOGGER.info("Topic {} exist but has different partition count, now {} not {}",
+                    memoryTopic.name(), memoryTopic.numPartitions(), topic.getNumPartitions());
+        }
+    }
+
+    @Override
+    public void subscribe(String topic, MQMessageReceiver receiver) {
+        List<String> newTopics = new ArrayList<>();
+        for (String t : topic.split(",")) {
+            newTopics.add(MQTopic.getTopic(t));
+        }
+        synchronized (consumers) {
+            for (String t : newTopics) {
+                MQMessageReceiver previous = receivers.put(t, receiver);
+                if (previous != null && previous != receiver) {
+                    LOGGER.warn("topic: {} receiver replaced, previous: {} current: {}", t, previous, receiver);
+                }
+                topic(t).subscribe();
+            }
+            if (consumers.isEmpty()) {
+                startConsumers();
+            }
+        }
+    }
+
+    private void startConsumers() {
+        executor = context.getExecutorFactory().create(ExecutorFactory.MQ, context.getEnvironment());
+        int pollThreads = Math.max(properties.getPollThreads(), 1);
+        for (int i = 0; i < pollThreads; i++) {
+            MemoryConsumerWorker consumer = new MemoryConsumerWorker(this, i, pollThreads, properties.getMaxPollRecords(),
+                    properties.getMaxPendingPerPartition(), properties.getIdleWaitMicros());
+            consumers.add(consumer);
+            executor.execute(consumer);
+        }
+        LOGGER.info("start consumers, pollThreads: {}", pollThreads);
+    }
+
+    @Override
+    public void publish(String topic, Object message) {
+        publish(topic, null, message);
+    }
+
+    @Override
+    public void publish(String topic, String key, Object message) {
+        publishAsync(topic, key, message).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                LOGGER.error("publish failure, topic: {} key: {} cause: {}", topic, key, throwable.getMessage());
+            }
+        });
+    }
+
+    /**
+     * the record is in the partition when this returns, so the future is already completed. a full partition blocks
+     * the caller up to maxBlockMs, like the buffer of the kafka producer, the wait is not handed to another thread
+     * because a later publish of the same key could then overtake this one.
+     */
+    @Override
+    public CompletableFuture<Void> publishAsync(String topic, String key, Object message) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        byte[] value;
+        if (message instanceof String) {
+            value = ((String) message).getBytes(StandardCharsets.UTF_8);
+        } else if (message instanceof byte[]) {
+            value = (byte[]) message;
+        } else {
+            future.completeExceptionally(new IllegalArgumentException("unsupported wire type: " + message));
+            return future;
+        }
+        MemoryTopic memoryTopic = topic(MQTopic.getTopic(topic));
+        int partition = memoryTopic.partitionOf(key);
+        if (memoryTopic.partition(partition).append(key, value, maxBlockNanos) < 0) {
+            future.completeExceptionally(new TimeoutException("partition " + memoryTopic.name() + "-" + partition
+                    + " stayed full for " + properties.getMaxBlockMs() + " ms"));
+        } else {
+            future.complete(null);
+        }
+        return future;
+    }
+
+    @Override
+    public void commitMessage(MQMessage message) {
+        if (message instanceof KafkaMqMessage) {
+            KafkaMqMessage kafkaMqMessage = (KafkaMqMessage) message;
+            TopicPartition topicPartition = new TopicPartition(kafkaMqMessage.getTopic(), kafkaMqMessage.getPartition());
+            MQMessageReceiver receiver = receivers.get(topicPartition.topic());
+            if (receiver != null && receiver.isManualAck()) {
+                tracker.ack(topicPartition, kafkaMqMessage.getOffset() - 1);
+            }
+        } else {
+            LOGGER.error("commit unsupported wire type: {}", message);
+        }
+    }
+
+    MemoryTopic topic(String name) {
+        return topics.computeIfAbsent(name,
+                n -> new MemoryTopic(n, properties.getDefaultPartitions(), properties.getPartitionCapacity()));
+    }
+
+    ConcurrentMap<String, MQMessageReceiver> getReceivers() {
+        return receivers;
+    }
+
+    PartitionOffsetTracker getTracker() {
+        return tracker;
+    }
+
+    @Override
+    protected String getName() {
+        return "memory mq client";
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.mq.memory;
+
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in memory topic, the records of a key go to the partition the kafka default partitioner would choose,
+ * the records without a key go round robin.
+ *
+ * @author ukuz90
+ */
+final class MemoryTopic {
+
+    private final String name;
+    private final PartitionRing[] partitions;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    MemoryTopic(String name, int numPartitions, int partitionCapacity) {
+        this.name = name;
+        this.partitions = new PartitionRing[Math.max(numPartitions, 1)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new PartitionRing(partitionCapacity);
+        }
+    }
+
+    int partitionOf(String key) {
+        if (key == null) {
+            return Utils.toPositive(roundRobin.getAndIncrement()) % partitions.length;
+        }
+        return Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % partitions.length;
+    }
+
+    PartitionRing partition(int partition) {
+        return partitions[partition];
+    }
+
+    int numPartitions() {
+        return partitions.length;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void subscribe() {
+        for (PartitionRing partition : partitions) {
+            partition.subscribe();
+        }
+    }
+}
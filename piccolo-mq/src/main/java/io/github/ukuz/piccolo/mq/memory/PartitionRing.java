@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.mq.memory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A partition of an in memory topic, a lock free ring of records indexed by their offsets.
+ *
+ * producers claim the next offset with a CAS on the tail and publish an immutable entry into its slot, so the
+ * poll thread only reads an entry whose offset is the one it asked for. a slot is reused once the record of the
+ * previous lap was committed, a producer waits at most maxBlockMs for it. until a receiver subscribed the topic,
+ * nobody commits it, the oldest records are then dropped instead, like the retention of a broker.
+ *
+ * @author ukuz90
+ */
+final class PartitionRing {
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final int mask;
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * lowest offset kept, the committed one once subscribed
+     */
+    private final AtomicLong floor = new AtomicLong();
+    private volatile boolean subscribed;
+
+    PartitionRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * @return the offset of the record, -1 if the partition stayed full for maxBlockNanos
+     */
+    long append(String key, byte[] value, long maxBlockNanos) {
+        long deadline = 0;
+        for (;;) {
+            long offset = tail.get();
+            if (offset - floor.get() > mask) {
+                if (!subscribed) {
+                    floor.accumulateAndGet(offset - mask, Math::max);
+                    continue;
+                }
+                long now = System.nanoTime();
+                if (deadline == 0) {
+                    deadline = now + maxBlockNanos;
+                } else if (now - deadline >= 0) {
+                    return -1;
+                }
+                LockSupport.parkNanos(PARK_NANOS);
+                continue;
+            }
+            if (tail.compareAndSet(offset, offset + 1)) {
+                publish(new Entry(offset, key, value));
+                return offset;
+            }
+        }
+    }
+
+    private void publish(Entry entry) {
+        int index = (int) (entry.offset & mask);
+        for (;;) {
+            Entry current = slots.get(index);
+            if (current != null && current.offset > entry.offset) {
+                // a producer of a later lap already took the slot of a dropped record
+                return;
+            }
+            if (slots.compareAndSet(index, current, entry)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the entry of the offset, null if it was not published yet, or the entry of a later offset if the
+     * record was dropped
+     */
+    Entry read(long offset) {
+        Entry entry = slots.get((int) (offset & mask));
+        if (entry == null || entry.offset < offset) {
+            return null;
+        }
+        return entry;
+    }
+
+    void commit(long offset) {
+        floor.accumulateAndGet(offset, Math::max);
+    }
+
+    long floor() {
+        return floor.get();
+    }
+
+    long end() {
+        return tail.get();
+    }
+
+    void subscribe() {
+        subscribed = true;
+    }
+
+    static final class Entry {
+
+        final long offset;
+        final String key;
+        final byte[] value;
+
+        Entry(long offset, String key, byte[] value) {
+            this.offset = offset;
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
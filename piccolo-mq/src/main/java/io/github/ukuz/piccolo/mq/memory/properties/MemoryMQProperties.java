@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.mq.memory.properties;
+
+import io.github.ukuz.piccolo.api.config.ConfigurationProperties;
+import io.github.ukuz.piccolo.api.config.Properties;
+import lombok.Data;
+
+/**
+ * @author ukuz90
+ */
+@ConfigurationProperties(prefix = "piccolo.memory-mq")
+@Data
+public class MemoryMQProperties implements Properties {
+
+    /**
+     * records kept by a partition until they are committed, rounded up to a power of two
+     */
+    private int partitionCapacity = 65536;
+    /**
+     * partitions of a topic published to before it was added
+     */
+    private int defaultPartitions = 1;
+    /**
+     * threads polling the partitions, each of them owns a share of the partitions
+     */
+    private int pollThreads = 1;
+    private int maxPollRecords = 500;
+    /**
+     * a partition is not fetched while this number of its delivered records are not committable yet
+     */
+    private int maxPendingPerPartition = 1000;
+    /**
+     * time a publish blocks the calling thread while the partition is full before it fails
+     */
+    private long maxBlockMs = 1000;
+    /**
+     * time a poll thread parks when none of its partitions had a record
+     */
+    private long idleWaitMicros = 100;
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.mq.kafka.consumer;
+
+import io.github.ukuz.piccolo.api.mq.MQMessageReceiver;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KafkaConsumerWorkerTest {
+
+    private static final String TOPIC = "topic";
+    private static final TopicPartition TP = new TopicPartition(TOPIC, 0);
+    private static final String OTHER_TOPIC = "other";
+    private static final TopicPartition OTHER_TP = new TopicPartition(OTHER_TOPIC, 0);
+    private static final int COUNT = 200;
+
+    private MockConsumer<String, byte[]> consumer;
+    private BlockingQueue<OffsetAndMetadata> received;
+    private KafkaConsumerWorker worker;
+    private Thread pollThread;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        received = new LinkedBlockingQueue<>();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        worker.destroy();
+        pollThread.join(5000);
+    }
+
+    @DisplayName("test_commit_WithShuffledAcks")
+    @Test
+    void testCommitWithShuffledAcks() {
+        start(KafkaConsumerWorker.DEFAULT_MAX_PENDING_PER_PARTITION);
+        waitUntil(() -> received.size() == COUNT);
+
+        List<OffsetAndMetadata> acks = new ArrayList<>(received);
+        Collections.shuffle(acks, new Random(7));
+        TreeSet<Long> unacked = new TreeSet<>();
+        acks.forEach(ack -> unacked.add(ack.offset() - 1));
+        for (OffsetAndMetadata ack : acks) {
+            worker.commit(TP, ack);
+            unacked.remove(ack.offset() - 1);
+            long lowestUnacked = unacked.isEmpty() ? COUNT : unacked.first();
+            assertTrue(committedOffset() <= lowestUnacked);
+        }
+
+        waitUntil(() -> committedOffset() == COUNT);
+    }
+
+    @DisplayName("test_pause_WithFullWindow")
+    @Test
+    void testPauseWithFullWindow() {
+        start(COUNT / 4);
+        waitUntil(() -> received.size() == COUNT);
+        waitUntil(() -> pausedPartitions().contains(TP));
+        assertEquals(0, committedOffset());
+
+        received.forEach(ack -> worker.commit(TP, ack));
+
+        waitUntil(() -> pausedPartitions().isEmpty());
+        waitUntil(() -> committedOffset() == COUNT);
+    }
+
+    @DisplayName("test_receive_WithReceiverPerTopic")
+    @Test
+    void testReceiveWithReceiverPerTopic() {
+        BlockingQueue<String> otherReceived = new LinkedBlockingQueue<>();
+        worker = new KafkaConsumerWorker(consumer, null, KafkaConsumerWorker.DEFAULT_MAX_PENDING_PER_PARTITION);
+        worker.register(Collections.singletonList(TOPIC), manualAckReceiver());
+        worker.register(Collections.singletonList(OTHER_TOPIC), (topic, message, attachment) -> otherReceived.add(topic));
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(Arrays.asList(TP, OTHER_TP));
+            Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+            beginningOffsets.put(TP, 0L);
+            beginningOffsets.put(OTHER_TP, 0L);
+            consumer.updateBeginningOffsets(beginningOffsets);
+        });
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 0, "key", new byte[0]));
+            consumer.addRecord(new ConsumerRecord<>(OTHER_TOPIC, 0, 0, "key", new byte[0]));
+            consumer.addRecord(new ConsumerRecord<>(OTHER_TOPIC, 0, 1, "key", new byte[0]));
+        });
+        pollThread = new Thread(worker);
+        pollThread.start();
+
+        waitUntil(() -> received.size() == 1 && otherReceived.size() == 2);
+        assertTrue(otherReceived.stream().allMatch(OTHER_TOPIC::equals));
+        // the other receiver acknowledges once it returned, the manual one waits for its commit
+        waitUntil(() -> consumer.committed(OTHER_TP) != null && consumer.committed(OTHER_TP).offset() == 2);
+        assertEquals(0, committedOffset());
+    }
+
+    @DisplayName("test_subscribe_WithTopicRegisteredWhilePolling")
+    @Test
+    void testSubscribeWithTopicRegisteredWhilePolling() {
+        start(KafkaConsumerWorker.DEFAULT_MAX_PENDING_PER_PARTITION);
+        waitUntil(() -> consumer.subscription().contains(TOPIC));
+
+        worker.register(Collections.singletonList(OTHER_TOPIC), manualAckReceiver());
+
+        waitUntil(() -> consumer.subscription().containsAll(Arrays.asList(TOPIC, OTHER_TOPIC)));
+    }
+
+    @DisplayName("test_receive_WithThrowingReceiver")
+    @Test
+    void testReceiveWithThrowingReceiver() {
+        worker = new KafkaConsumerWorker(consumer, null, KafkaConsumerWorker.DEFAULT_MAX_PENDING_PER_PARTITION);
+        worker.register(Collections.singletonList(TOPIC), new MQMessageReceiver<byte[]>() {
+            @Override
+            public void receive(String topic, byte[] message, Object... attachment) {
+                OffsetAndMetadata offsetAndMetadata = (OffsetAndMetadata) attachment[1];
+                // the record at offset 1
+                if (offsetAndMetadata.offset() == 2) {
+                    throw new IllegalStateException("receive failure");
+                }
+                received.add(offsetAndMetadata);
+            }
+
+            @Override
+            public boolean isManualAck() {
+                return true;
+            }
+        });
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(Collections.singletonList(TP));
+            consumer.updateBeginningOffsets(Collections.singletonMap(TP, 0L));
+        });
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 0, "key", new byte[0]));
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 1, "key", new byte[0]));
+        });
+        pollThread = new Thread(worker);
+        pollThread.start();
+
+        // the failed record is skipped, the poll thread keeps receiving
+        waitUntil(() -> received.size() == 1);
+        consumer.schedulePollTask(() -> consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 2, "key", new byte[0])));
+        waitUntil(() -> received.size() == 2);
+        assertEquals(0, committedOffset());
+
+        received.forEach(ack -> worker.commit(TP, ack));
+        waitUntil(() -> committedOffset() == 3);
+    }
+
+    private MQMessageReceiver<byte[]> manualAckReceiver() {
+        return new MQMessageReceiver<byte[]>() {
+            @Override
+            public void receive(String topic, byte[] message, Object... attachment) {
+                received.add((OffsetAndMetadata) attachment[1]);
+            }
+
+            @Override
+            public boolean isManualAck() {
+                return true;
+            }
+        };
+    }
+
+    private void start(int maxPendingPerPartition) {
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(Collections.singletonList(TP));
+            consumer.updateBeginningOffsets(Collections.singletonMap(TP, 0L));
+        });
+        consumer.schedulePollTask(() -> {
+            for (int offset = 0; offset < COUNT; offset++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, TP.partition(), offset, "key" + offset, new byte[0]));
+            }
+        });
+        worker = new KafkaConsumerWorker(consumer, null, maxPendingPerPartition);
+        worker.register(Collections.singletonList(TOPIC), manualAckReceiver());
+        pollThread = new Thread(worker);
+        pollThread.start();
+    }
+
+    private long committedOffset() {
+        OffsetAndMetadata committed = consumer.committed(TP);
+        return committed == null ? 0 : committed.offset();
+    }
+
+    private Set<TopicPartition> pausedPartitions() {
+        return consumer.paused();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.mq.kafka.consumer;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionOffsetTrackerTest {
+
+    private static final TopicPartition TP = new TopicPartition("topic", 0);
+
+    @DisplayName("test_committable_WithOutOfOrderAck")
+    @Test
+    void testCommittableWithOutOfOrderAck() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+        for (long offset = 10; offset < 14; offset++) {
+            tracker.track(TP, offset);
+        }
+        assertTrue(tracker.ack(TP, 11));
+        assertTrue(tracker.ack(TP, 13));
+
+        assertTrue(tracker.committable().isEmpty());
+        assertEquals(2, tracker.unacked(TP));
+        assertEquals(4, tracker.pending(TP));
+
+        assertTrue(tracker.ack(TP, 10));
+        assertEquals(Collections.singletonMap(TP, new OffsetAndMetadata(12)), tracker.committable());
+        assertTrue(tracker.committable().isEmpty());
+        assertEquals(2, tracker.pending(TP));
+
+        assertTrue(tracker.ack(TP, 12));
+        assertEquals(Collections.singletonMap(TP, new OffsetAndMetadata(14)), tracker.committable());
+        assertEquals(0, tracker.pending(TP));
+    }
+
+    @DisplayName("test_committable_WithSkippedOffsets")
+    @Test
+    void testCommittableWithSkippedOffsets() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+        tracker.track(TP, 0);
+        tracker.track(TP, 5);
+
+        assertEquals(2, tracker.unacked(TP));
+        assertTrue(tracker.ack(TP, 0));
+        assertEquals(Collections.singletonMap(TP, new OffsetAndMetadata(5)), tracker.committable());
+
+        assertTrue(tracker.ack(TP, 5));
+        assertEquals(Collections.singletonMap(TP, new OffsetAndMetadata(6)), tracker.committable());
+    }
+
+    @DisplayName("test_ack_WithStaleOffset")
+    @Test
+    void testAckWithStaleOffset() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+        tracker.track(TP, 0);
+        tracker.track(TP, 1);
+        assertTrue(tracker.ack(TP, 0));
+        tracker.committable();
+
+        assertFalse(tracker.ack(TP, 0));
+        assertFalse(tracker.ack(TP, 2));
+        assertEquals(1, tracker.unacked(TP));
+    }
+
+    @DisplayName("test_ack_WithRemovedPartition")
+    @Test
+    void testAckWithRemovedPartition() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+        tracker.track(TP, 1);
+        tracker.remove(Collections.singletonList(TP));
+
+        assertFalse(tracker.ack(TP, 1));
+
+        assertTrue(tracker.committable().isEmpty());
+        assertEquals(0, tracker.pending(TP));
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.mq.memory;
+
+import io.github.ukuz.piccolo.api.PiccoloContext;
+import io.github.ukuz.piccolo.api.common.threadpool.ExecutorFactory;
+import io.github.ukuz.piccolo.api.mq.MQMessageReceiver;
+import io.github.ukuz.piccolo.api.mq.MQTopic;
+import io.github.ukuz.piccolo.mq.kafka.KafkaMqMessage;
+import io.github.ukuz.piccolo.mq.memory.properties.MemoryMQProperties;
+import io.github.ukuz.piccolo.mq.properties.MQTopicProperties;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MemoryMQClientTest {
+
+    private static final String TOPIC = "test";
+
+    @Mock
+    private PiccoloContext piccoloContext;
+    @Mock
+    private ExecutorFactory executorFactory;
+    @Mock
+    private MQTopicProperties topicProperties;
+
+    private ExecutorService executor;
+    private MemoryMQClient client;
+
+    @BeforeEach
+    void setUp() {
+        MemoryMQProperties properties = new MemoryMQProperties();
+        properties.setPollThreads(2);
+        executor = Executors.newCachedThreadPool();
+        when(piccoloContext.getProperties(MemoryMQProperties.class)).thenReturn(properties);
+        when(piccoloContext.getProperties(MQTopicProperties.class)).thenReturn(topicProperties);
+        when(topicProperties.getAllTopics()).thenReturn(Collections.singletonList(new MQTopic(TOPIC, 4)));
+        lenient().when(piccoloContext.getExecutorFactory()).thenReturn(executorFactory);
+        lenient().when(executorFactory.create(eq(ExecutorFactory.MQ), any())).thenReturn(executor);
+        client = new MemoryMQClient();
+        client.startAsync(piccoloContext).join();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.stopAsync().join();
+    }
+
+    @DisplayName("test_subscribe_WithKeyedRecords")
+    @Test
+    void testSubscribeWithKeyedRecords() {
+        ConcurrentMap<String, List<String>> received = new ConcurrentHashMap<>();
+        ConcurrentMap<String, Integer> partitions = new ConcurrentHashMap<>();
+        client.subscribe(TOPIC, (topic, message, attachment) -> {
+            String value = new String((byte[]) message, StandardCharsets.UTF_8);
+            String key = value.substring(0, value.indexOf(':'));
+            received.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(value);
+            partitions.merge(key, ((TopicPartition) attachment[0]).partition(), (a, b) -> {
+                assertEquals(a, b);
+                return a;
+            });
+        });
+
+        for (int i = 0; i < 100; i++) {
+            String key = "user" + (i % 10);
+            client.publishAsync(TOPIC, key, key + ":" + i).join();
+        }
+
+        waitUntil(() -> received.values().stream().mapToInt(List::size).sum() == 100);
+        received.forEach((key, values) -> {
+            for (int i = 0; i < values.size(); i++) {
+                assertEquals(key + ":" + (key.charAt(key.length() - 1) - '0' + i * 10), values.get(i));
+            }
+        });
+        // auto acknowledged, everything committed
+        MemoryTopic memoryTopic = client.topic(MQTopic.getTopic(TOPIC));
+        waitUntil(() -> {
+            for (int p = 0; p < memoryTopic.numPartitions(); p++) {
+                if (memoryTopic.partition(p).floor() != memoryTopic.partition(p).end()) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    @DisplayName("test_commitMessage_WithManualAck")
+    @Test
+    void testCommitMessageWithManualAck() {
+        BlockingQueue<OffsetAndMetadata> received = new LinkedBlockingQueue<>();
+        client.subscribe(TOPIC, new MQMessageReceiver<byte[]>() {
+            @Override
+            public void receive(String topic, byte[] message, Object... attachment) {
+                received.add((OffsetAndMetadata) attachment[1]);
+            }
+
+            @Override
+            public boolean isManualAck() {
+                return true;
+            }
+        });
+        for (int i = 0; i < 3; i++) {
+            client.publish(TOPIC, "key", "message" + i);
+        }
+        MemoryTopic memoryTopic = client.topic(MQTopic.getTopic(TOPIC));
+        PartitionRing ring = memoryTopic.partition(memoryTopic.partitionOf("key"));
+        waitUntil(() -> received.size() == 3);
+        assertEquals(0, ring.floor());
+
+        List<OffsetAndMetadata> offsets = new ArrayList<>(received);
+        client.commitMessage(message(memoryTopic.partitionOf("key"), offsets.get(1)));
+        client.commitMessage(message(memoryTopic.partitionOf("key"), offsets.get(0)));
+        waitUntil(() -> ring.floor() == 2);
+
+        client.commitMessage(message(memoryTopic.partitionOf("key"), offsets.get(2)));
+        waitUntil(() -> ring.floor() == 3);
+    }
+
+    private KafkaMqMessage message(int partition, OffsetAndMetadata offsetAndMetadata) {
+        KafkaMqMessage message = new TestMessage();
+        message.setTopic(MQTopic.getTopic(TOPIC));
+        message.setPartition(partition);
+        message.setOffset(offsetAndMetadata.offset());
+        return message;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+
+    private static class TestMessage extends KafkaMqMessage {
+
+        @Override
+        protected void doEncode0() {
+        }
+
+        @Override
+        protected void doDecode0() {
+        }
+    }
+
+}
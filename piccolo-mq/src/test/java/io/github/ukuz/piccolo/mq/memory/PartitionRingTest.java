@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.mq.memory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionRingTest {
+
+    @DisplayName("test_append_WithConcurrentProducers")
+    @Test
+    void testAppendWithConcurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 10000;
+        PartitionRing ring = new PartitionRing(producers * perProducer);
+        ring.subscribe();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int seq = 0; seq < perProducer; seq++) {
+                    ring.append(null, ByteBuffer.allocate(8).putInt(producer).putInt(seq).array(), 0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        assertEquals(producers * perProducer, ring.end());
+        int[] next = new int[producers];
+        for (long offset = 0; offset < ring.end(); offset++) {
+            PartitionRing.Entry entry = ring.read(offset);
+            assertNotNull(entry);
+            assertEquals(offset, entry.offset);
+            ByteBuffer value = ByteBuffer.wrap(entry.value);
+            int producer = value.getInt();
+            // the records of a producer keep their order
+            assertEquals(next[producer]++, value.getInt());
+        }
+    }
+
+    @DisplayName("test_append_WithFullPartition")
+    @Test
+    void testAppendWithFullPartition() {
+        PartitionRing ring = new PartitionRing(4);
+        ring.subscribe();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, ring.append("key", new byte[0], 0));
+        }
+
+        assertEquals(-1, ring.append("key", new byte[0], TimeUnit.MILLISECONDS.toNanos(10)));
+
+        ring.commit(2);
+        assertEquals(4, ring.append("key", new byte[0], 0));
+        assertEquals(4, ring.read(4).offset);
+        assertEquals(3, ring.read(3).offset);
+    }
+
+    @DisplayName("test_append_WithoutSubscriber")
+    @Test
+    void testAppendWithoutSubscriber() {
+        PartitionRing ring = new PartitionRing(4);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, ring.append(null, new byte[0], 0));
+        }
+
+        assertEquals(6, ring.floor());
+        assertEquals(6, ring.read(6).offset);
+        // dropped, the slot holds a later record
+        assertEquals(6, ring.read(2).offset);
+        assertNull(ring.read(10));
+    }
+
+}
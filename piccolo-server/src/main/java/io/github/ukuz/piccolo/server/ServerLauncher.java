@@ -65,6 +65,8 @@ public class ServerLauncher {
         processChain.addLast(new MQClientBoot(server.getMQClient(), server));
         processChain.addLast(new CacheManagerBoot(server.getCacheManager(), server));
         processChain.addLast(new ConfigCenterBoot(server.getDynamicConfiguration(), server));
+        processChain.addLast(new HeartbeatSupervisorBoot(server.getHeartbeatSupervisor()));
+        processChain.addLast(new UplinkDispatcherBoot(server.getUplinkDispatcher()));
         processChain.addLast(new ServerBoot(server.getGatewayServer(), true));
         processChain.addLast(new ServerBoot(server.getConnectServer()));
         processChain.addLast(new ServerBoot(server.getWebSocketServer()));
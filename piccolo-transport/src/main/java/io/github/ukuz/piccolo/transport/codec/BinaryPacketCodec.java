@@ -17,6 +17,7 @@ package io.github.ukuz.piccolo.transport.codec;
 
 import io.github.ukuz.piccolo.api.connection.Connection;
 import io.github.ukuz.piccolo.api.exchange.protocol.Packet;
+import io.github.ukuz.piccolo.api.exchange.support.ByteBufMessage;
 import io.netty.buffer.ByteBuf;
 
 /**
@@ -32,6 +33,72 @@ public class BinaryPacketCodec implements PacketCodec {
     private final static byte MAGIC_NUM_H = (byte) (MAGIC_NUM >> 8);
     private final static byte MAGIC_NUM_L = (byte) MAGIC_NUM;
 
+    /**
+     * if true, the decoded packet holds a retained slice of the inbound buffer instead of a copied payload
+     */
+    private final boolean zeroCopy;
+    /**
+     * if true, unencrypted messages are written straight into the outbound buffer and the header is back-filled
+     */
+    private final boolean directEncode;
+
+    public BinaryPacketCodec() {
+        this(false);
+    }
+
+    public BinaryPacketCodec(boolean zeroCopy) {
+        this(zeroCopy, false);
+    }
+
+    public BinaryPacketCodec(boolean zeroCopy, boolean directEncode) {
+        this.zeroCopy = zeroCopy;
+        this.directEncode = directEncode;
+    }
+
+    public boolean isZeroCopy() {
+        return zeroCopy;
+    }
+
+    public boolean isDirectEncode() {
+        return directEncode;
+    }
+
+    /**
+     * reserve the header, let the message write its body in place, then back-fill the header
+     *
+     * @param connection connection
+     * @param message message which is direct encodable
+     * @param out the outbound buffer
+     * @throws CodecException
+     */
+    public void encode(Connection connection, ByteBufMessage message, ByteBuf out) throws CodecException {
+        int headerIndex = out.writerIndex();
+        out.writeZero(HEADER_LENGTH);
+        byte flag = message.encodeBody(out);
+        int length = out.writerIndex() - headerIndex - HEADER_LENGTH;
+        if (length > PAYLOAD_MAX_LENGTH) {
+            out.writerIndex(headerIndex);
+            throw new PacketSizeLimitCodecException("packet was beyond the payload size limit, payload's len: " + length);
+        }
+        out.setByte(headerIndex, MAGIC_NUM_H);
+        out.setByte(headerIndex + 1, MAGIC_NUM_L);
+        out.setByte(headerIndex + 2, message.getCommandType());
+        out.setByte(headerIndex + 3, flag);
+        out.setInt(headerIndex + 4, message.getSessionId());
+        out.setInt(headerIndex + 9, length);
+        out.setByte(headerIndex + 8, calcLrc(out, headerIndex));
+    }
+
+    private byte calcLrc(ByteBuf out, int headerIndex) {
+        byte lrc = 0;
+        for (int i = 0; i < HEADER_LENGTH; i++) {
+            if (i != 8) {
+                lrc ^= out.getByte(headerIndex + i);
+            }
+        }
+        return lrc;
+    }
+
     @Override
     public void encode(Connection connection, Object msg, ByteBuf out) throws CodecException {
         if (msg instanceof Packet) {
@@ -43,7 +110,11 @@ public class BinaryPacketCodec implements PacketCodec {
             out.writeInt(packet.getSessionId());
             out.writeByte(packet.getLrc());
             out.writeInt(packet.getLength());
-            out.writeBytes(packet.getPayload());
+            if (packet.hasContent()) {
+                out.writeBytes(packet.getContent(), packet.getContent().readerIndex(), packet.getLength());
+            } else {
+                out.writeBytes(packet.getPayload());
+            }
         } else {
             throw new MessageUnknownCodecException("packet unknown, msg: " + msg.getClass());
         }
@@ -76,9 +147,6 @@ public class BinaryPacketCodec implements PacketCodec {
             throw new PacketNotIntactCodecException("packet was not intact payload's len: " + length + ", but readable len: " + in.readableBytes());
         }
 
-        byte[] payload = new byte[length];
-        in.readBytes(payload);
-
         Packet packet = new Packet();
         packet.setMagic((short)MAGIC_NUM);
         packet.setCmd(cmd);
@@ -86,7 +154,13 @@ public class BinaryPacketCodec implements PacketCodec {
         packet.setSessionId(sessionId);
         packet.setLrc(lrc);
         packet.setLength(length);
-        packet.setPayload(payload);
+        if (zeroCopy) {
+            packet.setContent(in.readRetainedSlice(length));
+        } else {
+            byte[] payload = new byte[length];
+            in.readBytes(payload);
+            packet.setPayload(payload);
+        }
 
         return packet;
     }
@@ -55,6 +55,12 @@ public class DuplexCodec {
 //    @ChannelHandler.Sharable
     private class Encoder extends MessageToByteEncoder {
 
+        @Override
+        public boolean acceptOutboundMessage(Object msg) {
+            // already encoded frame, pass through
+            return !(msg instanceof ByteBuf);
+        }
+
         @Override
         protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) {
             Connection connection = cxnxManager.getConnection(ctx.channel());
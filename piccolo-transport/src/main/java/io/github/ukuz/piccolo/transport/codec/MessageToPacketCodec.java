@@ -18,6 +18,7 @@ package io.github.ukuz.piccolo.transport.codec;
 import io.github.ukuz.piccolo.api.connection.Connection;
 import io.github.ukuz.piccolo.api.exchange.protocol.Packet;
 import io.github.ukuz.piccolo.api.exchange.support.BaseMessage;
+import io.github.ukuz.piccolo.api.exchange.support.ByteBufMessage;
 import io.github.ukuz.piccolo.api.exchange.support.PacketToMessageConverter;
 import io.netty.buffer.ByteBuf;
 
@@ -40,7 +41,9 @@ public class MessageToPacketCodec implements Codec {
 
     @Override
     public void encode(Connection connection, Object msg, ByteBuf out) throws CodecException {
-        if (msg instanceof BaseMessage) {
+        if (isDirectEncodable(msg)) {
+            ((BinaryPacketCodec) packetCodec).encode(connection, (ByteBufMessage) msg, out);
+        } else if (msg instanceof BaseMessage) {
             Packet packet = ((BaseMessage) msg).encodeBody();
             packetCodec.encode(connection, packet, out);
         } else {
@@ -48,17 +51,29 @@ public class MessageToPacketCodec implements Codec {
         }
     }
 
+    private boolean isDirectEncodable(Object msg) {
+        return msg instanceof ByteBufMessage
+                && packetCodec instanceof BinaryPacketCodec
+                && ((BinaryPacketCodec) packetCodec).isDirectEncode()
+                && ((ByteBufMessage) msg).isDirectEncodable();
+    }
+
     @Override
     public Object decode(Connection connection, ByteBuf in) throws CodecException {
         Packet packet = (Packet) packetCodec.decode(connection, in);
 
         if (converter != null) {
-            BaseMessage message = converter.convert(packet, connection);
-            if (message == null) {
-                throw new PacketToMessageNotMappingCodecException("packet not mapping message, cmd: " + packet.getCommandType());
+            try {
+                BaseMessage message = converter.convert(packet, connection);
+                if (message == null) {
+                    throw new PacketToMessageNotMappingCodecException("packet not mapping message, cmd: " + packet.getCommandType());
+                }
+                message.decodeBody(packet);
+                return message;
+            } finally {
+                // the message was fully materialized, the retained slice is no longer needed
+                packet.release();
             }
-            message.decodeBody(packet);
-            return message;
         }
 
         return packet;
@@ -19,6 +19,7 @@ import io.github.ukuz.piccolo.api.connection.Connection;
 import io.github.ukuz.piccolo.api.exchange.support.MultiMessage;
 import io.github.ukuz.piccolo.api.exchange.support.PacketToMessageConverter;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
 
 /**
  * @author ukuz90
@@ -33,10 +34,27 @@ public class MultiPacketCodec extends MessageToPacketCodec {
         super(converter);
     }
 
+    public MultiPacketCodec(PacketToMessageConverter converter, boolean zeroCopy) {
+        super(converter, new BinaryPacketCodec(zeroCopy));
+    }
+
     public MultiPacketCodec(PacketToMessageConverter converter, PacketCodec packetCodec) {
         super(converter, packetCodec);
     }
 
+    /**
+     * release the retained slices held by the decoded packets, no-op for fully materialized messages
+     *
+     * @param message the decoded message
+     */
+    public static void release(Object message) {
+        if (message instanceof MultiMessage) {
+            ((MultiMessage) message).forEach(ReferenceCountUtil::release);
+        } else {
+            ReferenceCountUtil.release(message);
+        }
+    }
+
     @Override
     public void encode(Connection connection, Object message, ByteBuf out) throws CodecException {
         if (message instanceof MultiMessage) {
@@ -59,6 +77,7 @@ public class MultiPacketCodec extends MessageToPacketCodec {
                 multiMessage.addMessage(msg);
             } catch (PacketUnknownCodecException | PacketSizeLimitCodecException e) {
                 in.readerIndex(readerIndex);
+                release(multiMessage);
                 throw e;
             } catch (PacketNotIntactCodecException e) {
                 in.readerIndex(readerIndex);
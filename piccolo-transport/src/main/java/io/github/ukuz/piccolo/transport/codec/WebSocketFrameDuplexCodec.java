@@ -23,6 +23,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.MessageToMessageEncoder;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -51,10 +52,20 @@ public abstract class WebSocketFrameDuplexCodec<T extends WebSocketFrame> {
         return decoder;
     }
 
-    private class Encoder extends MessageToMessageEncoder<BaseMessage> {
+    private class Encoder extends MessageToMessageEncoder<Object> {
 
         @Override
-        protected void encode(ChannelHandlerContext ctx, BaseMessage msg, List out) throws Exception {
+        public boolean acceptOutboundMessage(Object msg) {
+            return msg instanceof BaseMessage || msg instanceof ByteBuf;
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Object msg, List out) throws Exception {
+            if (msg instanceof ByteBuf) {
+                // already encoded frame, the encoder releases the msg after encode
+                out.add(wrapFrame(((ByteBuf) msg).retain()));
+                return;
+            }
             Connection connection = cxnxManager.getConnection(ctx.channel());
             if (connection != null) {
                 ByteBuf buf = ctx.alloc().ioBuffer();
@@ -72,7 +83,12 @@ public abstract class WebSocketFrameDuplexCodec<T extends WebSocketFrame> {
         public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
             if (match(msg)) {
                 List<Object> out = new ArrayList<>();
-                decode(ctx, unwrapFrame((T) msg), out);
+                try {
+                    decode(ctx, unwrapFrame((T) msg), out);
+                } finally {
+                    // decoded packets retain their own slices, the frame itself is consumed here
+                    ReferenceCountUtil.release(msg);
+                }
                 out.forEach(ctx::fireChannelRead);
             } else {
                 ctx.fireChannelRead(msg);
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.connection;
+
+/**
+ * how the messages sent to an unwritable connection are held back
+ *
+ * @author ukuz90
+ */
+public final class BackpressurePolicy {
+
+    public static final int DEFAULT_PENDING_LIMIT = 1024;
+
+    private final int pendingLimit;
+    private final OverflowStrategy overflowStrategy;
+    private final BackpressureStats stats;
+
+    public BackpressurePolicy(int pendingLimit, OverflowStrategy overflowStrategy, BackpressureStats stats) {
+        this.pendingLimit = pendingLimit > 0 ? pendingLimit : DEFAULT_PENDING_LIMIT;
+        this.overflowStrategy = overflowStrategy;
+        this.stats = stats;
+    }
+
+    public int getPendingLimit() {
+        return pendingLimit;
+    }
+
+    public OverflowStrategy getOverflowStrategy() {
+        return overflowStrategy;
+    }
+
+    public BackpressureStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.connection;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * the backpressure counters of all connections of a server
+ *
+ * @author ukuz90
+ */
+public final class BackpressureStats {
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder pending = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+
+    void onQueued() {
+        queued.increment();
+        pending.increment();
+    }
+
+    void onDequeued(int count) {
+        pending.add(-count);
+    }
+
+    void onDropped() {
+        dropped.increment();
+    }
+
+    void onClosed() {
+        closed.increment();
+    }
+
+    /**
+     * @return the number of messages ever queued because the connection was not writable
+     */
+    public long getQueued() {
+        return queued.sum();
+    }
+
+    /**
+     * @return the number of messages waiting in the pending queues right now
+     */
+    public long getPending() {
+        return pending.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getClosed() {
+        return closed.sum();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.connection;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Coalesce the flushes of all connections served by the same event loop.
+ *
+ * writes are enqueued without flush and the channel is marked dirty, a single task queued behind the current
+ * task batch flushes every dirty channel once, or earlier when N writes were pending.
+ *
+ * @author ukuz90
+ * @see FlushMode#EVENT_LOOP
+ */
+final class EventLoopFlusher implements Runnable {
+
+    private static final FastThreadLocal<EventLoopFlusher> FLUSHERS = new FastThreadLocal<EventLoopFlusher>() {
+        @Override
+        protected EventLoopFlusher initialValue() {
+            return new EventLoopFlusher();
+        }
+    };
+
+    private Set<Channel> pending = new LinkedHashSet<>();
+    private Set<Channel> spare = new LinkedHashSet<>();
+    private int writes;
+    private boolean scheduled;
+    private boolean flushing;
+
+    private EventLoopFlusher() {
+    }
+
+    static ChannelFuture write(Channel channel, Object msg, int flushAfterWrites) {
+        ChannelPromise promise = channel.newPromise();
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            FLUSHERS.get().write0(channel, msg, promise, flushAfterWrites);
+        } else {
+            try {
+                loop.execute(() -> FLUSHERS.get().write0(channel, msg, promise, flushAfterWrites));
+            } catch (RejectedExecutionException e) {
+                ReferenceCountUtil.release(msg);
+                promise.setFailure(e);
+            }
+        }
+        return promise;
+    }
+
+    private void write0(Channel channel, Object msg, ChannelPromise promise, int flushAfterWrites) {
+        channel.write(msg, promise);
+        pending.add(channel);
+        if (++writes >= flushAfterWrites && !flushing) {
+            run();
+        } else if (!scheduled) {
+            scheduled = true;
+            channel.eventLoop().execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        scheduled = false;
+        writes = 0;
+        // swap, a flush may trigger new writes on this loop
+        Set<Channel> channels = pending;
+        pending = spare;
+        spare = channels;
+        flushing = true;
+        try {
+            for (Channel channel : channels) {
+                channel.flush();
+            }
+        } finally {
+            channels.clear();
+            flushing = false;
+        }
+    }
+}
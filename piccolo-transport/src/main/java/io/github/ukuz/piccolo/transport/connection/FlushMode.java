@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.connection;
+
+import io.github.ukuz.piccolo.api.common.utils.StringUtils;
+
+/**
+ * how the writes of a connection are flushed to the socket
+ *
+ * @author ukuz90
+ */
+public enum FlushMode {
+
+    /**
+     * flush every write, one syscall per message
+     */
+    IMMEDIATE,
+    /**
+     * consolidate the flushes per connection, flush after N writes or at the end of the read/task batch
+     */
+    CONNECTION,
+    /**
+     * write without flush and let the event loop flush all dirty connections once at the end of its task batch
+     */
+    EVENT_LOOP;
+
+    public static final int DEFAULT_FLUSH_AFTER_WRITES = 256;
+
+    public static FlushMode of(String mode) {
+        if (!StringUtils.hasText(mode)) {
+            return IMMEDIATE;
+        }
+        return valueOf(mode.trim().replace('-', '_').toUpperCase());
+    }
+
+}
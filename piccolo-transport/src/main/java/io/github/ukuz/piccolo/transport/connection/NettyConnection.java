@@ -15,36 +15,59 @@
  */
 package io.github.ukuz.piccolo.transport.connection;
 
-import io.github.ukuz.piccolo.api.config.Environment;
+import io.github.ukuz.piccolo.api.connection.Cipher;
 import io.github.ukuz.piccolo.api.connection.Connection;
 import io.github.ukuz.piccolo.api.connection.SessionContext;
 import io.github.ukuz.piccolo.api.exchange.support.BaseMessage;
-import io.github.ukuz.piccolo.common.properties.SecurityProperties;
-import io.github.ukuz.piccolo.common.security.RSACipher;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+
 /**
  * @author ukuz90
  */
 public class NettyConnection implements Connection, ChannelFutureListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NettyConnection.class);
+    private static final IllegalStateException PENDING_OVERFLOW = new IllegalStateException("connection pending queue overflow");
+    private static final IllegalStateException PENDING_DISCARDED = new IllegalStateException("connection closed with pending messages");
 
     private Channel channel;
     private long lastWriteTime;
-    private long lastReadTime;
+    private volatile long lastReadTime;
     private SessionContext context;
     private byte state = STATE_NEW;
-    private Environment environment;
+    private final FlushMode flushMode;
+    private final int flushAfterWrites;
+    private final BackpressurePolicy backpressure;
+    /**
+     * messages held back while the channel is not writable, guarded by this
+     */
+    private ArrayDeque<PendingWrite> pending;
+
 
+    public NettyConnection() {
+        this(null, FlushMode.IMMEDIATE, FlushMode.DEFAULT_FLUSH_AFTER_WRITES, null);
+    }
 
-    public NettyConnection(Environment environment) {
-        this.environment = environment;
+    /**
+     * @param cipher the cipher of a security connection resolved by the caller, it is kept by the session context only,
+     *               null for a connection which is not secured
+     * @param backpressure null to write through to the channel's outbound buffer even if it is not writable
+     */
+    public NettyConnection(Cipher cipher, FlushMode flushMode, int flushAfterWrites, BackpressurePolicy backpressure) {
         this.context = new SessionContext();
+        this.context.changeCipher(cipher);
+        this.flushMode = flushMode;
+        this.flushAfterWrites = flushAfterWrites;
+        this.backpressure = backpressure;
     }
 
     @Override
@@ -52,12 +75,12 @@ public class NettyConnection implements Connection, ChannelFutureListener {
         if (!channel.isActive()) {
             throw new IllegalArgumentException("channel is not active, state: {}");
         }
+        if (isSecurity && context.getCipher() == null) {
+            throw new IllegalArgumentException("security connection must be created with a cipher");
+        }
         this.channel = channel;
         this.state = STATE_CONNECTED;
-        if (isSecurity) {
-            SecurityProperties security = environment.getProperties(SecurityProperties.class);
-            this.context.changeCipher(new RSACipher(security.getPublicKey(), security.getPrivateKey()));
-        }
+        this.lastReadTime = this.lastWriteTime = System.currentTimeMillis();
     }
 
     @Override
@@ -99,26 +122,163 @@ public class NettyConnection implements Connection, ChannelFutureListener {
 
     @Override
     public ChannelFuture sendAsync(BaseMessage message, ChannelFutureListener listener) {
-        if (channel.isActive()) {
-            ChannelFuture future = channel.writeAndFlush(message).addListener(this);
+        return write(message, listener);
+    }
+
+    @Override
+    public ChannelFuture sendEncodedAsync(ByteBuf frame) {
+        return write(frame, null);
+    }
+
+    private ChannelFuture write(Object message, ChannelFutureListener listener) {
+        if (!channel.isActive()) {
+            ReferenceCountUtil.release(message);
+            return this.close();
+        }
+        if (backpressure != null && !isWritable()) {
+            return enqueue(message, listener);
+        }
 
-            if (listener != null) {
-                future.addListener(listener);
+        ChannelFuture future;
+        if (flushMode == FlushMode.EVENT_LOOP) {
+            future = EventLoopFlusher.write(channel, message, flushAfterWrites).addListener(this);
+        } else {
+            future = channel.writeAndFlush(message).addListener(this);
+        }
+        if (listener != null) {
+            future.addListener(listener);
+        }
+        return future;
+    }
+
+    /**
+     * writable if the channel is writable and no earlier message is still held back
+     */
+    private boolean isWritable() {
+        if (!channel.isWritable()) {
+            return false;
+        }
+        synchronized (this) {
+            return pending == null || pending.isEmpty();
+        }
+    }
+
+    private ChannelFuture enqueue(Object message, ChannelFutureListener listener) {
+        ChannelPromise promise = channel.newPromise();
+        if (listener != null) {
+            promise.addListener(listener);
+        }
+        BackpressureStats stats = backpressure.getStats();
+        PendingWrite evicted = null;
+        boolean overflow = false;
+        synchronized (this) {
+            if (pending == null) {
+                pending = new ArrayDeque<>();
+            }
+            if (pending.size() < backpressure.getPendingLimit()) {
+                pending.offer(new PendingWrite(message, promise));
+                stats.onQueued();
+            } else if (backpressure.getOverflowStrategy() == OverflowStrategy.DROP_OLDEST) {
+                evicted = pending.poll();
+                pending.offer(new PendingWrite(message, promise));
+                stats.onQueued();
+            } else {
+                overflow = true;
             }
+        }
+        if (evicted != null) {
+            evicted.discard(PENDING_OVERFLOW);
+            stats.onDequeued(1);
+            stats.onDropped();
+        }
+        if (overflow) {
+            overflow(message, promise);
+        }
+        // the channel may have turned writable while we were queueing
+        if (channel.isWritable()) {
+            channel.eventLoop().execute(this::drainPending);
+        }
+        return promise;
+    }
 
-            if (channel.isWritable()) {
-                return future;
+    private void overflow(Object message, ChannelPromise promise) {
+        BackpressureStats stats = backpressure.getStats();
+        switch (backpressure.getOverflowStrategy()) {
+            case CLOSE:
+                ReferenceCountUtil.release(message);
+                promise.tryFailure(PENDING_OVERFLOW);
+                stats.onClosed();
+                LOGGER.warn("connection pending queue overflow, close slow consumer, channel: {}", channel);
+                close();
+                break;
+            default:
+                ReferenceCountUtil.release(message);
+                promise.tryFailure(PENDING_OVERFLOW);
+                stats.onDropped();
+        }
+    }
+
+    /**
+     * write the held back messages until the channel turns unwritable again, must be invoked in the event loop
+     */
+    public void drainPending() {
+        boolean written = false;
+        int count = 0;
+        while (channel.isWritable()) {
+            PendingWrite write;
+            synchronized (this) {
+                write = pending == null ? null : pending.poll();
+            }
+            if (write == null) {
+                break;
+            }
+            count++;
+            written = true;
+            write.promise.addListener(this);
+            channel.write(write.message, write.promise);
+        }
+        if (written) {
+            if (backpressure != null) {
+                backpressure.getStats().onDequeued(count);
             }
+            channel.flush();
+        }
+    }
 
-            if (!channel.eventLoop().inEventLoop()) {
-                future.awaitUninterruptibly(100);
+    /**
+     * fail and release the held back messages
+     */
+    public void discardPending() {
+        ArrayDeque<PendingWrite> discarded;
+        synchronized (this) {
+            if (pending == null || pending.isEmpty()) {
+                return;
             }
+            discarded = pending;
+            pending = null;
+        }
+        if (backpressure != null) {
+            backpressure.getStats().onDequeued(discarded.size());
+        }
+        for (PendingWrite write : discarded) {
+            write.discard(PENDING_DISCARDED);
+        }
+    }
 
-            return future;
-        } else {
-            return this.close();
+    private static final class PendingWrite {
+
+        private final Object message;
+        private final ChannelPromise promise;
+
+        PendingWrite(Object message, ChannelPromise promise) {
+            this.message = message;
+            this.promise = promise;
         }
 
+        void discard(Throwable cause) {
+            ReferenceCountUtil.release(message);
+            promise.tryFailure(cause);
+        }
     }
 
     @Override
@@ -137,6 +297,7 @@ public class NettyConnection implements Connection, ChannelFutureListener {
             return null;
         }
         state = STATE_CLOSED;
+        discardPending();
         return channel.close();
     }
 
@@ -165,6 +326,11 @@ public class NettyConnection implements Connection, ChannelFutureListener {
         lastReadTime = System.currentTimeMillis();
     }
 
+    @Override
+    public long getLastReadTime() {
+        return lastReadTime;
+    }
+
     @Override
     public void updateLastWriteTime() {
         lastWriteTime = System.currentTimeMillis();
@@ -18,36 +18,48 @@ package io.github.ukuz.piccolo.transport.connection;
 import io.github.ukuz.piccolo.api.connection.Connection;
 import io.github.ukuz.piccolo.api.connection.ConnectionManager;
 import io.netty.channel.Channel;
-import io.netty.channel.ChannelId;
+import io.netty.util.AttributeKey;
 import io.netty.util.internal.PlatformDependent;
 
-import java.util.concurrent.ConcurrentMap;
+import java.util.Collections;
+import java.util.Set;
 
 /**
+ * the connection is stored as an attribute of its channel so the per message lookup needs no hash lookup,
+ * the set of connections is only kept for counting and closing them all.
+ *
  * @author ukuz90
  */
 public class NettyConnectionManager implements ConnectionManager {
 
-    private final ConcurrentMap<ChannelId, Connection> CONNECTION_MAP = PlatformDependent.newConcurrentHashMap();
+    static final AttributeKey<Connection> CONNECTION_KEY = AttributeKey.valueOf("piccolo_connection");
+
+    private final Set<Connection> connections = Collections.newSetFromMap(PlatformDependent.newConcurrentHashMap());
 
     @Override
     public Connection getConnection(Channel channel) {
-        return CONNECTION_MAP.get(channel.id());
+        return channel.attr(CONNECTION_KEY).get();
     }
 
     @Override
     public void add(Connection connection) {
-        CONNECTION_MAP.putIfAbsent(connection.getChannel().id(), connection);
+        if (connection.getChannel().attr(CONNECTION_KEY).setIfAbsent(connection) == null) {
+            connections.add(connection);
+        }
     }
 
     @Override
     public Connection removeConnection(Channel channel) {
-        return CONNECTION_MAP.remove(channel.id());
+        Connection connection = channel.attr(CONNECTION_KEY).getAndSet(null);
+        if (connection != null) {
+            connections.remove(connection);
+        }
+        return connection;
     }
 
     @Override
     public int getConnectionNum() {
-        return CONNECTION_MAP.size();
+        return connections.size();
     }
 
     @Override
@@ -57,7 +69,7 @@ public class NettyConnectionManager implements ConnectionManager {
 
     @Override
     public void destroy() {
-        CONNECTION_MAP.values().forEach(Connection::close);
-        CONNECTION_MAP.clear();
+        connections.forEach(Connection::close);
+        connections.clear();
     }
 }
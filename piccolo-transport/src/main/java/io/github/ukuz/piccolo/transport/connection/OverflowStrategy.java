@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.connection;
+
+import io.github.ukuz.piccolo.api.common.utils.StringUtils;
+
+/**
+ * what to do with a message when the pending queue of an unwritable connection is full
+ *
+ * @author ukuz90
+ */
+public enum OverflowStrategy {
+
+    /**
+     * discard the oldest pending message to make room for the new one
+     */
+    DROP_OLDEST,
+    /**
+     * discard the new message
+     */
+    DROP_NEWEST,
+    /**
+     * discard the new message and close the slow consumer
+     */
+    CLOSE;
+
+    public static OverflowStrategy of(String strategy) {
+        if (!StringUtils.hasText(strategy)) {
+            return DROP_NEWEST;
+        }
+        return valueOf(strategy.trim().replace('-', '_').toUpperCase());
+    }
+
+}
@@ -22,6 +22,7 @@ import io.github.ukuz.piccolo.api.exchange.handler.ChannelHandler;
 import io.github.ukuz.piccolo.api.external.common.Assert;
 import io.github.ukuz.piccolo.api.connection.ConnectionManager;
 import io.github.ukuz.piccolo.common.event.EventBus;
+import io.github.ukuz.piccolo.transport.codec.MultiPacketCodec;
 import io.github.ukuz.piccolo.transport.connection.NettyConnection;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
@@ -53,7 +54,7 @@ public class ClientHandler extends ChannelDuplexHandler {
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
-        NettyConnection connection = new NettyConnection(environment);
+        NettyConnection connection = new NettyConnection();
         connection.init(ctx.channel(), false);
         cxnxManager.add(connection);
         handler.connected(connection);
@@ -70,7 +71,11 @@ public class ClientHandler extends ChannelDuplexHandler {
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         Connection connection = cxnxManager.getConnection(ctx.channel());
-        handler.received(connection, msg);
+        try {
+            handler.received(connection, msg);
+        } finally {
+            MultiPacketCodec.release(msg);
+        }
     }
 
     @Override
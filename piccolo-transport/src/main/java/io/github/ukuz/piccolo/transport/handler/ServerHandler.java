@@ -18,10 +18,16 @@ package io.github.ukuz.piccolo.transport.handler;
 import io.github.ukuz.piccolo.api.PiccoloContext;
 import io.github.ukuz.piccolo.api.event.ConnectionCloseEvent;
 import io.github.ukuz.piccolo.api.external.common.Assert;
+import io.github.ukuz.piccolo.api.connection.Cipher;
 import io.github.ukuz.piccolo.api.connection.Connection;
 import io.github.ukuz.piccolo.api.connection.ConnectionManager;
 import io.github.ukuz.piccolo.api.exchange.handler.ChannelHandler;
 import io.github.ukuz.piccolo.common.event.EventBus;
+import io.github.ukuz.piccolo.common.properties.SecurityProperties;
+import io.github.ukuz.piccolo.common.security.RSACipher;
+import io.github.ukuz.piccolo.transport.codec.MultiPacketCodec;
+import io.github.ukuz.piccolo.transport.connection.BackpressurePolicy;
+import io.github.ukuz.piccolo.transport.connection.FlushMode;
 import io.github.ukuz.piccolo.transport.connection.NettyConnection;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
@@ -42,8 +48,16 @@ public class ServerHandler extends ChannelDuplexHandler {
     private ChannelHandler handler;
     private PiccoloContext piccoloContext;
     private boolean isSecurity;
+    private FlushMode flushMode;
+    private int flushAfterWrites;
+    private BackpressurePolicy backpressure;
 
     public ServerHandler(PiccoloContext piccoloContext, ConnectionManager cxnxManager, ChannelHandler handler, boolean isSecurity) {
+        this(piccoloContext, cxnxManager, handler, isSecurity, FlushMode.IMMEDIATE, FlushMode.DEFAULT_FLUSH_AFTER_WRITES, null);
+    }
+
+    public ServerHandler(PiccoloContext piccoloContext, ConnectionManager cxnxManager, ChannelHandler handler, boolean isSecurity,
+                         FlushMode flushMode, int flushAfterWrites, BackpressurePolicy backpressure) {
         Assert.notNull(handler, "handler must not be null");
         Assert.notNull(cxnxManager, "cxnxManager must not be null");
         Assert.notNull(piccoloContext, "piccoloContext must not be null");
@@ -51,21 +65,32 @@ public class ServerHandler extends ChannelDuplexHandler {
         this.cxnxManager = cxnxManager;
         this.handler = handler;
         this.isSecurity = isSecurity;
+        this.flushMode = flushMode;
+        this.flushAfterWrites = flushAfterWrites;
+        this.backpressure = backpressure;
     }
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) {
-        Connection connection = new NettyConnection(piccoloContext.getEnvironment());
+        Connection connection = new NettyConnection(isSecurity ? sharedCipher() : null, flushMode, flushAfterWrites, backpressure);
         connection.init(ctx.channel(), isSecurity);
         cxnxManager.add(connection);
         LOGGER.info("handler active ctx: {} connection:{}", ctx, connection);
         handler.connected(connection);
     }
 
+    private Cipher sharedCipher() {
+        SecurityProperties security = piccoloContext.getProperties(SecurityProperties.class);
+        return RSACipher.shared(security.getPublicKey(), security.getPrivateKey());
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
         Connection connection = cxnxManager.removeConnection(ctx.channel());
         LOGGER.info("handler inactive ctx: {} connection:{}", ctx, connection);
+        if (connection instanceof NettyConnection) {
+            ((NettyConnection) connection).discardPending();
+        }
         EventBus.post(new ConnectionCloseEvent(connection));
         handler.disconnected(connection);
     }
@@ -77,7 +102,22 @@ public class ServerHandler extends ChannelDuplexHandler {
         if (LOGGER.isInfoEnabled()) {
             LOGGER.info("handler received ctx: {} connection:{} msg:{}", ctx, connection, msg);
         }
-        handler.received(connection, msg);
+        try {
+            handler.received(connection, msg);
+        } finally {
+            MultiPacketCodec.release(msg);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (ctx.channel().isWritable()) {
+            Connection connection = cxnxManager.getConnection(ctx.channel());
+            if (connection instanceof NettyConnection) {
+                ((NettyConnection) connection).drainPending();
+            }
+        }
+        ctx.fireChannelWritabilityChanged();
     }
 
     @Override
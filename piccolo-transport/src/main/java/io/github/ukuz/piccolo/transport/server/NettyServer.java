@@ -26,15 +26,21 @@ import io.github.ukuz.piccolo.api.service.ServiceException;
 import io.github.ukuz.piccolo.api.service.registry.Registration;
 import io.github.ukuz.piccolo.api.spi.SpiLoader;
 import io.github.ukuz.piccolo.common.properties.CoreProperties;
+import io.github.ukuz.piccolo.common.properties.NetProperties;
 import io.github.ukuz.piccolo.transport.channel.ServerSocketChannelFactory;
 import io.github.ukuz.piccolo.transport.codec.Codec;
 import io.github.ukuz.piccolo.transport.codec.DuplexCodec;
+import io.github.ukuz.piccolo.transport.connection.BackpressurePolicy;
+import io.github.ukuz.piccolo.transport.connection.BackpressureStats;
+import io.github.ukuz.piccolo.transport.connection.FlushMode;
+import io.github.ukuz.piccolo.transport.connection.OverflowStrategy;
 import io.github.ukuz.piccolo.transport.eventloop.EventLoopGroupFactory;
 import io.github.ukuz.piccolo.transport.handler.ServerHandler;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
 import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,6 +64,9 @@ public abstract class NettyServer extends AbstractService implements Server {
     private EventLoopGroup workerGroup;
     protected PiccoloContext piccoloContext;
     protected ConnectionManager cxnxManager;
+    private final FlushMode flushMode;
+    private final int flushAfterWrites;
+    private final BackpressureStats backpressureStats = new BackpressureStats();
 
     private final AtomicReference<State> serverState = new AtomicReference<>(State.Created);
 
@@ -75,7 +84,17 @@ public abstract class NettyServer extends AbstractService implements Server {
             this.eventLoopGroupFactory = SpiLoader.getLoader(EventLoopGroupFactory.class).getExtension("nio");
             this.channelFactory = SpiLoader.getLoader(ServerSocketChannelFactory.class).getExtension("nio");
         }
-        this.serverHandler = new ServerHandler(piccoloContext, cxnxManager, channelHandler, isSecurity());
+        NetProperties.ServerNestedProperties server = getServerProperties();
+        BackpressurePolicy backpressure = null;
+        if (server != null) {
+            backpressure = new BackpressurePolicy(server.getPendingLimit(), OverflowStrategy.of(server.getOverflowStrategy()), backpressureStats);
+            this.flushMode = FlushMode.of(server.getFlushMode());
+            this.flushAfterWrites = server.getFlushAfterWrites() > 0 ? server.getFlushAfterWrites() : FlushMode.DEFAULT_FLUSH_AFTER_WRITES;
+        } else {
+            this.flushMode = FlushMode.IMMEDIATE;
+            this.flushAfterWrites = FlushMode.DEFAULT_FLUSH_AFTER_WRITES;
+        }
+        this.serverHandler = new ServerHandler(piccoloContext, cxnxManager, channelHandler, isSecurity(), flushMode, flushAfterWrites, backpressure);
     }
 
     @Override
@@ -119,6 +138,9 @@ public abstract class NettyServer extends AbstractService implements Server {
             @Override
             protected void initChannel(Channel ch) {
                 initPipeline(ch.pipeline());
+                if (flushMode == FlushMode.CONNECTION) {
+                    ch.pipeline().addFirst("flush_consolidation", new FlushConsolidationHandler(flushAfterWrites, true));
+                }
             }
         });
 
@@ -230,6 +252,23 @@ public abstract class NettyServer extends AbstractService implements Server {
         return true;
     }
 
+    /**
+     * the server's net properties, used for the settings shared by all servers
+     *
+     * @return null if the server has no net properties
+     */
+    protected NetProperties.ServerNestedProperties getServerProperties() {
+        return null;
+    }
+
+    public FlushMode getFlushMode() {
+        return flushMode;
+    }
+
+    public BackpressureStats getBackpressureStats() {
+        return backpressureStats;
+    }
+
     public PiccoloContext getPiccoloContext() {
         return piccoloContext;
     }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.codec;
+
+import io.github.ukuz.piccolo.api.connection.Cipher;
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.api.connection.SessionContext;
+import io.github.ukuz.piccolo.api.exchange.protocol.Packet;
+import io.github.ukuz.piccolo.api.exchange.support.ByteBufMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class MessageToPacketCodecTest {
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Channel channel;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(connection.getSessionContext()).thenReturn(new SessionContext());
+        lenient().when(connection.getChannel()).thenReturn(channel);
+        lenient().when(channel.alloc()).thenReturn(PooledByteBufAllocator.DEFAULT);
+    }
+
+    @DisplayName("test_encode_WithDirectEncode")
+    @Test
+    void testEncodeWithDirectEncode() {
+        MessageToPacketCodec direct = new MessageToPacketCodec(null, new BinaryPacketCodec(false, true));
+        MessageToPacketCodec copied = new MessageToPacketCodec(null, new BinaryPacketCodec(false, false));
+        ByteBuf directOut = PooledByteBufAllocator.DEFAULT.directBuffer();
+        ByteBuf copiedOut = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            direct.encode(connection, new StringMessage(connection, "Hello,World!"), directOut);
+            copied.encode(connection, new StringMessage(connection, "Hello,World!"), copiedOut);
+
+            assertEquals(copiedOut.readableBytes(), directOut.readableBytes());
+            // the header is equal except the back-filled lrc
+            assertEquals(copiedOut.slice(0, 8), directOut.slice(0, 8));
+            assertEquals(copiedOut.slice(9, copiedOut.readableBytes() - 9), directOut.slice(9, directOut.readableBytes() - 9));
+
+            Packet packet = (Packet) new BinaryPacketCodec().decode(connection, directOut);
+            assertEquals(packet.calcLrc(), packet.getLrc());
+            assertEquals(14, packet.getLength());
+            assertEquals(0, packet.getFlag());
+        } finally {
+            directOut.release();
+            copiedOut.release();
+        }
+    }
+
+    @DisplayName("test_encode_WithDirectEncodeAndCipher")
+    @Test
+    void testEncodeWithDirectEncodeAndCipher() {
+        SessionContext context = new SessionContext();
+        context.changeCipher(new ReverseCipher());
+        lenient().when(connection.getSessionContext()).thenReturn(context);
+        MessageToPacketCodec direct = new MessageToPacketCodec(null, new BinaryPacketCodec(false, true));
+        ByteBuf out = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            direct.encode(connection, new StringMessage(connection, "HaHa"), out);
+
+            Packet packet = (Packet) new BinaryPacketCodec().decode(connection, out);
+            // fall back to the packet path, the body was encrypted
+            assertEquals(0x08, packet.getFlag());
+            assertEquals('a', packet.getPayload()[0]);
+        } finally {
+            out.release();
+        }
+    }
+
+    private static class ReverseCipher implements Cipher {
+
+        @Override
+        public byte[] decrypt(byte[] encryptData) {
+            return encrypt(encryptData);
+        }
+
+        @Override
+        public byte[] encrypt(byte[] originData) {
+            byte[] data = new byte[originData.length];
+            for (int i = 0; i < originData.length; i++) {
+                data[i] = originData[originData.length - 1 - i];
+            }
+            return data;
+        }
+    }
+
+    private static class StringMessage extends ByteBufMessage {
+
+        private String content;
+
+        StringMessage(Connection connection, String content) {
+            super(connection, (byte) 1);
+            this.content = content;
+        }
+
+        @Override
+        protected void decodeBody0(ByteBuf buf) {
+            content = readString(buf);
+        }
+
+        @Override
+        protected void encodeBody0(ByteBuf buf) {
+            writeString(buf, content);
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.codec;
+
+import io.github.ukuz.piccolo.api.connection.Connection;
+import io.github.ukuz.piccolo.api.exchange.protocol.Packet;
+import io.github.ukuz.piccolo.api.exchange.support.ByteBufMessage;
+import io.github.ukuz.piccolo.api.exchange.support.MultiMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ResourceLeakDetector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ZeroCopyPacketCodecTest {
+
+    private static ResourceLeakDetector.Level originLevel;
+
+    @Mock
+    private Connection connection;
+
+    @BeforeAll
+    static void setUp() {
+        originLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        ResourceLeakDetector.setLevel(originLevel);
+    }
+
+    @DisplayName("test_decode_WithRetainedSlice")
+    @Test
+    void testDecodeWithRetainedSlice() {
+        MultiPacketCodec codec = new MultiPacketCodec(null, true);
+        ByteBuf in = PooledByteBufAllocator.DEFAULT.directBuffer();
+        writePacket(in, (byte) 1, "Hello,World!".getBytes(StandardCharsets.UTF_8));
+        writePacket(in, (byte) 1, "HaHa".getBytes(StandardCharsets.UTF_8));
+
+        MultiMessage msg = (MultiMessage) codec.decode(connection, in);
+
+        assertEquals(2, msg.size());
+        Packet first = (Packet) msg.get(0);
+        Packet second = (Packet) msg.get(1);
+        assertNull(first.getPayload());
+        assertEquals("Hello,World!", first.getContent().toString(StandardCharsets.UTF_8));
+        assertEquals("HaHa", second.getContent().toString(StandardCharsets.UTF_8));
+        assertEquals(3, in.refCnt());
+
+        MultiPacketCodec.release(msg);
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+        assertEquals(1, in.refCnt());
+        assertTrue(in.release());
+    }
+
+    @DisplayName("test_decode_WithMessageConverter")
+    @Test
+    void testDecodeWithMessageConverter() {
+        MultiPacketCodec codec = new MultiPacketCodec((packet, conn) -> new StringMessage(conn), true);
+        ByteBuf in = PooledByteBufAllocator.DEFAULT.directBuffer();
+        writePacket(in, (byte) 1, body("piccolo"));
+
+        MultiMessage msg = (MultiMessage) codec.decode(connection, in);
+
+        assertEquals(1, msg.size());
+        assertEquals("piccolo", ((StringMessage) msg.get(0)).content);
+        assertEquals(1, in.refCnt());
+        assertTrue(in.release());
+    }
+
+    @DisplayName("test_decode_WithNotMappingPacket")
+    @Test
+    void testDecodeWithNotMappingPacket() {
+        MultiPacketCodec codec = new MultiPacketCodec((packet, conn) -> packet.getCmd() == 1 ? new StringMessage(conn) : null, true);
+        ByteBuf in = PooledByteBufAllocator.DEFAULT.directBuffer();
+        writePacket(in, (byte) 1, body("piccolo"));
+        writePacket(in, (byte) 2, body("unknown"));
+
+        try {
+            codec.decode(connection, in);
+            fail();
+        } catch (CodecException e) {
+            assertEquals(PacketToMessageNotMappingCodecException.class, e.getClass());
+        }
+        assertEquals(1, in.refCnt());
+        assertTrue(in.release());
+    }
+
+    @DisplayName("test_encode_WithRetainedSlice")
+    @Test
+    void testEncodeWithRetainedSlice() {
+        BinaryPacketCodec codec = new BinaryPacketCodec(true);
+        ByteBuf in = PooledByteBufAllocator.DEFAULT.directBuffer();
+        writePacket(in, (byte) 1, "HaHa".getBytes(StandardCharsets.UTF_8));
+        Packet packet = (Packet) codec.decode(connection, in);
+
+        ByteBuf out = PooledByteBufAllocator.DEFAULT.directBuffer();
+        codec.encode(connection, packet, out);
+        in.readerIndex(0);
+
+        assertEquals(in, out);
+        assertTrue(packet.release());
+        assertTrue(in.release());
+        assertTrue(out.release());
+    }
+
+    private byte[] body(String content) {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.heapBuffer();
+        try {
+            buf.writeShort(data.length).writeBytes(data);
+            byte[] body = new byte[buf.readableBytes()];
+            buf.readBytes(body);
+            return body;
+        } finally {
+            buf.release();
+        }
+    }
+
+    private void writePacket(ByteBuf out, byte cmd, byte[] payload) {
+        out.writeByte(0xbc);
+        out.writeByte(0xc0);
+        out.writeByte(cmd);
+        out.writeByte(0);
+        out.writeInt(1);
+        out.writeByte(0);
+        out.writeInt(payload.length);
+        out.writeBytes(payload);
+    }
+
+    private static class StringMessage extends ByteBufMessage {
+
+        private String content;
+
+        StringMessage(Connection connection) {
+            super(connection, (byte) 1);
+        }
+
+        @Override
+        protected void decodeBody0(ByteBuf buf) {
+            content = readString(buf);
+        }
+
+        @Override
+        protected void encodeBody0(ByteBuf buf) {
+            writeString(buf, content);
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.connection;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackpressureTest {
+
+    private EmbeddedChannel channel;
+    private BackpressureStats stats;
+
+    @BeforeEach
+    void setUp() {
+        channel = new EmbeddedChannel();
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 2));
+        stats = new BackpressureStats();
+    }
+
+    @DisplayName("test_send_WithDropOldest")
+    @Test
+    void testSendWithDropOldest() {
+        NettyConnection connection = newConnection(OverflowStrategy.DROP_OLDEST);
+        blockChannel();
+
+        ByteBuf first = buf(1);
+        ChannelFuture firstFuture = connection.sendEncodedAsync(first);
+        ChannelFuture secondFuture = connection.sendEncodedAsync(buf(2));
+        ChannelFuture thirdFuture = connection.sendEncodedAsync(buf(3));
+
+        assertFalse(firstFuture.isSuccess());
+        assertNotNull(firstFuture.cause());
+        assertEquals(0, first.refCnt());
+        assertEquals(3, stats.getQueued());
+        assertEquals(2, stats.getPending());
+        assertEquals(1, stats.getDropped());
+
+        unblockChannel();
+        assertTrue(secondFuture.isSuccess());
+        assertTrue(thirdFuture.isSuccess());
+        assertEquals(0, stats.getPending());
+        assertOutbound(0, 2, 3);
+    }
+
+    @DisplayName("test_send_WithDropNewest")
+    @Test
+    void testSendWithDropNewest() {
+        NettyConnection connection = newConnection(OverflowStrategy.DROP_NEWEST);
+        blockChannel();
+
+        connection.sendEncodedAsync(buf(1));
+        connection.sendEncodedAsync(buf(2));
+        ByteBuf third = buf(3);
+        ChannelFuture thirdFuture = connection.sendEncodedAsync(third);
+
+        assertNotNull(thirdFuture.cause());
+        assertEquals(0, third.refCnt());
+        assertEquals(1, stats.getDropped());
+
+        unblockChannel();
+        assertOutbound(0, 1, 2);
+    }
+
+    @DisplayName("test_send_WithClose")
+    @Test
+    void testSendWithClose() {
+        NettyConnection connection = newConnection(OverflowStrategy.CLOSE);
+        blockChannel();
+
+        ByteBuf first = buf(1);
+        connection.sendEncodedAsync(first);
+        connection.sendEncodedAsync(buf(2));
+        connection.sendEncodedAsync(buf(3));
+
+        assertEquals(1, stats.getClosed());
+        assertTrue(connection.isClosed());
+        assertFalse(channel.isActive());
+        // the pending messages were released on close
+        assertEquals(0, first.refCnt());
+        assertEquals(0, stats.getPending());
+        channel.finishAndReleaseAll();
+    }
+
+    private NettyConnection newConnection(OverflowStrategy strategy) {
+        NettyConnection connection = new NettyConnection(null, FlushMode.IMMEDIATE, FlushMode.DEFAULT_FLUSH_AFTER_WRITES,
+                new BackpressurePolicy(2, strategy, stats));
+        connection.init(channel, false);
+        // drain as the server handler does
+        channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+                if (ctx.channel().isWritable()) {
+                    connection.drainPending();
+                }
+                ctx.fireChannelWritabilityChanged();
+            }
+        });
+        return connection;
+    }
+
+    private void blockChannel() {
+        // written but not flushed, over the high water mark
+        channel.write(buf(0));
+        assertFalse(channel.isWritable());
+    }
+
+    private void unblockChannel() {
+        // each drained message turns the channel unwritable until it is flushed
+        channel.flush();
+        assertTrue(channel.isWritable());
+    }
+
+    private void assertOutbound(int... expected) {
+        for (int value : expected) {
+            ByteBuf buf = channel.readOutbound();
+            assertEquals(value, buf.readInt());
+            buf.release();
+        }
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    private ByteBuf buf(int value) {
+        return Unpooled.buffer(4).writeInt(value);
+    }
+
+}
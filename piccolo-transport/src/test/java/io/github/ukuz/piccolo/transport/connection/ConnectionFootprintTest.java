@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.connection;
+
+import io.github.ukuz.piccolo.api.connection.SessionContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * the footprint of an idle connection is the heap retained by many connections and their sessions, measured as the
+ * used heap delta after a full gc. the channel is shared by the connections so only the connection itself is counted.
+ */
+class ConnectionFootprintTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionFootprintTest.class);
+
+    private static final int CONNECTIONS = 100_000;
+    /**
+     * connection, session context and the unique device id and user id of the session, with room for the gc noise
+     */
+    private static final long MAX_BYTES_PER_CONNECTION = 256;
+
+    @DisplayName("test_footprint_WithIdleConnection")
+    @Test
+    void testFootprintWithIdleConnection() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        NettyConnection[] connections = new NettyConnection[CONNECTIONS];
+        long before = usedHeap();
+        for (int i = 0; i < CONNECTIONS; i++) {
+            NettyConnection connection = new NettyConnection();
+            connection.init(channel, false);
+            connection.getSessionContext()
+                    .setOsName(new String("android"))
+                    .setOsVersion(new String("10"))
+                    .setClientVersion(new String("1.0." + (i & 7)))
+                    .setDeviceId("device-" + i)
+                    .setUserId("user-" + i);
+            connections[i] = connection;
+        }
+        long bytesPerConnection = (usedHeap() - before) / CONNECTIONS;
+        LOGGER.info("heap bytes per idle connection: {}", bytesPerConnection);
+
+        assertTrue(bytesPerConnection <= MAX_BYTES_PER_CONNECTION, "bytes per connection: " + bytesPerConnection);
+        // the members an idle connection does not need are not created
+        NettyConnection connection = connections[CONNECTIONS - 1];
+        assertNull(field(connection, "pending"));
+        assertNull(connection.getSessionContext().getCipher());
+        assertEquals(channel.id().asShortText(), connection.getId());
+        channel.finishAndReleaseAll();
+    }
+
+    @DisplayName("test_intern_WithSessionContext")
+    @Test
+    void testInternWithSessionContext() {
+        SessionContext first = new SessionContext()
+                .setOsName(new String("android"))
+                .setOsVersion(new String("10"))
+                .setClientVersion(new String("1.0.0"));
+        SessionContext second = new SessionContext()
+                .setOsName(new String("android"))
+                .setOsVersion(new String("10"))
+                .setClientVersion(new String("1.0.0"));
+
+        // the low cardinality strings are shared
+        assertSame(first.getOsName(), second.getOsName());
+        assertSame(first.getOsVersion(), second.getOsVersion());
+        assertSame(first.getClientVersion(), second.getClientVersion());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static Object field(Object target, String name) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.connection;
+
+import io.netty.channel.ChannelId;
+import io.netty.channel.DefaultChannelId;
+import io.netty.util.AttributeKey;
+import io.netty.util.DefaultAttributeMap;
+import io.netty.util.internal.PlatformDependent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * per message connection lookup, ChannelId keyed map versus channel attribute.
+ *
+ * run with {@code main}, the channels are reduced to their id and attribute map to fit 500k of them in the heap.
+ *
+ * @author ukuz90
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionLookupBenchmark {
+
+    private static final AttributeKey<Object> CONNECTION_KEY = AttributeKey.valueOf("benchmark_connection");
+
+    @Param({"500000"})
+    private int connections;
+
+    private ChannelId[] ids;
+    private DefaultAttributeMap[] channels;
+    private ConcurrentMap<ChannelId, Object> connectionMap;
+    private int[] order;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        ids = new ChannelId[connections];
+        channels = new DefaultAttributeMap[connections];
+        connectionMap = PlatformDependent.newConcurrentHashMap();
+        for (int i = 0; i < connections; i++) {
+            Object connection = new Object();
+            ids[i] = DefaultChannelId.newInstance();
+            channels[i] = new DefaultAttributeMap();
+            channels[i].attr(CONNECTION_KEY).set(connection);
+            connectionMap.put(ids[i], connection);
+        }
+        // random access, the messages of 500k connections do not arrive in order
+        order = new int[1 << 16];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = ThreadLocalRandom.current().nextInt(connections);
+        }
+    }
+
+    private int next() {
+        return order[cursor++ & (order.length - 1)];
+    }
+
+    @Benchmark
+    public Object channelIdMap() {
+        return connectionMap.get(ids[next()]);
+    }
+
+    @Benchmark
+    public Object channelAttribute() {
+        return channels[next()].attr(CONNECTION_KEY).get();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ConnectionLookupBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
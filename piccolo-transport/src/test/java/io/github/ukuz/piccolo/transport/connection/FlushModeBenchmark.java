@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.connection;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * a burst of 1 to 50 messages pushed to every user of one event loop, per flush mode.
+ *
+ * run with {@code main}, local channels keep the syscall out of the score so it only shows the pipeline cost
+ * of the flushes, on a socket each saved flush is also a saved write syscall.
+ *
+ * @author ukuz90
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlushModeBenchmark {
+
+    private static final ByteBuf FRAME = Unpooled.unreleasableBuffer(Unpooled.directBuffer(64).writeZero(64));
+
+    @Param({"1", "5", "10", "50"})
+    private int messagesPerUser;
+
+    @Param({"immediate", "connection", "event-loop"})
+    private String flushMode;
+
+    @Param({"100"})
+    private int users;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private NettyConnection[] connections;
+    private final AtomicLong received = new AtomicLong();
+    private long expected;
+
+    @Setup
+    public void setUp() {
+        group = new DefaultEventLoopGroup(1);
+        LocalAddress address = new LocalAddress("flush-mode-benchmark");
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new Receiver(received))
+                .bind(address).syncUninterruptibly().channel();
+
+        FlushMode mode = FlushMode.of(flushMode);
+        connections = new NettyConnection[users];
+        for (int i = 0; i < users; i++) {
+            Channel channel = new Bootstrap()
+                    .group(group)
+                    .channel(LocalChannel.class)
+                    .handler(mode == FlushMode.CONNECTION
+                            ? new FlushConsolidationHandler(FlushMode.DEFAULT_FLUSH_AFTER_WRITES, true)
+                            : new ChannelInboundHandlerAdapter())
+                    .connect(address).syncUninterruptibly().channel();
+            connections[i] = new NettyConnection(null, mode, FlushMode.DEFAULT_FLUSH_AFTER_WRITES, null);
+            connections[i].init(channel, false);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (NettyConnection connection : connections) {
+            connection.getChannel().close().syncUninterruptibly();
+        }
+        serverChannel.close().syncUninterruptibly();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Benchmark
+    public long push() throws InterruptedException {
+        // one task of the loop, as a dispatcher pushing to all users of that loop
+        group.next().submit(() -> {
+            for (int m = 0; m < messagesPerUser; m++) {
+                for (NettyConnection connection : connections) {
+                    connection.sendEncodedAsync(FRAME.duplicate());
+                }
+            }
+        }).sync();
+        expected += (long) messagesPerUser * users;
+        while (received.get() < expected) {
+            Thread.yield();
+        }
+        return expected;
+    }
+
+    @ChannelHandler.Sharable
+    private static class Receiver extends ChannelInboundHandlerAdapter {
+
+        private final AtomicLong received;
+
+        Receiver(AtomicLong received) {
+            this.received = received;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ReferenceCountUtil.release(msg);
+            received.incrementAndGet();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FlushModeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 ukuz90
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ukuz.piccolo.transport.connection;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * the flushes are counted on a real event loop, all messages are sent by a single task of that loop
+ * so the coalescing behind the task can be observed.
+ */
+class FlushModeTest {
+
+    private static final int MESSAGES = 50;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel channel;
+    private FlushCounter counter;
+    private CountDownLatch received;
+
+    @BeforeEach
+    void setUp() {
+        group = new DefaultEventLoopGroup(1);
+        received = new CountDownLatch(MESSAGES);
+        LocalAddress address = new LocalAddress("flush-mode-test");
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ReferenceCountUtil.release(msg);
+                        received.countDown();
+                    }
+                })
+                .bind(address).syncUninterruptibly().channel();
+        counter = new FlushCounter();
+        channel = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(counter)
+                .connect(address).syncUninterruptibly().channel();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.close().syncUninterruptibly();
+        serverChannel.close().syncUninterruptibly();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @DisplayName("test_of")
+    @Test
+    void testOf() {
+        assertEquals(FlushMode.IMMEDIATE, FlushMode.of(null));
+        assertEquals(FlushMode.IMMEDIATE, FlushMode.of(""));
+        assertEquals(FlushMode.CONNECTION, FlushMode.of("connection"));
+        assertEquals(FlushMode.EVENT_LOOP, FlushMode.of("event-loop"));
+        assertEquals(FlushMode.EVENT_LOOP, FlushMode.of("EVENT_LOOP"));
+    }
+
+    @DisplayName("test_flush_WithImmediate")
+    @Test
+    void testFlushWithImmediate() throws InterruptedException {
+        assertEquals(MESSAGES, send(FlushMode.IMMEDIATE, FlushMode.DEFAULT_FLUSH_AFTER_WRITES));
+        awaitReceived();
+
+        assertEquals(MESSAGES, counter.flushes);
+    }
+
+    @DisplayName("test_flush_WithConnection")
+    @Test
+    void testFlushWithConnection() throws InterruptedException {
+        channel.pipeline().addLast(new FlushConsolidationHandler(FlushMode.DEFAULT_FLUSH_AFTER_WRITES, true));
+
+        // consolidated behind the task
+        assertEquals(0, send(FlushMode.CONNECTION, FlushMode.DEFAULT_FLUSH_AFTER_WRITES));
+        awaitReceived();
+
+        assertEquals(1, counter.flushes);
+    }
+
+    @DisplayName("test_flush_WithEventLoop")
+    @Test
+    void testFlushWithEventLoop() throws InterruptedException {
+        // nothing flushed until the current task completes
+        assertEquals(0, send(FlushMode.EVENT_LOOP, FlushMode.DEFAULT_FLUSH_AFTER_WRITES));
+        awaitReceived();
+
+        assertEquals(1, counter.flushes);
+    }
+
+    @DisplayName("test_flush_WithEventLoopAndFlushAfterWrites")
+    @Test
+    void testFlushWithEventLoopAndFlushAfterWrites() throws InterruptedException {
+        assertEquals(MESSAGES / 10, send(FlushMode.EVENT_LOOP, 10));
+        awaitReceived();
+
+        assertEquals(MESSAGES / 10, counter.flushes);
+    }
+
+    /**
+     * send all messages from one task of the event loop.
+     *
+     * @return the flushes seen when that task completes
+     */
+    private int send(FlushMode flushMode, int flushAfterWrites) throws InterruptedException {
+        NettyConnection connection = new NettyConnection(null, flushMode, flushAfterWrites, null);
+        connection.init(channel, false);
+        return channel.eventLoop().submit(() -> {
+            for (int i = 0; i < MESSAGES; i++) {
+                connection.sendEncodedAsync(Unpooled.wrappedBuffer(new byte[]{(byte) i}));
+            }
+            return counter.flushes;
+        }).sync().getNow();
+    }
+
+    private void awaitReceived() throws InterruptedException {
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        // the flush tasks queued behind the send task have all run
+        channel.eventLoop().submit(() -> { }).sync();
+    }
+
+    private static class FlushCounter extends ChannelOutboundHandlerAdapter {
+
+        private volatile int flushes;
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            flushes++;
+            super.flush(ctx);
+        }
+    }
+
+}